@@ -0,0 +1,239 @@
+package me.whizvox.rpy2po;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import me.whizvox.rpy2po.core.Profile;
+import me.whizvox.rpy2po.core.ProfileTasks;
+import me.whizvox.rpy2po.gettext.CatalogCache;
+import me.whizvox.rpy2po.gettext.PoBackend;
+import me.whizvox.rpy2po.gettext.UpdateResolver;
+import me.whizvox.rpy2po.gui.RPY2PO;
+import me.whizvox.rpy2po.rpytl.Statements;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Runs profile actions without a display, i.e. on a build server. Run with
+ * <code>mvn -P batch compile exec:exec -Dbatch="--profile &lt;dir&gt; template update export"</code>.
+ * <p>
+ * Stages run in the order they are given. Stages that work on languages run each language on its own thread, up to
+ * <code>--threads</code> at a time. Nothing is ever asked: existing language files are overwritten when importing,
+ * staged translations are always replaced, and the game's translations are only deleted first with
+ * <code>--clean</code>. Exits with status 1 if anything failed.
+ */
+public class BatchRunner {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(BatchRunner.class);
+
+  private static final String USAGE = """
+      Usage: BatchRunner --profile <dir> [options] <stage>...
+      Stages:
+        template          Generate the template from the primary language's translation files
+        catalogs          Create missing language files from the template
+        import            Convert each language's translation files into its language file
+        update            Update each language file to match the template
+        export            Convert each language file into Ren'Py translation files
+      Options:
+        --langs <a,b,...> Languages to work on (default: the profile's output languages)
+        --stage           Export into the staging directory instead of the game
+        --clean           Delete the game's old translations before exporting
+        --threads <n>     How many languages to work on at the same time (default: number of processors)
+        --threshold <f>   Minimum similarity when updating (default: 0.7)
+        --approximate     Only compare strings that are likely to be similar when updating
+        --unique          Only match up strings with one candidate when updating
+        --any-file        Match up strings from different source files when updating
+        --po-backend <b>  What reads and writes PO files: potentilla or streaming (default: potentilla)""";
+
+  private interface LanguageTask {
+    String run(String lang) throws Exception;
+  }
+
+  private final ProfileTasks tasks;
+  private final List<String> langs;
+  private final boolean stage;
+  private final boolean clean;
+  private final UpdateResolver.Options updateOptions;
+  private final ExecutorService executor;
+  private int failures;
+
+  private BatchRunner(ProfileTasks tasks, List<String> langs, boolean stage, boolean clean,
+                      UpdateResolver.Options updateOptions, int threads) {
+    this.tasks = tasks;
+    this.langs = langs;
+    this.stage = stage;
+    this.clean = clean;
+    this.updateOptions = updateOptions;
+    executor = Executors.newFixedThreadPool(threads, r -> {
+      Thread thread = new Thread(r, "Batch Runner");
+      thread.setDaemon(true);
+      return thread;
+    });
+    failures = 0;
+  }
+
+  private void forEachLanguage(String stageName, LanguageTask task) {
+    Map<String, Future<String>> futures = new LinkedHashMap<>();
+    for (String lang : langs) {
+      futures.put(lang, executor.submit(() -> {
+        long start = System.currentTimeMillis();
+        String result = task.run(lang);
+        return "%s (%d ms)".formatted(result, System.currentTimeMillis() - start);
+      }));
+    }
+    futures.forEach((lang, future) -> {
+      try {
+        LOGGER.info("[{}] {}: {}", stageName, lang, future.get());
+      } catch (ExecutionException e) {
+        LOGGER.error("[{}] {}: failed", stageName, lang, e.getCause());
+        failures++;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new CancellationException("Interrupted while waiting for " + stageName);
+      }
+    });
+  }
+
+  private void template() throws IOException {
+    List<Path> files = tasks.getTemplateSources();
+    if (files.isEmpty()) {
+      throw new IOException("No translation files have been found");
+    }
+    ProfileTasks.TemplateResult result = tasks.generateTemplate(files);
+    tasks.addMissingNames(result.result().missingNames());
+    if (result.changes() == null) {
+      LOGGER.info("[template] Generated from {} file(s)", files.size());
+    } else {
+      LOGGER.info("[template] Generated from {} file(s): {} added, {} removed, {} modified", files.size(),
+          result.changes().added().size(), result.changes().removed().size(), result.changes().modified().size());
+    }
+  }
+
+  private void runStage(String name) {
+    long start = System.currentTimeMillis();
+    int failuresBefore = failures;
+    try {
+      switch (name) {
+        case "template" -> template();
+        case "catalogs" -> forEachLanguage(name, lang -> tasks.createCatalog(lang) ? "created" : "already exists");
+        case "import" -> forEachLanguage(name, lang -> {
+          tasks.importLanguage(lang);
+          return "imported";
+        });
+        case "update" -> forEachLanguage(name, lang -> tasks.updateLanguage(lang, updateOptions).toString());
+        case "export" -> {
+          Statements statements = tasks.readStatements();
+          forEachLanguage(name, lang -> {
+            Map<String, Exception> exceptions = tasks.exportLanguage(lang, statements, stage, clean);
+            if (!exceptions.isEmpty()) {
+              exceptions.forEach((file, e) -> LOGGER.error("[export] {}: could not write {}", lang, file, e));
+              throw new IOException("Could not write " + exceptions.size() + " file(s)");
+            }
+            return stage ? "staged" : "exported";
+          });
+        }
+        default -> throw new IllegalArgumentException("Unknown stage: " + name);
+      }
+    } catch (IOException e) {
+      LOGGER.error("[{}] failed", name, e);
+      failures++;
+    }
+    LOGGER.info("[{}] {} in {} ms", name, failures == failuresBefore ? "done" : "failed", System.currentTimeMillis() - start);
+  }
+
+  private static Profile loadProfile(ObjectMapper mapper, Path dir) throws IOException {
+    try (InputStream in = Files.newInputStream(dir.resolve("profile.json"))) {
+      Profile profile = mapper.readValue(in, Profile.class);
+      profile.setProfileDirectory(dir);
+      return profile;
+    }
+  }
+
+  private static void usage(String error) {
+    System.err.println(error);
+    System.err.println(USAGE);
+    System.exit(2);
+  }
+
+  public static void main(String[] args) {
+    Path profileDir = null;
+    List<String> langs = null;
+    boolean stage = false;
+    boolean clean = false;
+    int threads = Runtime.getRuntime().availableProcessors();
+    UpdateResolver.Options defaults = UpdateResolver.Options.DEFAULT;
+    float threshold = defaults.threshold();
+    boolean approximate = defaults.approximate();
+    boolean assign = defaults.assign();
+    boolean sameFileOnly = defaults.sameFileOnly();
+    List<String> stages = new ArrayList<>();
+    try {
+      for (int i = 0; i < args.length; i++) {
+        switch (args[i]) {
+          case "--profile" -> profileDir = Paths.get(args[++i]);
+          case "--langs" -> langs = Arrays.stream(args[++i].split(",")).map(String::trim).filter(s -> !s.isEmpty()).toList();
+          case "--stage" -> stage = true;
+          case "--clean" -> clean = true;
+          case "--threads" -> threads = Math.max(1, Integer.parseInt(args[++i]));
+          case "--threshold" -> threshold = Float.parseFloat(args[++i]);
+          case "--approximate" -> approximate = true;
+          case "--unique" -> assign = false;
+          case "--any-file" -> sameFileOnly = false;
+          case "--po-backend" -> PoBackend.setCurrent(PoBackend.parse(args[++i]));
+          case "--help", "-h" -> {
+            System.out.println(USAGE);
+            return;
+          }
+          default -> {
+            if (args[i].startsWith("-")) {
+              usage("Unknown option: " + args[i]);
+            }
+            stages.add(args[i]);
+          }
+        }
+      }
+    } catch (ArrayIndexOutOfBoundsException | IllegalArgumentException e) {
+      usage("Invalid arguments: " + e.getMessage());
+    }
+    if (profileDir == null) {
+      usage("Missing --profile");
+    }
+    if (stages.isEmpty()) {
+      usage("No stages given");
+    }
+    for (String name : stages) {
+      if (!List.of("template", "catalogs", "import", "update", "export").contains(name)) {
+        usage("Unknown stage: " + name);
+      }
+    }
+
+    ObjectMapper mapper = RPY2PO.createMapper();
+    Profile profile;
+    try {
+      profile = loadProfile(mapper, profileDir);
+    } catch (IOException e) {
+      LOGGER.error("Could not load profile at {}", profileDir, e);
+      System.exit(1);
+      return;
+    }
+    if (langs == null) {
+      langs = profile.getOutputLanguages();
+    }
+    LOGGER.info("Running {} on profile {} ({}) for {} with {} thread(s), using the {} PO backend", stages, profile.getName(),
+        profileDir, langs, threads, PoBackend.current().name().toLowerCase(Locale.ROOT));
+    BatchRunner runner = new BatchRunner(new ProfileTasks(profile, mapper, new CatalogCache()), langs, stage, clean,
+        new UpdateResolver.Options(threshold, approximate, assign, sameFileOnly), threads);
+    long start = System.currentTimeMillis();
+    stages.forEach(runner::runStage);
+    runner.executor.shutdown();
+    LOGGER.info("Finished in {} ms with {} failure(s)", System.currentTimeMillis() - start, runner.failures);
+    System.exit(runner.failures == 0 ? 0 : 1);
+  }
+
+}
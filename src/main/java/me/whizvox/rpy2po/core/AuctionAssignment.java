@@ -0,0 +1,153 @@
+package me.whizvox.rpy2po.core;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+/**
+ * Finds a maximum-weight matching in a sparse bipartite graph with Bertsekas' auction algorithm and epsilon-scaling.
+ * Not every vertex needs to be matched, so only edges worth matching need to be added.
+ * <p>
+ * To make sure the auction always ends, the graph is extended into one that is guaranteed to have a perfect matching:
+ * every left vertex gets a dummy right vertex to fall back on, every right vertex gets a dummy left vertex, and the
+ * dummies are connected to each other wherever the real vertices are. All dummy edges are worth nothing. Weights are
+ * multiplied by the number of vertices, so that ending the auction with an epsilon of 1 gives an optimal matching.
+ */
+public class AuctionAssignment {
+
+  // how much epsilon shrinks after each round of bidding
+  private static final int EPSILON_FACTOR = 6;
+
+  private final int leftCount;
+  private final int rightCount;
+  private int[] edgeLeft;
+  private int[] edgeRight;
+  private int[] edgeWeight;
+  private int edgeCount;
+
+  public AuctionAssignment(int leftCount, int rightCount) {
+    this.leftCount = leftCount;
+    this.rightCount = rightCount;
+    edgeLeft = new int[16];
+    edgeRight = new int[16];
+    edgeWeight = new int[16];
+    edgeCount = 0;
+  }
+
+  public int getEdgeCount() {
+    return edgeCount;
+  }
+
+  /**
+   * Add an edge. Edges that are worth nothing or less are ignored, since leaving both vertices unmatched is at least as
+   * good.
+   */
+  public void addEdge(int left, int right, int weight) {
+    if (left < 0 || left >= leftCount || right < 0 || right >= rightCount) {
+      throw new IndexOutOfBoundsException("Edge out of bounds: " + left + ", " + right);
+    }
+    if (weight <= 0) {
+      return;
+    }
+    if (edgeCount == edgeLeft.length) {
+      edgeLeft = Arrays.copyOf(edgeLeft, edgeCount * 2);
+      edgeRight = Arrays.copyOf(edgeRight, edgeCount * 2);
+      edgeWeight = Arrays.copyOf(edgeWeight, edgeCount * 2);
+    }
+    edgeLeft[edgeCount] = left;
+    edgeRight[edgeCount] = right;
+    edgeWeight[edgeCount] = weight;
+    edgeCount++;
+  }
+
+  /**
+   * @return For every left vertex, the right vertex it is matched with, or <code>-1</code> if it is not matched
+   */
+  public int[] solve() {
+    // bidders are the left vertices followed by a dummy for every right vertex, objects are the right vertices
+    // followed by a dummy for every left vertex
+    int n = leftCount + rightCount;
+    int[] degree = new int[n];
+    for (int e = 0; e < edgeCount; e++) {
+      degree[edgeLeft[e]]++;
+      degree[leftCount + edgeRight[e]]++;
+    }
+    int[] start = new int[n + 1];
+    for (int i = 0; i < n; i++) {
+      // plus the edge between a vertex and its own dummy
+      start[i + 1] = start[i] + degree[i] + 1;
+    }
+    int[] objects = new int[start[n]];
+    long[] weights = new long[start[n]];
+    int[] fill = Arrays.copyOf(start, n);
+    long maxWeight = 0;
+    for (int e = 0; e < edgeCount; e++) {
+      int left = edgeLeft[e];
+      int right = edgeRight[e];
+      long weight = (long) edgeWeight[e] * (n + 1);
+      objects[fill[left]] = right;
+      weights[fill[left]++] = weight;
+      objects[fill[leftCount + right]] = rightCount + left;
+      weights[fill[leftCount + right]++] = 0;
+      maxWeight = Math.max(maxWeight, weight);
+    }
+    for (int left = 0; left < leftCount; left++) {
+      objects[fill[left]] = rightCount + left;
+      weights[fill[left]++] = 0;
+    }
+    for (int right = 0; right < rightCount; right++) {
+      objects[fill[leftCount + right]] = right;
+      weights[fill[leftCount + right]++] = 0;
+    }
+
+    long[] prices = new long[n];
+    int[] owners = new int[n];
+    int[] assigned = new int[n];
+    Deque<Integer> queue = new ArrayDeque<>();
+    long epsilon = Math.max(1, maxWeight / EPSILON_FACTOR);
+    while (true) {
+      Arrays.fill(owners, -1);
+      Arrays.fill(assigned, -1);
+      for (int i = 0; i < n; i++) {
+        queue.add(i);
+      }
+      while (!queue.isEmpty()) {
+        int bidder = queue.poll();
+        int best = -1;
+        long bestValue = Long.MIN_VALUE;
+        long secondValue = Long.MIN_VALUE;
+        for (int k = start[bidder]; k < start[bidder + 1]; k++) {
+          long value = weights[k] - prices[objects[k]];
+          if (value > bestValue) {
+            secondValue = bestValue;
+            bestValue = value;
+            best = objects[k];
+          } else if (value > secondValue) {
+            secondValue = value;
+          }
+        }
+        // with only one choice, any raise is fine. raise by a lot so that competing bidders give up quickly.
+        long raise = secondValue == Long.MIN_VALUE ? maxWeight + epsilon : bestValue - secondValue + epsilon;
+        prices[best] += raise;
+        int previous = owners[best];
+        owners[best] = bidder;
+        assigned[bidder] = best;
+        if (previous != -1) {
+          assigned[previous] = -1;
+          queue.add(previous);
+        }
+      }
+      if (epsilon == 1) {
+        break;
+      }
+      epsilon = Math.max(1, epsilon / EPSILON_FACTOR);
+    }
+
+    int[] result = new int[leftCount];
+    for (int left = 0; left < leftCount; left++) {
+      result[left] = assigned[left] < rightCount ? assigned[left] : -1;
+    }
+    return result;
+  }
+
+}
@@ -0,0 +1,122 @@
+package me.whizvox.rpy2po.core;
+
+import com.soberlemur.potentilla.MessageKey;
+
+import java.util.Arrays;
+
+/**
+ * Computes the 64-bit fingerprints of message keys, i.e. the {@link StringUtil#xxHash64(String, long) xxHash} of their
+ * <code>msgctxt</code> and <code>msgid</code>, and remembers them. A key is made from the strings of a message, and so
+ * is every other key of that message, so fingerprints are remembered by the identity of those strings: once a message
+ * has been fingerprinted, looking it up again never goes over its text, however long it is.
+ * <p>
+ * Remembering fingerprints is thread-safe. Once too many of them have been remembered, i.e. after the catalogs they came
+ * from have been reloaded a few times, the cache simply starts over.
+ */
+public class MessageFingerprints {
+
+  private static final int MIN_CAPACITY = 1024;
+  private static final int MAX_CAPACITY = 1 << 19;
+
+  // any constant that tells a missing msgctxt apart from an empty one
+  private static final long NO_CONTEXT_SEED = 0x5250594E4F435458L;
+
+  private String[] contexts;
+  private String[] ids;
+  private long[] fingerprints;
+  private int size;
+
+  public MessageFingerprints() {
+    allocate(MIN_CAPACITY);
+  }
+
+  private void allocate(int capacity) {
+    contexts = new String[capacity];
+    ids = new String[capacity];
+    fingerprints = new long[capacity];
+    size = 0;
+  }
+
+  /**
+   * Compute a fingerprint without remembering it.
+   */
+  public long compute(String context, String id) {
+    long seed = context == null ? NO_CONTEXT_SEED : StringUtil.xxHash64(context, 0);
+    return StringUtil.xxHash64(id, seed);
+  }
+
+  private static int slot(String context, String id, int mask) {
+    int hash = System.identityHashCode(id) * 31 + System.identityHashCode(context);
+    return (hash ^ hash >>> 16) * 0x9E3779B9 & mask;
+  }
+
+  /**
+   * @return The fingerprint of a key, which is only computed if no key with the same strings has been fingerprinted
+   * before
+   */
+  public synchronized long get(MessageKey key) {
+    String context = key.msgContext();
+    String id = key.msgId();
+    if (id == null) {
+      return compute(context, "");
+    }
+    int mask = ids.length - 1;
+    int i = slot(context, id, mask);
+    for (; ids[i] != null; i = (i + 1) & mask) {
+      if (ids[i] == id && contexts[i] == context) {
+        return fingerprints[i];
+      }
+    }
+    long fingerprint = compute(context, id);
+    // keep at most half of all slots in use, so probe sequences stay short
+    if ((size + 1) * 2 > ids.length) {
+      if (ids.length == MAX_CAPACITY) {
+        allocate(MAX_CAPACITY);
+      } else {
+        grow();
+      }
+      mask = ids.length - 1;
+      i = slot(context, id, mask);
+      while (ids[i] != null) {
+        i = (i + 1) & mask;
+      }
+    }
+    contexts[i] = context;
+    ids[i] = id;
+    fingerprints[i] = fingerprint;
+    size++;
+    return fingerprint;
+  }
+
+  private void grow() {
+    String[] oldContexts = contexts;
+    String[] oldIds = ids;
+    long[] oldFingerprints = fingerprints;
+    int oldSize = size;
+    allocate(oldIds.length * 2);
+    int mask = ids.length - 1;
+    for (int j = 0; j < oldIds.length; j++) {
+      if (oldIds[j] != null) {
+        int i = slot(oldContexts[j], oldIds[j], mask);
+        while (ids[i] != null) {
+          i = (i + 1) & mask;
+        }
+        contexts[i] = oldContexts[j];
+        ids[i] = oldIds[j];
+        fingerprints[i] = oldFingerprints[j];
+      }
+    }
+    size = oldSize;
+  }
+
+  /**
+   * Forget every fingerprint, i.e. once the catalogs they came from are no longer used. Maps that are already using them
+   * are not affected.
+   */
+  public synchronized void clear() {
+    Arrays.fill(contexts, null);
+    Arrays.fill(ids, null);
+    size = 0;
+  }
+
+}
@@ -0,0 +1,272 @@
+package me.whizvox.rpy2po.core;
+
+import com.soberlemur.potentilla.MessageKey;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+
+/**
+ * A map keyed by {@link MessageKey}, which stores the {@link MessageFingerprints fingerprint} of each key next to it
+ * in flat arrays with open addressing. A lookup only compares <code>long</code>s until it finds a matching fingerprint,
+ * and then falls back to checking the keys for equality, so keys with the same fingerprint are still told apart. Since
+ * keys of the same message share their strings, that check does not have to go over any text either.
+ * <p>
+ * The fingerprint of a key is computed once, when it is first looked up in any map that shares the same
+ * {@link MessageFingerprints}, and is never computed again when the map grows or removes entries. Putting an entry
+ * never allocates anything unless the map has to grow, and removing one leaves no tombstones behind.
+ * <p>
+ * This map is not thread-safe. Anything that is read on another thread should be given a {@link #snapshot()} instead,
+ * which cannot be modified and can be shared freely.
+ * <p>
+ * Use {@link Collections#newSetFromMap(Map)} to get a set that works the same way. Iterators do not support removal.
+ * @param <V> The type of value stored in this map
+ */
+public class MessageKeyMap<V> extends AbstractMap<MessageKey, V> {
+
+  private static final int MIN_CAPACITY = 16;
+
+  // replaced as a whole when the map grows, so nothing ever sees arrays of different sizes. snapshots get their own copy
+  private record Table(long[] fingerprints, MessageKey[] keys, Object[] values) {
+
+    Table(int capacity) {
+      this(new long[capacity], new MessageKey[capacity], new Object[capacity]);
+    }
+
+    Table copy() {
+      return new Table(fingerprints.clone(), keys.clone(), values.clone());
+    }
+
+  }
+
+  private final MessageFingerprints fingerprints;
+  private final boolean readOnly;
+  private Table table;
+  private int size;
+
+  private MessageKeyMap(MessageFingerprints fingerprints, boolean readOnly, Table table, int size) {
+    this.fingerprints = fingerprints;
+    this.readOnly = readOnly;
+    this.table = table;
+    this.size = size;
+  }
+
+  public MessageKeyMap(MessageFingerprints fingerprints, int expectedSize) {
+    this(fingerprints, false, new Table(capacityFor(expectedSize)), 0);
+  }
+
+  public MessageKeyMap(MessageFingerprints fingerprints) {
+    this(fingerprints, MIN_CAPACITY / 2);
+  }
+
+  private static int capacityFor(int expectedSize) {
+    return Math.max(MIN_CAPACITY, Integer.highestOneBit(Math.max(1, expectedSize * 2 - 1)) << 1);
+  }
+
+  /**
+   * @return A copy of this map that cannot be modified, and that can be read on any thread it is handed to
+   */
+  public MessageKeyMap<V> snapshot() {
+    return new MessageKeyMap<>(fingerprints, true, table.copy(), size);
+  }
+
+  private void checkWritable() {
+    if (readOnly) {
+      throw new UnsupportedOperationException("Cannot modify a snapshot");
+    }
+  }
+
+  // slot of a key, or -1 if it is not in this map
+  private static int find(Table table, MessageKey key, long fingerprint) {
+    long[] fingerprints = table.fingerprints;
+    MessageKey[] keys = table.keys;
+    int mask = keys.length - 1;
+    for (int i = (int) fingerprint & mask; keys[i] != null; i = (i + 1) & mask) {
+      if (fingerprints[i] == fingerprint && keys[i].equals(key)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private int find(Object key) {
+    return key instanceof MessageKey msgKey ? find(table, msgKey, fingerprints.get(msgKey)) : -1;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return find(key) != -1;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public V get(Object key) {
+    int i = find(key);
+    return i == -1 ? null : (V) table.values[i];
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public V put(MessageKey key, V value) {
+    checkWritable();
+    long fingerprint = fingerprints.get(Objects.requireNonNull(key));
+    long[] fps = table.fingerprints;
+    MessageKey[] keys = table.keys;
+    int mask = keys.length - 1;
+    int i = (int) fingerprint & mask;
+    for (; keys[i] != null; i = (i + 1) & mask) {
+      if (fps[i] == fingerprint && keys[i].equals(key)) {
+        V old = (V) table.values[i];
+        table.values[i] = value;
+        return old;
+      }
+    }
+    fps[i] = fingerprint;
+    keys[i] = key;
+    table.values[i] = value;
+    // keep at most half of all slots in use, so probe sequences stay short
+    if (++size * 2 > keys.length) {
+      grow();
+    }
+    return null;
+  }
+
+  private void grow() {
+    Table old = table;
+    Table grown = new Table(old.keys.length * 2);
+    int mask = grown.keys.length - 1;
+    for (int j = 0; j < old.keys.length; j++) {
+      if (old.keys[j] != null) {
+        int i = (int) old.fingerprints[j] & mask;
+        while (grown.keys[i] != null) {
+          i = (i + 1) & mask;
+        }
+        grown.fingerprints[i] = old.fingerprints[j];
+        grown.keys[i] = old.keys[j];
+        grown.values[i] = old.values[j];
+      }
+    }
+    table = grown;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public V remove(Object key) {
+    checkWritable();
+    int i = find(key);
+    if (i == -1) {
+      return null;
+    }
+    V old = (V) table.values[i];
+    removeAt(i);
+    return old;
+  }
+
+  // shift later entries of the same probe sequence back, so that no tombstones are needed
+  private void removeAt(int i) {
+    long[] fps = table.fingerprints;
+    MessageKey[] keys = table.keys;
+    Object[] values = table.values;
+    int mask = keys.length - 1;
+    int j = i;
+    while (true) {
+      j = (j + 1) & mask;
+      if (keys[j] == null) {
+        break;
+      }
+      int home = (int) fps[j] & mask;
+      // the entry at j can only move into i if i is between its home slot and j
+      if (((j - home) & mask) >= ((j - i) & mask)) {
+        fps[i] = fps[j];
+        keys[i] = keys[j];
+        values[i] = values[j];
+        i = j;
+      }
+    }
+    keys[i] = null;
+    values[i] = null;
+    size--;
+  }
+
+  @Override
+  public void clear() {
+    checkWritable();
+    if (size > 0) {
+      Arrays.fill(table.keys, null);
+      Arrays.fill(table.values, null);
+      size = 0;
+    }
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public void forEach(BiConsumer<? super MessageKey, ? super V> action) {
+    MessageKey[] keys = table.keys;
+    Object[] values = table.values;
+    for (int i = 0; i < keys.length; i++) {
+      if (keys[i] != null) {
+        action.accept(keys[i], (V) values[i]);
+      }
+    }
+  }
+
+  @Override
+  public Set<Entry<MessageKey, V>> entrySet() {
+    return new AbstractSet<>() {
+      @Override
+      public Iterator<Entry<MessageKey, V>> iterator() {
+        return new EntryIterator();
+      }
+
+      @Override
+      public int size() {
+        return size;
+      }
+
+      @Override
+      public void clear() {
+        MessageKeyMap.this.clear();
+      }
+    };
+  }
+
+  private class EntryIterator implements Iterator<Entry<MessageKey, V>> {
+
+    private final Table table;
+    private int next;
+
+    EntryIterator() {
+      table = MessageKeyMap.this.table;
+      next = advance(0);
+    }
+
+    private int advance(int from) {
+      while (from < table.keys.length && table.keys[from] == null) {
+        from++;
+      }
+      return from;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return next < table.keys.length;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Entry<MessageKey, V> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      int i = next;
+      next = advance(i + 1);
+      return new SimpleImmutableEntry<>(table.keys[i], (V) table.values[i]);
+    }
+
+  }
+
+}
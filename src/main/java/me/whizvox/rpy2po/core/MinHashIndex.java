@@ -0,0 +1,120 @@
+package me.whizvox.rpy2po.core;
+
+import java.util.*;
+
+/**
+ * An index for finding strings that are likely similar to a given string without comparing it against every string.
+ * Each string is reduced to a MinHash signature of its (case-insensitive) character trigrams, and the signature is
+ * split up into bands. Strings that share at least one band with the query are returned as candidates.
+ * <p>
+ * This is approximate: a candidate is not necessarily similar, and a similar string is not necessarily a candidate.
+ * Candidates should still be confirmed with {@link StringUtil#getSimilarity(String, String, float)}. More bands raise
+ * the chance of finding a similar string, and more rows per band lower the number of dissimilar candidates.
+ * @param <T> The type of value stored in this index
+ */
+public class MinHashIndex<T> {
+
+  public static final int DEFAULT_BANDS = 32;
+  public static final int DEFAULT_ROWS = 4;
+
+  private final int bands;
+  private final int rows;
+  private final long[] multipliers;
+  private final long[] increments;
+  private final List<Map<Long, List<T>>> buckets;
+  private int size;
+
+  public MinHashIndex(int bands, int rows) {
+    if (bands < 1 || rows < 1) {
+      throw new IllegalArgumentException("Bands and rows must be positive: " + bands + ", " + rows);
+    }
+    this.bands = bands;
+    this.rows = rows;
+    // fixed seed, so signatures are the same between runs
+    SplittableRandom random = new SplittableRandom(0x6d696e68617368L);
+    multipliers = new long[bands * rows];
+    increments = new long[bands * rows];
+    for (int i = 0; i < multipliers.length; i++) {
+      multipliers[i] = random.nextLong() | 1;
+      increments[i] = random.nextLong();
+    }
+    buckets = new ArrayList<>(bands);
+    for (int i = 0; i < bands; i++) {
+      buckets.add(new HashMap<>());
+    }
+    size = 0;
+  }
+
+  public MinHashIndex() {
+    this(DEFAULT_BANDS, DEFAULT_ROWS);
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public void add(T value, String text) {
+    long[] signature = getSignature(text);
+    for (int band = 0; band < bands; band++) {
+      buckets.get(band).computeIfAbsent(getBandHash(signature, band), k -> new ArrayList<>()).add(value);
+    }
+    size++;
+  }
+
+  /**
+   * Find all values whose text is likely similar to some text.
+   * @return All candidates, in the order they were added to this index
+   */
+  public Set<T> query(String text) {
+    long[] signature = getSignature(text);
+    Set<T> candidates = new LinkedHashSet<>();
+    for (int band = 0; band < bands; band++) {
+      List<T> bucket = buckets.get(band).get(getBandHash(signature, band));
+      if (bucket != null) {
+        candidates.addAll(bucket);
+      }
+    }
+    return candidates;
+  }
+
+  private long[] getSignature(String text) {
+    String str = text.toLowerCase();
+    long[] signature = new long[multipliers.length];
+    Arrays.fill(signature, Long.MAX_VALUE);
+    if (str.length() < 3) {
+      updateSignature(signature, mix(str.hashCode()));
+    } else {
+      for (int i = 0; i + 3 <= str.length(); i++) {
+        long trigram = ((long) str.charAt(i) << 32) | ((long) str.charAt(i + 1) << 16) | str.charAt(i + 2);
+        updateSignature(signature, mix(trigram));
+      }
+    }
+    return signature;
+  }
+
+  private void updateSignature(long[] signature, long shingle) {
+    for (int i = 0; i < signature.length; i++) {
+      // universal hashing, the sign bit is dropped so that signed comparisons work
+      long hash = (shingle * multipliers[i] + increments[i]) >>> 1;
+      if (hash < signature[i]) {
+        signature[i] = hash;
+      }
+    }
+  }
+
+  private long getBandHash(long[] signature, int band) {
+    long hash = band;
+    for (int i = band * rows; i < (band + 1) * rows; i++) {
+      hash = mix(hash * 31 + signature[i]);
+    }
+    return hash;
+  }
+
+  // finalizer from SplitMix64
+  private static long mix(long x) {
+    x = (x ^ (x >>> 30)) * 0xbf58476d1ce4e5b9L;
+    x = (x ^ (x >>> 27)) * 0x94d049bb133111ebL;
+    return x ^ (x >>> 31);
+  }
+
+}
@@ -0,0 +1,126 @@
+package me.whizvox.rpy2po.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An implementation of Myers' O((N+M)D) difference algorithm over sequences of integers. Callers map whatever they
+ * want to compare onto integers first, so that equal elements share the same value.
+ */
+public class MyersDiff {
+
+  /**
+   * A run of elements that appears between two matching elements (or the start/end of the sequences) and that does
+   * not match. Either side may be empty, but never both.
+   * @param aStart First index of the run in the first sequence
+   * @param aEnd Index after the last element of the run in the first sequence
+   * @param bStart First index of the run in the second sequence
+   * @param bEnd Index after the last element of the run in the second sequence
+   */
+  public record Hunk(int aStart, int aEnd, int bStart, int bEnd) {
+
+    public int aLength() {
+      return aEnd - aStart;
+    }
+
+    public int bLength() {
+      return bEnd - bStart;
+    }
+
+  }
+
+  /**
+   * Find a longest common subsequence between two sequences.
+   * @return For every index in <code>a</code>, the index of the element in <code>b</code> it is matched with, or
+   * <code>-1</code> if it is not part of the common subsequence
+   */
+  public static int[] match(int[] a, int[] b) {
+    int n = a.length;
+    int m = b.length;
+    int max = n + m;
+    int offset = max + 1;
+    int[] v = new int[2 * max + 3];
+    List<int[]> trace = new ArrayList<>();
+    int[] matches = new int[n];
+    Arrays.fill(matches, -1);
+    for (int d = 0; d <= max; d++) {
+      // only diagonals -d-1 to d+1 are read during this step, so that is all the backtrack needs to keep of it
+      trace.add(Arrays.copyOfRange(v, offset - d - 1, offset + d + 2));
+      for (int k = -d; k <= d; k += 2) {
+        int x;
+        if (k == -d || (k != d && v[offset + k - 1] < v[offset + k + 1])) {
+          x = v[offset + k + 1];
+        } else {
+          x = v[offset + k - 1] + 1;
+        }
+        int y = x - k;
+        while (x < n && y < m && a[x] == b[y]) {
+          x++;
+          y++;
+        }
+        v[offset + k] = x;
+        if (x >= n && y >= m) {
+          backtrack(trace, n, m, matches);
+          return matches;
+        }
+      }
+    }
+    // unreachable, the loop always reaches the end of both sequences by d == n + m
+    return matches;
+  }
+
+  private static void backtrack(List<int[]> trace, int n, int m, int[] matches) {
+    int x = n;
+    int y = m;
+    for (int d = trace.size() - 1; d >= 0; d--) {
+      int[] v = trace.get(d);
+      int offset = d + 1;
+      int k = x - y;
+      int prevK;
+      if (k == -d || (k != d && v[offset + k - 1] < v[offset + k + 1])) {
+        prevK = k + 1;
+      } else {
+        prevK = k - 1;
+      }
+      int prevX = v[offset + prevK];
+      int prevY = prevX - prevK;
+      while (x > prevX && y > prevY) {
+        x--;
+        y--;
+        matches[x] = y;
+      }
+      x = prevX;
+      y = prevY;
+    }
+  }
+
+  /**
+   * Compute the runs of elements that differ between two sequences.
+   * @return All runs that were removed from <code>a</code> and/or inserted into <code>b</code>, in order
+   */
+  public static List<Hunk> diff(int[] a, int[] b) {
+    int[] matches = match(a, b);
+    List<Hunk> hunks = new ArrayList<>();
+    int i = 0;
+    int j = 0;
+    while (i < a.length || j < b.length) {
+      if (i < a.length && matches[i] == j) {
+        i++;
+        j++;
+        continue;
+      }
+      int aStart = i;
+      int bStart = j;
+      while (i < a.length && matches[i] == -1) {
+        i++;
+      }
+      // the next match (if any) tells us where the run ends in b
+      int bEnd = i < a.length ? matches[i] : b.length;
+      j = bEnd;
+      hunks.add(new Hunk(aStart, i, bStart, bEnd));
+    }
+    return hunks;
+  }
+
+}
@@ -0,0 +1,111 @@
+package me.whizvox.rpy2po.core;
+
+import com.soberlemur.potentilla.MessageKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable snapshot of the orphaned strings of a language file, i.e. strings that are no longer in the template,
+ * along with their {@link me.whizvox.rpy2po.gettext.SourceFileDictionary encoded} source references. Searches that run
+ * in the background only look at a snapshot, so that the collections they were taken from can keep changing.
+ * <p>
+ * The indexes are built the first time they are needed, on whichever thread needs them, which should never be the EDT.
+ * Snapshots of the same strings share their indexes.
+ */
+public class OrphanedStrings {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(OrphanedStrings.class);
+
+  private static class Indexes {
+
+    private final List<MessageKey> keys;
+    private MinHashIndex<MessageKey> minHashIndex;
+    private SuffixArrayIndex<MessageKey> searchIndex;
+
+    Indexes(List<MessageKey> keys) {
+      this.keys = keys;
+      minHashIndex = null;
+      searchIndex = null;
+    }
+
+    synchronized MinHashIndex<MessageKey> getMinHashIndex() {
+      if (minHashIndex == null) {
+        long start = System.currentTimeMillis();
+        MinHashIndex<MessageKey> index = new MinHashIndex<>();
+        keys.forEach(key -> index.add(key, key.msgId()));
+        LOGGER.debug("Indexed {} orphaned strings in {} ms", index.size(), System.currentTimeMillis() - start);
+        minHashIndex = index;
+      }
+      return minHashIndex;
+    }
+
+    synchronized SuffixArrayIndex<MessageKey> getSearchIndex() {
+      if (searchIndex == null) {
+        long start = System.currentTimeMillis();
+        searchIndex = new SuffixArrayIndex<>(keys, MessageKey::msgId);
+        LOGGER.debug("Indexed {} orphaned strings for searching in {} ms", searchIndex.size(), System.currentTimeMillis() - start);
+      }
+      return searchIndex;
+    }
+
+  }
+
+  private final Indexes indexes;
+  private final Map<MessageKey, long[]> references;
+
+  private OrphanedStrings(Indexes indexes, Map<MessageKey, long[]> references) {
+    this.indexes = indexes;
+    this.references = references;
+  }
+
+  /**
+   * Take a snapshot. Nothing is shared with the arguments, except for the arrays of references, which must not be
+   * modified afterwards.
+   * @param keys The orphaned strings
+   * @param references The encoded references of every orphaned string
+   */
+  public OrphanedStrings(Collection<MessageKey> keys, Map<MessageKey, long[]> references) {
+    this(new Indexes(List.copyOf(keys)), Map.copyOf(references));
+  }
+
+  /**
+   * Take a snapshot of the same strings with different references, which shares the indexes of this one.
+   */
+  public OrphanedStrings withReferences(Map<MessageKey, long[]> references) {
+    return new OrphanedStrings(indexes, Map.copyOf(references));
+  }
+
+  public List<MessageKey> keys() {
+    return indexes.keys;
+  }
+
+  public int size() {
+    return indexes.keys.size();
+  }
+
+  /**
+   * @return The encoded references of an orphaned string, or <code>null</code> if it is not one
+   */
+  public long[] getReferences(MessageKey key) {
+    return references.get(key);
+  }
+
+  /**
+   * @return An index of every orphaned string by similarity, built on first use
+   */
+  public MinHashIndex<MessageKey> getMinHashIndex() {
+    return indexes.getMinHashIndex();
+  }
+
+  /**
+   * @return An index of every orphaned string by substring, built on first use
+   */
+  public SuffixArrayIndex<MessageKey> getSearchIndex() {
+    return indexes.getSearchIndex();
+  }
+
+}
@@ -131,6 +131,18 @@ public class Profile {
     return baseDirectory.resolve("lang/" + lang + ".po").normalize();
   }
 
+  public Path getSimilarityCacheFile() {
+    return baseDirectory.resolve("similarity.cache");
+  }
+
+  public Path getResolutionJournalFile() {
+    return baseDirectory.resolve("resolutions.journal");
+  }
+
+  public Path getHistoryDirectory() {
+    return baseDirectory.resolve("history");
+  }
+
   public Path getStagingDirectory() {
     return baseDirectory.resolve("stage");
   }
@@ -0,0 +1,228 @@
+package me.whizvox.rpy2po.core;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.soberlemur.potentilla.Catalog;
+import me.whizvox.rpy2po.gettext.CatalogCache;
+import me.whizvox.rpy2po.gettext.CatalogDiff;
+import me.whizvox.rpy2po.gettext.PoBackend;
+import me.whizvox.rpy2po.gettext.UpdateResolver;
+import me.whizvox.rpy2po.rpytl.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+
+/**
+ * The work behind every action of a profile, without asking anyone anything. Whoever calls these is responsible for
+ * confirming anything destructive beforehand, i.e. the profile actions window asks before deleting old translations,
+ * while the batch runner goes by its flags.
+ * @param profile The profile to work on
+ * @param mapper Used to read and write the profile and statements files
+ * @param catalogs Used to load template and language catalogs
+ */
+public record ProfileTasks(Profile profile,
+                           ObjectMapper mapper,
+                           CatalogCache catalogs) {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ProfileTasks.class);
+
+  /**
+   * @param result The result of converting the primary language's translation files
+   * @param changes What changed since the previous template, or <code>null</code> if there was none
+   */
+  public record TemplateResult(RPY2POConverter.Result result,
+                               CatalogDiff.Result changes) {
+  }
+
+  /**
+   * @return All translation files of the primary language that exist
+   */
+  public List<Path> getTemplateSources() {
+    return profile.getTranslationFiles(profile.getPrimaryLanguage()).stream().filter(Files::exists).toList();
+  }
+
+  /**
+   * Generate the template and statements files from the primary language's translation files. Any previous template
+   * is saved to the profile's history first. Character names that are missing are not added to the profile, since this
+   * can run on any thread, see {@link #addMissingNames(Collection)}. Messages are written in source order, the same as
+   * when watching the translation files.
+   * @param files The translation files to read
+   */
+  public TemplateResult generateTemplate(List<Path> files) throws IOException {
+    TemplateSegments segments = new TemplateSegments();
+    segments.update(createTemplateConverter(files), files, null);
+    return saveTemplate(segments.toResult(), null);
+  }
+
+  /**
+   * @return The converter used to generate the template from some of the primary language's translation files
+   */
+  public RPY2POConverter createTemplateConverter(List<Path> files) {
+    return new RPY2POConverter(profile.getPrimaryLanguage(), files, profile.getNames(), null, CommentGenerator.SPEAKING);
+  }
+
+  /**
+   * Write the template and statements files from an already converted result, the same way
+   * {@link #generateTemplate(List)} does.
+   * @param previous The template that is being replaced. If <code>null</code>, it is saved to the profile's history
+   *                 first and read back from there, or taken from the latest snapshot if there is no template
+   *                 anymore. Watch mode passes the template it wrote last instead, so that saving every few seconds
+   *                 does not push older generations out of the history.
+   */
+  public TemplateResult saveTemplate(RPY2POConverter.Result result, Catalog previous) throws IOException {
+    if (!result.missingNames().isEmpty()) {
+      LOGGER.info("Found {} missing name(s): {}", result.missingNames().size(), result.missingNames());
+    }
+    if (!result.mismatchedFormats().isEmpty()) {
+      LOGGER.info("Found {} mismatched formats: {}", result.mismatchedFormats().size(), result.mismatchedFormats());
+    }
+    Path statementsPath = profile.getStatementsFile();
+    Path tempFile = profile.getTemplateFile();
+    if (previous == null) {
+      // changes are reported against the snapshot, so that they always match what was kept in the history
+      TemplateHistory history = new TemplateHistory(profile);
+      try {
+        Path snapshot = Files.exists(tempFile) ? history.saveSnapshot() : history.getLatestSnapshot();
+        if (snapshot != null) {
+          previous = history.readTemplate(snapshot);
+        }
+      } catch (IOException e) {
+        LOGGER.warn("Could not save snapshot of previous template {}", tempFile, e);
+      }
+    }
+    LOGGER.info("Saving statements file {}", statementsPath);
+    writeJson(statementsPath, result.statements());
+    LOGGER.info("Writing catalog file {}", tempFile);
+    PoBackend.current().write(result.catalog(), tempFile);
+    catalogs.invalidate(tempFile);
+    CatalogDiff.Result changes = null;
+    if (previous != null) {
+      changes = CatalogDiff.compare(previous, result.catalog());
+      LOGGER.info("Template changes: {} added, {} removed, {} modified", changes.added().size(), changes.removed().size(), changes.modified().size());
+    }
+    return new TemplateResult(result, changes);
+  }
+
+  /**
+   * Add character names that were found while generating the template to the profile, without a name, and save it. The
+   * profile is not thread-safe, so in the GUI this must be called from the EDT, like anything else that changes it.
+   * @param names The names that are missing, some of which may have been added to the profile meanwhile
+   */
+  public void addMissingNames(Collection<String> names) {
+    Map<String, String> newNamesMap = new HashMap<>(profile.getNames().names());
+    names.forEach(name -> newNamesMap.putIfAbsent(name, ""));
+    if (newNamesMap.size() == profile.getNames().names().size()) {
+      return;
+    }
+    profile.setNames(new CharacterNames(newNamesMap, profile.getNames().narrator(), profile.getNames().speakFormat()));
+    try {
+      writeJson(profile.getFile(), profile);
+      LOGGER.info("Updated profile to account for missing names: {}", profile.getFile());
+    } catch (IOException e) {
+      LOGGER.error("Could not update profile: {}", profile.getFile(), e);
+    }
+  }
+
+  /**
+   * Create a language file by copying the template.
+   * @return <code>true</code> if the language file was created, or <code>false</code> if it already existed
+   */
+  public boolean createCatalog(String lang) throws IOException {
+    Path potPath = profile.getTemplateFile();
+    Path path = profile.getLanguageFile(lang);
+    if (Files.exists(path)) {
+      return false;
+    }
+    Files.copy(potPath, path);
+    LOGGER.info("Copied <{}> to <{}>", potPath, path);
+    return true;
+  }
+
+  /**
+   * Convert a language's translation files into its language file, overwriting it if it exists.
+   */
+  public Catalog importLanguage(String lang) throws IOException {
+    Path path = profile.getLanguageFile(lang);
+    RPY2POConverter converter = new RPY2POConverter(lang, profile.getTranslationFiles(lang), profile.getNames(), null, CommentGenerator.SPEAKING);
+    Catalog catalog = converter.convert().catalog();
+    Files.createDirectories(path.getParent());
+    Files.deleteIfExists(path);
+    PoBackend.current().write(catalog, path);
+    catalogs.invalidate(path);
+    LOGGER.info("Imported {} translations into {}", lang, path);
+    return catalog;
+  }
+
+  /**
+   * Update a language file to match the template without any user input.
+   * @see UpdateResolver
+   */
+  public UpdateResolver.Report updateLanguage(String lang, UpdateResolver.Options options) throws IOException {
+    Path path = profile.getLanguageFile(lang);
+    UpdateResolver resolver = new UpdateResolver(catalogs.get(profile.getTemplateFile()), catalogs.get(path), options);
+    resolver.update();
+    PoBackend.current().write(resolver.getResult(), path);
+    catalogs.invalidate(path);
+    LOGGER.info("Updated {}: {}", path, resolver.getReport());
+    return resolver.getReport();
+  }
+
+  public Statements readStatements() throws IOException {
+    return mapper.readValue(profile.getStatementsFile().toFile(), Statements.class);
+  }
+
+  /**
+   * Convert a language file into Ren'Py translation files.
+   * @param statements The statements file of the template the language file was made from
+   * @param stage Whether to write to the staging directory instead of the game's translation directory
+   * @param deleteOld Whether to delete the old translation files first. Staged translations are always deleted.
+   * @return Every translation file that could not be written, and why
+   * @throws IOException If the language file could not be read or the old translations could not be deleted
+   */
+  public Map<String, Exception> exportLanguage(String lang, Statements statements, boolean stage, boolean deleteOld) throws IOException {
+    return exportLanguage(lang, statements, stage, deleteOld, () -> false);
+  }
+
+  /**
+   * Same as {@link #exportLanguage(String, Statements, boolean, boolean)}, but can be cancelled between files.
+   * @param cancelled Checked before the old translations are deleted and before every file is written
+   * @throws CancellationException If cancelled, in which case only some of the translation files have been written if
+   * the old ones were deleted
+   */
+  public Map<String, Exception> exportLanguage(String lang, Statements statements, boolean stage, boolean deleteOld,
+                                               BooleanSupplier cancelled) throws IOException {
+    Path poPath = profile.getLanguageFile(lang);
+    Path tlDir = stage ? profile.getStagedLanguageDirectory(lang) : profile.getTranslationDirectory(lang);
+    PO2RPYConverter converter = new PO2RPYConverter(lang, poPath, statements);
+    // converting takes the longest, so nothing is deleted until there is something to replace it with
+    Map<String, TranslationFile> files = converter.convert(catalogs);
+    if (cancelled.getAsBoolean()) {
+      throw new CancellationException();
+    }
+    if ((stage || deleteOld) && Files.exists(tlDir)) {
+      FileUtils.deleteDirectory(tlDir);
+    }
+    try {
+      return converter.write(files, tlDir, cancelled);
+    } catch (CancellationException e) {
+      LOGGER.warn("Export of {} was cancelled, translation files in {} are incomplete", lang, tlDir);
+      throw e;
+    }
+  }
+
+  private void writeJson(Path outputPath, Object value) throws IOException {
+    try (OutputStream out = Files.newOutputStream(outputPath)) {
+      mapper.writerWithDefaultPrettyPrinter().writeValue(out, value);
+    }
+  }
+
+}
@@ -0,0 +1,351 @@
+package me.whizvox.rpy2po.core;
+
+import com.soberlemur.potentilla.Message;
+import com.soberlemur.potentilla.MessageKey;
+import me.whizvox.rpy2po.gettext.ProblemResolution;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only log of everything done while resolving translation problems, so that a session can be picked up
+ * again after the window is closed, or the application crashes.
+ * <p>
+ * Every event is written as its own record, with its length in front and a checksum behind. Records are not written
+ * right away, but collected for a short while and then written and synced to disk together, so that auto-resolving
+ * thousands of strings does not sync thousands of times. A record that was only partly written when the application
+ * crashed fails its checksum, and the journal is cut off right before it when read back.
+ * <p>
+ * Like {@link SimilarityCache}, a journal is tied to a template file, and is discarded if the template has changed.
+ */
+public class ResolutionJournal implements Closeable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ResolutionJournal.class);
+
+  private static final int MAGIC = 0x52505952;
+  private static final int VERSION = 1;
+  private static final int HEADER_SIZE = 24;
+
+  /** How long events are collected before they are written, in milliseconds */
+  public static final int GROUP_COMMIT_DELAY = 200;
+
+  private static final byte RESOLVED = 1;
+  private static final byte UNRESOLVED = 2;
+  private static final byte OBSOLETE = 3;
+  private static final byte SEARCHING_FILES = 4;
+
+  /**
+   * Receives the events of a journal as it is being read.
+   */
+  public interface Listener {
+
+    void resolved(ProblemResolution resolution);
+
+    void unresolved(MessageKey templateKey);
+
+    void markedObsolete(MessageKey langKey, boolean obsolete);
+
+    void searchingFilesChanged(String templateFile, List<String> files);
+
+  }
+
+  private final Path file;
+  private final FileChannel channel;
+  private final ScheduledExecutorService committer;
+  private ByteArrayOutputStream pending;
+  private boolean commitScheduled;
+  private int recordCount;
+  private boolean closed;
+
+  private ResolutionJournal(Path file, FileChannel channel, int recordCount) {
+    this.file = file;
+    this.channel = channel;
+    this.recordCount = recordCount;
+    committer = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread thread = new Thread(r, "Resolution Journal");
+      thread.setDaemon(true);
+      return thread;
+    });
+    pending = new ByteArrayOutputStream();
+    commitScheduled = false;
+    closed = false;
+  }
+
+  /**
+   * @return The number of events in this journal, including ones that later events have undone
+   */
+  public synchronized int getRecordCount() {
+    return recordCount;
+  }
+
+  public void resolved(ProblemResolution resolution) {
+    append(out -> {
+      out.writeByte(RESOLVED);
+      writeKey(out, resolution.templateKey());
+      out.writeBoolean(resolution.langKey() != null);
+      if (resolution.langKey() != null) {
+        writeKey(out, resolution.langKey());
+      }
+      out.writeBoolean(resolution.markNew());
+    });
+  }
+
+  public void unresolved(MessageKey templateKey) {
+    append(out -> {
+      out.writeByte(UNRESOLVED);
+      writeKey(out, templateKey);
+    });
+  }
+
+  public void markedObsolete(MessageKey langKey, boolean obsolete) {
+    append(out -> {
+      out.writeByte(OBSOLETE);
+      writeKey(out, langKey);
+      out.writeBoolean(obsolete);
+    });
+  }
+
+  public void searchingFilesChanged(String templateFile, List<String> files) {
+    append(out -> {
+      out.writeByte(SEARCHING_FILES);
+      writeString(out, templateFile);
+      out.writeInt(files.size());
+      for (String file : files) {
+        writeString(out, file);
+      }
+    });
+  }
+
+  private interface RecordWriter {
+    void write(DataOutputStream out) throws IOException;
+  }
+
+  private void append(RecordWriter writer) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try {
+      writer.write(new DataOutputStream(bytes));
+    } catch (IOException e) {
+      // can't happen when writing to memory
+      throw new UncheckedIOException(e);
+    }
+    byte[] payload = bytes.toByteArray();
+    CRC32 crc = new CRC32();
+    crc.update(payload);
+    synchronized (this) {
+      if (closed) {
+        LOGGER.warn("Resolution journal is already closed, dropping event: {}", file);
+        return;
+      }
+      DataOutputStream out = new DataOutputStream(pending);
+      try {
+        out.writeInt(payload.length);
+        out.write(payload);
+        out.writeInt((int) crc.getValue());
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      recordCount++;
+      if (!commitScheduled && !committer.isShutdown()) {
+        commitScheduled = true;
+        committer.schedule(this::commitQuietly, GROUP_COMMIT_DELAY, TimeUnit.MILLISECONDS);
+      }
+    }
+  }
+
+  /**
+   * Write and sync all events that have been collected so far.
+   */
+  public synchronized void commit() throws IOException {
+    commitScheduled = false;
+    if (pending.size() == 0) {
+      return;
+    }
+    ByteBuffer buffer = ByteBuffer.wrap(pending.toByteArray());
+    pending = new ByteArrayOutputStream();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    channel.force(false);
+  }
+
+  private void commitQuietly() {
+    try {
+      commit();
+    } catch (IOException e) {
+      LOGGER.warn("Could not write to resolution journal: {}", file, e);
+    }
+  }
+
+  /**
+   * Throw away all events, i.e. once the resolutions have been applied.
+   */
+  public synchronized void reset() throws IOException {
+    pending = new ByteArrayOutputStream();
+    channel.truncate(HEADER_SIZE);
+    channel.force(false);
+    recordCount = 0;
+  }
+
+  /**
+   * Write everything that is left and close the file. Events that come in afterwards are dropped.
+   */
+  @Override
+  public void close() throws IOException {
+    committer.shutdown();
+    synchronized (this) {
+      closed = true;
+      try {
+        commit();
+      } finally {
+        channel.close();
+      }
+    }
+  }
+
+  private static void writeString(DataOutputStream out, String str) throws IOException {
+    if (str == null) {
+      out.writeInt(-1);
+    } else {
+      byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+      out.writeInt(bytes.length);
+      out.write(bytes);
+    }
+  }
+
+  private static String readString(DataInputStream in) throws IOException {
+    int length = in.readInt();
+    if (length == -1) {
+      return null;
+    }
+    return new String(in.readNBytes(length), StandardCharsets.UTF_8);
+  }
+
+  private static void writeKey(DataOutputStream out, MessageKey key) throws IOException {
+    writeString(out, key.msgContext());
+    writeString(out, key.msgId());
+  }
+
+  private static MessageKey readKey(DataInputStream in) throws IOException {
+    Message msg = new Message();
+    msg.setMsgContext(readString(in));
+    msg.setMsgId(readString(in));
+    return new MessageKey(msg);
+  }
+
+  private static void replay(byte[] payload, Listener listener) throws IOException {
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+    switch (in.readByte()) {
+      case RESOLVED -> {
+        MessageKey templateKey = readKey(in);
+        MessageKey langKey = in.readBoolean() ? readKey(in) : null;
+        listener.resolved(new ProblemResolution(templateKey, langKey, in.readBoolean()));
+      }
+      case UNRESOLVED -> listener.unresolved(readKey(in));
+      case OBSOLETE -> listener.markedObsolete(readKey(in), in.readBoolean());
+      case SEARCHING_FILES -> {
+        String templateFile = readString(in);
+        int count = in.readInt();
+        if (count < 0 || count > payload.length) {
+          throw new IOException("Invalid number of files in journal record: " + count);
+        }
+        List<String> files = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+          files.add(readString(in));
+        }
+        listener.searchingFilesChanged(templateFile, files);
+      }
+      default -> throw new IOException("Unknown journal record");
+    }
+  }
+
+  /**
+   * Open a journal, replaying all of its events first. A journal that does not exist, cannot be read, or was written
+   * for a different version of the template file is started over. The template is only recognized by its size and
+   * modification time, so the listener should still check that replayed events make sense.
+   * @param file The journal file
+   * @param templateFile The current template file
+   * @param listener Receives all events that were read
+   */
+  public static ResolutionJournal open(Path file, Path templateFile, Listener listener) throws IOException {
+    long templateSize = Files.size(templateFile);
+    long templateModified = Files.getLastModifiedTime(templateFile).toMillis();
+    long validLength = 0;
+    int count = 0;
+    if (Files.exists(file)) {
+      long start = System.currentTimeMillis();
+      try {
+        ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(file));
+        if (in.remaining() < HEADER_SIZE || in.getInt() != MAGIC || in.getInt() != VERSION) {
+          LOGGER.warn("Ignoring resolution journal with unknown format: {}", file);
+        } else if (in.getLong() != templateSize || in.getLong() != templateModified) {
+          LOGGER.info("Template has changed, discarding resolution journal {}", file);
+        } else {
+          validLength = HEADER_SIZE;
+          while (in.hasRemaining()) {
+            int length = in.remaining() >= 4 ? in.getInt() : -1;
+            // compared this way around so that a corrupt length close to Integer.MAX_VALUE cannot overflow
+            if (length < 0 || length > in.remaining() - 4) {
+              LOGGER.warn("Resolution journal ends in a partial record, ignoring it: {}", file);
+              break;
+            }
+            byte[] payload = new byte[length];
+            in.get(payload);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            if (in.getInt() != (int) crc.getValue()) {
+              LOGGER.warn("Resolution journal has a corrupted record, ignoring the rest of it: {}", file);
+              break;
+            }
+            try {
+              replay(payload, listener);
+            } catch (IOException | RuntimeException e) {
+              LOGGER.warn("Resolution journal has a malformed record, ignoring the rest of it: {}", file, e);
+              break;
+            }
+            validLength = in.position();
+            count++;
+          }
+          LOGGER.debug("Replayed {} resolution events from {} in {} ms", count, file, System.currentTimeMillis() - start);
+        }
+      } catch (IOException e) {
+        LOGGER.warn("Could not read resolution journal: {}", file, e);
+      }
+    }
+    FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    try {
+      if (validLength == 0) {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).putLong(templateSize).putLong(templateModified).flip();
+        channel.truncate(0);
+        while (header.hasRemaining()) {
+          channel.write(header, header.position());
+        }
+        validLength = HEADER_SIZE;
+        count = 0;
+      } else {
+        // cut off whatever could not be read
+        channel.truncate(validLength);
+      }
+      channel.position(validLength);
+      channel.force(false);
+    } catch (IOException e) {
+      channel.close();
+      throw e;
+    }
+    return new ResolutionJournal(file, channel, count);
+  }
+
+}
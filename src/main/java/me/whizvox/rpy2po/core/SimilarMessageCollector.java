@@ -0,0 +1,91 @@
+package me.whizvox.rpy2po.core;
+
+import com.soberlemur.potentilla.MessageKey;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Collects the most similar messages found during a search while only ever holding on to the best <code>limit</code>
+ * of them. Candidates are kept in a min-heap, so once the collector is full, {@link #getMinimumSimilarity()} rises to
+ * the similarity of the worst kept candidate, which callers can use to tighten the bound of later comparisons.
+ */
+public class SimilarMessageCollector {
+
+  private record Candidate(SimilarMessage message, long order) {
+  }
+
+  // worst candidate at the head: lowest similarity, and among equals, the one that was found last
+  private static final Comparator<Candidate> WORST_FIRST = Comparator.<Candidate>comparingDouble(c -> c.message().similarity())
+      .thenComparing(Comparator.comparingLong(Candidate::order).reversed());
+
+  private final float threshold;
+  private final int limit;
+  private final PriorityQueue<Candidate> heap;
+  private long counter;
+
+  /**
+   * @param threshold The minimum similarity a message must have to be collected
+   * @param limit The maximum number of messages to keep. Use {@link Integer#MAX_VALUE} to keep everything.
+   */
+  public SimilarMessageCollector(float threshold, int limit) {
+    if (limit < 1) {
+      throw new IllegalArgumentException("Limit must be positive: " + limit);
+    }
+    this.threshold = threshold;
+    this.limit = limit;
+    heap = new PriorityQueue<>(WORST_FIRST);
+    counter = 0;
+  }
+
+  public int size() {
+    return heap.size();
+  }
+
+  public boolean isFull() {
+    return heap.size() >= limit;
+  }
+
+  /**
+   * @return The similarity a new message needs in order to be kept. This is the threshold until the collector is
+   * full, after which it is the similarity of the worst message currently kept.
+   */
+  public float getMinimumSimilarity() {
+    if (isFull()) {
+      return Math.max(threshold, heap.peek().message().similarity());
+    }
+    return threshold;
+  }
+
+  /**
+   * Offer a message to this collector.
+   * @return <code>true</code> if the message was kept
+   */
+  public boolean add(MessageKey key, float similarity) {
+    if (similarity < threshold) {
+      return false;
+    }
+    if (isFull()) {
+      // ties go to whatever was found first
+      if (similarity <= heap.peek().message().similarity()) {
+        return false;
+      }
+      heap.poll();
+    }
+    heap.add(new Candidate(new SimilarMessage(key, similarity), counter++));
+    return true;
+  }
+
+  /**
+   * @return All kept messages, most similar first. Messages that are equally similar are kept in the order they were
+   * found.
+   */
+  public List<SimilarMessage> toList() {
+    List<Candidate> candidates = new ArrayList<>(heap);
+    candidates.sort(WORST_FIRST.reversed());
+    return candidates.stream().map(Candidate::message).toList();
+  }
+
+}
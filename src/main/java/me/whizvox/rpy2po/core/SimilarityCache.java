@@ -0,0 +1,144 @@
+package me.whizvox.rpy2po.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A least-recently-used cache of string similarities, identified by the {@link StringUtil#hash64(String) 64-bit hash}
+ * of both strings. Besides exact similarities, this also remembers when a similarity is known to be below some
+ * threshold, which is what most comparisons end up finding out.
+ * <p>
+ * The cache can be saved to and loaded from a file. The file is tied to a template file, and is discarded when loaded
+ * if the template file has changed since then.
+ */
+public class SimilarityCache {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(SimilarityCache.class);
+
+  private static final int MAGIC = 0x52505953;
+  private static final int VERSION = 1;
+
+  public static final int DEFAULT_CAPACITY = 200_000;
+
+  private record Key(long a, long b) {
+  }
+
+  // a value >= 0 is an exact similarity, a value < 0 means the similarity is below its absolute value
+  private final Map<Key, Float> entries;
+  private final int capacity;
+
+  public SimilarityCache(int capacity) {
+    this.capacity = capacity;
+    entries = new LinkedHashMap<>(16, 0.75F, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Key, Float> eldest) {
+        return size() > SimilarityCache.this.capacity;
+      }
+    };
+  }
+
+  public SimilarityCache() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  public synchronized void clear() {
+    entries.clear();
+  }
+
+  private synchronized Float get(Key key) {
+    return entries.get(key);
+  }
+
+  private synchronized void put(Key key, float value) {
+    entries.put(key, value);
+  }
+
+  /**
+   * Same as {@link StringUtil#getSimilarity(String, String, float)}, except that the result is looked up in this
+   * cache first, and stored in it afterward.
+   */
+  public float getSimilarity(String a, String b, float threshold) {
+    Key key = new Key(StringUtil.hash64(a), StringUtil.hash64(b));
+    Float cached = get(key);
+    if (cached != null) {
+      if (cached >= 0) {
+        return cached >= threshold ? cached : -1;
+      }
+      if (-cached <= threshold) {
+        return -1;
+      }
+    }
+    float similarity = StringUtil.getSimilarity(a, b, threshold);
+    put(key, similarity >= 0 ? similarity : -threshold);
+    return similarity;
+  }
+
+  /**
+   * Save this cache to a file.
+   * @param file The file to write to
+   * @param templateFile The template file the cached similarities were computed for
+   */
+  public synchronized void save(Path file, Path templateFile) throws IOException {
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeLong(Files.size(templateFile));
+      out.writeLong(Files.getLastModifiedTime(templateFile).toMillis());
+      out.writeInt(entries.size());
+      // least recently used first, so that reading them back in preserves the order
+      for (var entry : entries.entrySet()) {
+        out.writeLong(entry.getKey().a());
+        out.writeLong(entry.getKey().b());
+        out.writeFloat(entry.getValue());
+      }
+    }
+    LOGGER.debug("Saved {} similarities to {}", entries.size(), file);
+  }
+
+  /**
+   * Load a cache from a file.
+   * @param file The file to read from. Does not need to exist.
+   * @param templateFile The current template file
+   * @param capacity The capacity of the cache
+   * @return The cache that was read, or an empty one if the file does not exist, cannot be read, or was saved for a
+   * different version of the template file
+   */
+  public static SimilarityCache load(Path file, Path templateFile, int capacity) {
+    SimilarityCache cache = new SimilarityCache(capacity);
+    if (!Files.exists(file)) {
+      return cache;
+    }
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+      if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+        LOGGER.warn("Ignoring similarity cache with unknown format: {}", file);
+        return cache;
+      }
+      long size = in.readLong();
+      long lastModified = in.readLong();
+      if (size != Files.size(templateFile) || lastModified != Files.getLastModifiedTime(templateFile).toMillis()) {
+        LOGGER.info("Template has changed, discarding similarity cache {}", file);
+        return cache;
+      }
+      int count = in.readInt();
+      for (int i = 0; i < count; i++) {
+        cache.entries.put(new Key(in.readLong(), in.readLong()), in.readFloat());
+      }
+      LOGGER.debug("Loaded {} similarities from {}", count, file);
+    } catch (IOException e) {
+      LOGGER.warn("Could not read similarity cache: {}", file, e);
+      cache.clear();
+    }
+    return cache;
+  }
+
+}
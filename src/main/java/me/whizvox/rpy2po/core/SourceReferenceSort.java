@@ -0,0 +1,120 @@
+package me.whizvox.rpy2po.core;
+
+import com.soberlemur.potentilla.Message;
+import me.whizvox.rpy2po.gettext.SourceFileDictionary;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Sorts messages by their first source reference, i.e. the one that comes first by file name and then by line, without
+ * parsing any references while sorting.
+ * <p>
+ * Every reference is encoded straight from its string, with its file replaced by its
+ * {@link SourceFileDictionary number}. The file
+ * number, line and original index of each message are then packed into a single <code>long</code>, so sorting is a
+ * primitive sort over those keys. Messages without any references come first, and ties keep their original order.
+ */
+public class SourceReferenceSort {
+
+  private static final int FILE_BITS = 15;
+  private static final int LINE_BITS = 24;
+  private static final int INDEX_BITS = 24;
+  private static final long LINE_MASK = (1L << LINE_BITS) - 1;
+  private static final long INDEX_MASK = (1L << INDEX_BITS) - 1;
+
+  /** Encoded reference of a value without any source references */
+  public static final long NO_REFERENCE = Long.MIN_VALUE;
+
+  /** Lists at least this large are sorted with {@link Arrays#parallelSort(long[])} */
+  public static final int PARALLEL_THRESHOLD = 10_000;
+
+  /**
+   * Sort values by their first source reference.
+   * @param values The values to sort
+   * @param references Gets the source references of a value, i.e. <code>file.rpy:12</code>
+   * @return A new list with the sorted values
+   */
+  public static <T> List<T> sort(Collection<T> values, Function<T, List<String>> references) {
+    List<T> list = new ArrayList<>(values);
+    // references are gone through twice instead of being parsed into objects, since the files have to be known first
+    Set<String> distinctFiles = new HashSet<>();
+    for (T value : list) {
+      for (String ref : references.apply(value)) {
+        int index = ref.lastIndexOf(':');
+        if (index == -1) {
+          throw new IllegalArgumentException("Invalid source reference: " + ref);
+        }
+        distinctFiles.add(ref.substring(0, index));
+      }
+    }
+    SourceFileDictionary dictionary = new SourceFileDictionary(distinctFiles);
+    long[] encoded = new long[list.size()];
+    for (int i = 0; i < encoded.length; i++) {
+      encoded[i] = NO_REFERENCE;
+      for (String ref : references.apply(list.get(i))) {
+        long e = dictionary.encode(ref);
+        if (encoded[i] == NO_REFERENCE || e < encoded[i]) {
+          encoded[i] = e;
+        }
+      }
+    }
+    return sort(list, encoded);
+  }
+
+  /**
+   * Sort values by their first source reference, which has already been {@link SourceFileDictionary encoded}.
+   * @param values The values to sort
+   * @param firstReference Gets the encoded first source reference of a value, or {@link #NO_REFERENCE} if it has none
+   * @return A new list with the sorted values
+   */
+  public static <T> List<T> sortEncoded(Collection<T> values, ToLongFunction<T> firstReference) {
+    List<T> list = new ArrayList<>(values);
+    long[] encoded = new long[list.size()];
+    for (int i = 0; i < encoded.length; i++) {
+      encoded[i] = firstReference.applyAsLong(list.get(i));
+    }
+    return sort(list, encoded);
+  }
+
+  private static <T> List<T> sort(List<T> list, long[] encoded) {
+    int size = list.size();
+    long[] keys = new long[size];
+    boolean fits = size <= INDEX_MASK + 1;
+    for (int i = 0; i < size && fits; i++) {
+      if (encoded[i] == NO_REFERENCE) {
+        keys[i] = i;
+      } else {
+        // file 0 is for values without references
+        long file = SourceFileDictionary.getFileId(encoded[i]) + 1L;
+        long line = SourceFileDictionary.getLine(encoded[i]);
+        fits = file < (1 << FILE_BITS) && line >= 0 && line <= LINE_MASK;
+        keys[i] = file << (LINE_BITS + INDEX_BITS) | line << INDEX_BITS | i;
+      }
+    }
+    if (!fits) {
+      // far beyond any real project, so don't bother packing
+      Integer[] order = new Integer[size];
+      Arrays.setAll(order, i -> i);
+      // NO_REFERENCE is the smallest long, so it comes first here as well
+      Arrays.sort(order, Comparator.comparingLong(i -> encoded[i]));
+      return new ArrayList<>(Arrays.stream(order).map(list::get).toList());
+    }
+    if (size >= PARALLEL_THRESHOLD) {
+      Arrays.parallelSort(keys);
+    } else {
+      Arrays.sort(keys);
+    }
+    List<T> result = new ArrayList<>(size);
+    for (long key : keys) {
+      result.add(list.get((int) (key & INDEX_MASK)));
+    }
+    return result;
+  }
+
+  public static List<Message> sort(Collection<Message> messages) {
+    return sort(messages, Message::getSourceReferences);
+  }
+
+}
@@ -1,9 +1,61 @@
 package me.whizvox.rpy2po.core;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
 public class StringUtil {
 
+  private static final Logger LOGGER = LoggerFactory.getLogger(StringUtil.class);
+
   private static final char[] ILLEGAL_FILE_CHARS = {'/', '<', '>', ':', '"', '\\', '|', '?', '*'};
 
+  // narrower bands have too few cells per diagonal to fill a vector
+  private static final int VECTORIZED_MIN_DISTANCE = 16;
+  private static final int VECTOR_LANES;
+  private static final MethodHandle VECTORIZED_EDIT_DISTANCE;
+
+  private static final long XXH_PRIME_1 = 0x9E3779B185EBCA87L;
+  private static final long XXH_PRIME_2 = 0xC2B2AE3D27D4EB4FL;
+  private static final long XXH_PRIME_3 = 0x165667B19E3779F9L;
+  private static final long XXH_PRIME_4 = 0x85EBCA77C2B2AE63L;
+  private static final long XXH_PRIME_5 = 0x27D4EB2F165667C5L;
+
+  static {
+    int lanes = 0;
+    MethodHandle editDistance = null;
+    if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+      LOGGER.debug("jdk.incubator.vector is not available, using scalar edit distance");
+    } else {
+      // only built with -Dvector, see pom.xml
+      try {
+        Class<?> cls = Class.forName("me.whizvox.rpy2po.core.VectorizedEditDistance");
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        lanes = (int) lookup.findStatic(cls, "getLanes", MethodType.methodType(int.class)).invokeExact();
+        editDistance = lookup.findStatic(cls, "getEditDistance",
+            MethodType.methodType(int.class, String.class, String.class, int.class));
+        LOGGER.debug("Using vectorized edit distance with {} lanes", lanes);
+      } catch (ClassNotFoundException e) {
+        LOGGER.debug("Built without vectorized edit distance, using scalar edit distance");
+      } catch (Throwable e) {
+        LOGGER.warn("Could not load vectorized edit distance", e);
+      }
+    }
+    VECTOR_LANES = lanes;
+    VECTORIZED_EDIT_DISTANCE = editDistance;
+  }
+
+  /**
+   * @return The number of cells the vectorized edit distance evaluates per instruction, or <code>0</code> if it is not
+   * available
+   */
+  public static int getVectorLanes() {
+    return VECTORIZED_EDIT_DISTANCE == null ? 0 : VECTOR_LANES;
+  }
+
   public static String sanitizeFileName(String name) {
     StringBuilder sb = new StringBuilder();
     mainLoop: for (char c : name.toCharArray()) {
@@ -41,6 +93,179 @@ public class StringUtil {
     return costs[b.length()];
   }
 
+  /**
+   * Computes the case-insensitive edit distance between two strings, but gives up as soon as the distance is known to
+   * exceed <code>maxDistance</code>. Only a diagonal band of width <code>2 * maxDistance + 1</code> is evaluated, so
+   * this is considerably cheaper than {@link #getEditDistance(String, String)} when the bound is tight.
+   * <p>
+   * If rpy2po was built with <code>-Dvector</code>, the <code>jdk.incubator.vector</code> module is available and the
+   * band is wide enough, this uses <code>VectorizedEditDistance</code>. Otherwise, this is the same as {@link #getBandedEditDistance(String, String, int)}.
+   * @param a The first string
+   * @param b The second string
+   * @param maxDistance The largest distance the caller is interested in
+   * @return The edit distance, or <code>maxDistance + 1</code> if it is larger than <code>maxDistance</code>
+   */
+  public static int getEditDistance(String a, String b, int maxDistance) {
+    if (VECTORIZED_EDIT_DISTANCE != null && maxDistance >= VECTORIZED_MIN_DISTANCE) {
+      try {
+        return (int) VECTORIZED_EDIT_DISTANCE.invokeExact(a, b, maxDistance);
+      } catch (RuntimeException | Error e) {
+        throw e;
+      } catch (Throwable e) {
+        // does not throw any checked exceptions
+        throw new IllegalStateException(e);
+      }
+    }
+    return getBandedEditDistance(a, b, maxDistance);
+  }
+
+  /**
+   * Scalar implementation of {@link #getEditDistance(String, String, int)}.
+   */
+  public static int getBandedEditDistance(String a, String b, int maxDistance) {
+    if (maxDistance < 0) {
+      return 0;
+    }
+    a = a.toLowerCase();
+    b = b.toLowerCase();
+    if (Math.abs(a.length() - b.length()) > maxDistance) {
+      return maxDistance + 1;
+    }
+    int limit = maxDistance + 1;
+    int[] costs = new int[b.length() + 1];
+    for (int j = 0; j < costs.length; j++) {
+      costs[j] = Math.min(j, limit);
+    }
+    for (int i = 1; i <= a.length(); i++) {
+      int from = Math.max(1, i - maxDistance);
+      int to = Math.min(b.length(), i + maxDistance);
+      // nw = lev(i - 1, from - 1), then overwrite it with lev(i, from - 1), which is outside the band unless from == 1
+      int nw = costs[from - 1];
+      costs[from - 1] = from == 1 ? Math.min(i, limit) : limit;
+      int rowMin = costs[from - 1];
+      for (int j = from; j <= to; j++) {
+        int cj = Math.min(1 + Math.min(costs[j], costs[j - 1]), a.charAt(i - 1) == b.charAt(j - 1) ? nw : nw + 1);
+        if (cj > limit) {
+          cj = limit;
+        }
+        nw = costs[j];
+        costs[j] = cj;
+        if (cj < rowMin) {
+          rowMin = cj;
+        }
+      }
+      if (rowMin > maxDistance) {
+        return limit;
+      }
+    }
+    return Math.min(costs[b.length()], limit);
+  }
+
+  /**
+   * Computes how similar two strings are, where <code>1</code> means they are identical (ignoring case) and
+   * <code>0</code> means they have nothing in common.
+   * @param a The first string
+   * @param b The second string
+   * @param threshold The smallest similarity the caller is interested in. Used to bound the edit distance calculation.
+   * @return The similarity of both strings, or <code>-1</code> if it is below <code>threshold</code>
+   */
+  public static float getSimilarity(String a, String b, float threshold) {
+    int max = Math.max(a.length(), b.length());
+    if (max == 0) {
+      return 1.0F;
+    }
+    // round up so floating point error never rejects a string that is exactly at the threshold
+    int maxDistance = (int) Math.ceil((1.0F - threshold) * max);
+    int dist = getEditDistance(a, b, maxDistance);
+    if (dist > maxDistance) {
+      return -1;
+    }
+    float similarity = 1.0F - (float) dist / max;
+    return similarity >= threshold ? similarity : -1;
+  }
+
+  /**
+   * Computes a 64-bit FNV-1a hash of a string. Unlike {@link String#hashCode()}, this is wide enough to identify a
+   * string by its hash alone, i.e. when storing it on disk.
+   */
+  public static long hash64(String str) {
+    long hash = 0xcbf29ce484222325L;
+    for (int i = 0; i < str.length(); i++) {
+      char c = str.charAt(i);
+      hash ^= c & 0xFF;
+      hash *= 0x100000001b3L;
+      hash ^= c >>> 8;
+      hash *= 0x100000001b3L;
+    }
+    return hash;
+  }
+
+  private static long xxRound(long acc, long input) {
+    return Long.rotateLeft(acc + input * XXH_PRIME_2, 31) * XXH_PRIME_1;
+  }
+
+  private static long xxMerge(long hash, long acc) {
+    return (hash ^ xxRound(0, acc)) * XXH_PRIME_1 + XXH_PRIME_4;
+  }
+
+  // 4 chars in little endian order, i.e. the same 8 bytes the string takes up in UTF-16LE
+  private static long xxLane(String str, int i) {
+    return str.charAt(i) | (long) str.charAt(i + 1) << 16 | (long) str.charAt(i + 2) << 32 | (long) str.charAt(i + 3) << 48;
+  }
+
+  /**
+   * Computes the 64-bit xxHash (XXH64) of a string, as if it was encoded in UTF-16LE. This mixes far better than
+   * {@link #hash64(String)} and goes over 4 characters at a time, but unlike it, must never be stored anywhere, so that
+   * it can be changed freely.
+   */
+  public static long xxHash64(String str, long seed) {
+    int length = str.length();
+    int i = 0;
+    long hash;
+    if (length >= 16) {
+      long v1 = seed + XXH_PRIME_1 + XXH_PRIME_2;
+      long v2 = seed + XXH_PRIME_2;
+      long v3 = seed;
+      long v4 = seed - XXH_PRIME_1;
+      for (; i <= length - 16; i += 16) {
+        v1 = xxRound(v1, xxLane(str, i));
+        v2 = xxRound(v2, xxLane(str, i + 4));
+        v3 = xxRound(v3, xxLane(str, i + 8));
+        v4 = xxRound(v4, xxLane(str, i + 12));
+      }
+      hash = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+      hash = xxMerge(hash, v1);
+      hash = xxMerge(hash, v2);
+      hash = xxMerge(hash, v3);
+      hash = xxMerge(hash, v4);
+    } else {
+      hash = seed + XXH_PRIME_5;
+    }
+    hash += length * 2L;
+    for (; i <= length - 4; i += 4) {
+      hash ^= xxRound(0, xxLane(str, i));
+      hash = Long.rotateLeft(hash, 27) * XXH_PRIME_1 + XXH_PRIME_4;
+    }
+    if (i <= length - 2) {
+      hash ^= (str.charAt(i) | (long) str.charAt(i + 1) << 16) * XXH_PRIME_1;
+      hash = Long.rotateLeft(hash, 23) * XXH_PRIME_2 + XXH_PRIME_3;
+      i += 2;
+    }
+    if (i < length) {
+      char c = str.charAt(i);
+      hash ^= (c & 0xFF) * XXH_PRIME_5;
+      hash = Long.rotateLeft(hash, 11) * XXH_PRIME_1;
+      hash ^= (c >>> 8) * XXH_PRIME_5;
+      hash = Long.rotateLeft(hash, 11) * XXH_PRIME_1;
+    }
+    hash ^= hash >>> 33;
+    hash *= XXH_PRIME_2;
+    hash ^= hash >>> 29;
+    hash *= XXH_PRIME_3;
+    hash ^= hash >>> 32;
+    return hash;
+  }
+
   public static String notNullOrBlankOrElse(String str, String def) {
     return str == null || str.isBlank() ? def : str;
   }
@@ -0,0 +1,176 @@
+package me.whizvox.rpy2po.core;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * A case-insensitive substring index over a fixed collection of values, backed by a suffix array. The text of every
+ * value is lowercased and concatenated (separated by <code>\0</code>), and every suffix of that text is sorted. All
+ * suffixes that start with a query are next to each other in the suffix array, so finding them takes two binary
+ * searches, no matter how many values there are.
+ * @param <T> The type of value stored in this index
+ */
+public class SuffixArrayIndex<T> {
+
+  private static final char SEPARATOR = '\0';
+
+  private final List<T> values;
+  private final char[] text;
+  private final int[] starts;
+  private final int[] suffixes;
+
+  public SuffixArrayIndex(Collection<T> values, Function<T, String> textGetter) {
+    this.values = new ArrayList<>(values);
+    starts = new int[this.values.size()];
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < starts.length; i++) {
+      starts[i] = sb.length();
+      sb.append(textGetter.apply(this.values.get(i)).toLowerCase().replace(SEPARATOR, ' ')).append(SEPARATOR);
+    }
+    text = new char[sb.length()];
+    sb.getChars(0, sb.length(), text, 0);
+    suffixes = sort(text);
+  }
+
+  public int size() {
+    return values.size();
+  }
+
+  /**
+   * Find all values whose text contains some text, ignoring case.
+   * @return All matching values, in the order they were given to this index
+   */
+  public List<T> search(String query) {
+    char[] pattern = query.toLowerCase().toCharArray();
+    int from = lowerBound(pattern);
+    int to = upperBound(pattern, from);
+    // the same value can contain the query more than once
+    BitSet found = new BitSet(values.size());
+    for (int i = from; i < to; i++) {
+      int index = Arrays.binarySearch(starts, suffixes[i]);
+      found.set(index >= 0 ? index : -index - 2);
+    }
+    List<T> result = new ArrayList<>(found.cardinality());
+    for (int i = found.nextSetBit(0); i >= 0; i = found.nextSetBit(i + 1)) {
+      result.add(values.get(i));
+    }
+    return result;
+  }
+
+  // compares a suffix to a pattern, but only up to the length of the pattern
+  private int compare(int suffix, char[] pattern) {
+    for (int i = 0; i < pattern.length; i++) {
+      if (suffix + i >= text.length) {
+        return -1;
+      }
+      int diff = text[suffix + i] - pattern[i];
+      if (diff != 0) {
+        return diff;
+      }
+    }
+    return 0;
+  }
+
+  // first suffix that is not less than the pattern
+  private int lowerBound(char[] pattern) {
+    int lo = 0;
+    int hi = suffixes.length;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (compare(suffixes[mid], pattern) < 0) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    return lo;
+  }
+
+  // first suffix after from that does not start with the pattern
+  private int upperBound(char[] pattern, int from) {
+    int lo = from;
+    int hi = suffixes.length;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (compare(suffixes[mid], pattern) <= 0) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    return lo;
+  }
+
+  /**
+   * Sorts all suffixes of some text by prefix doubling: suffixes are sorted by their first character, then by their
+   * first 2, 4, 8... characters, using the ranks of the previous round as keys, until every rank is unique. Each round
+   * is a radix sort, so this takes O(n log n) time.
+   */
+  private static int[] sort(char[] text) {
+    int n = text.length;
+    int[] sa = new int[n];
+    int[] rank = new int[n];
+    int[] tmp = new int[n];
+    if (n == 0) {
+      return sa;
+    }
+    int[] counts = new int[Math.max(Character.MAX_VALUE + 1, n) + 1];
+    for (char c : text) {
+      counts[c + 1]++;
+    }
+    for (int i = 1; i < counts.length; i++) {
+      counts[i] += counts[i - 1];
+    }
+    for (int i = 0; i < n; i++) {
+      sa[counts[text[i]]++] = i;
+    }
+    int classes = 0;
+    for (int i = 0; i < n; i++) {
+      if (i > 0 && text[sa[i]] != text[sa[i - 1]]) {
+        classes++;
+      }
+      rank[sa[i]] = classes;
+    }
+    classes++;
+    for (int k = 1; classes < n; k <<= 1) {
+      // order by the second half first: suffixes too short to have one come first
+      int size = 0;
+      for (int i = Math.max(0, n - k); i < n; i++) {
+        tmp[size++] = i;
+      }
+      for (int i = 0; i < n; i++) {
+        if (sa[i] >= k) {
+          tmp[size++] = sa[i] - k;
+        }
+      }
+      // then stably by the first half
+      Arrays.fill(counts, 0, classes + 1, 0);
+      for (int i = 0; i < n; i++) {
+        counts[rank[i] + 1]++;
+      }
+      for (int i = 1; i <= classes; i++) {
+        counts[i] += counts[i - 1];
+      }
+      for (int i = 0; i < n; i++) {
+        sa[counts[rank[tmp[i]]]++] = tmp[i];
+      }
+      tmp[sa[0]] = 0;
+      classes = 1;
+      for (int i = 1; i < n; i++) {
+        int a = sa[i - 1];
+        int b = sa[i];
+        int aSecond = a + k < n ? rank[a + k] : -1;
+        int bSecond = b + k < n ? rank[b + k] : -1;
+        if (rank[a] != rank[b] || aSecond != bSecond) {
+          classes++;
+        }
+        tmp[b] = classes - 1;
+      }
+      int[] swap = rank;
+      rank = tmp;
+      tmp = swap;
+    }
+    return sa;
+  }
+
+}
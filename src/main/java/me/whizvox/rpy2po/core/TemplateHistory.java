@@ -0,0 +1,116 @@
+package me.whizvox.rpy2po.core;
+
+import com.soberlemur.potentilla.Catalog;
+import me.whizvox.rpy2po.gettext.PoBackend;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps compressed copies of previous generations of a profile's template (<code>.pot</code>) and statements files,
+ * so that later generations can be compared against them.
+ * @param profile The profile whose history is being managed
+ */
+public record TemplateHistory(Profile profile) {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(TemplateHistory.class);
+
+  private static final DateTimeFormatter SNAPSHOT_NAME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+
+  /** How many snapshots are kept before the oldest ones are deleted */
+  public static final int MAX_SNAPSHOTS = 10;
+
+  /**
+   * Copy the current template and statements files into a new snapshot.
+   * @return The directory of the new snapshot, or <code>null</code> if there is no template to take a snapshot of
+   * @throws IOException If the files could not be copied
+   */
+  public Path saveSnapshot() throws IOException {
+    Path templateFile = profile.getTemplateFile();
+    if (!Files.exists(templateFile)) {
+      return null;
+    }
+    Path historyDir = profile.getHistoryDirectory();
+    Files.createDirectories(historyDir);
+    String name = SNAPSHOT_NAME_FORMAT.format(LocalDateTime.now());
+    Path dir = historyDir.resolve(name);
+    // two generations within the same millisecond must not end up in the same snapshot
+    for (int i = 1; ; i++) {
+      try {
+        Files.createDirectory(dir);
+        break;
+      } catch (FileAlreadyExistsException e) {
+        dir = historyDir.resolve(name + "-" + i);
+      }
+    }
+    compress(templateFile, dir.resolve(templateFile.getFileName() + ".gz"));
+    Path statementsFile = profile.getStatementsFile();
+    if (Files.exists(statementsFile)) {
+      compress(statementsFile, dir.resolve(statementsFile.getFileName() + ".gz"));
+    }
+    LOGGER.info("Saved template snapshot to {}", dir);
+    List<Path> snapshots = getSnapshots();
+    for (int i = 0; i < snapshots.size() - MAX_SNAPSHOTS; i++) {
+      LOGGER.info("Deleting old template snapshot {}", snapshots.get(i));
+      FileUtils.deleteDirectory(snapshots.get(i));
+    }
+    return dir;
+  }
+
+  /**
+   * @return The directories of all snapshots, oldest first
+   */
+  public List<Path> getSnapshots() throws IOException {
+    Path historyDir = profile.getHistoryDirectory();
+    if (!Files.exists(historyDir)) {
+      return List.of();
+    }
+    try (Stream<Path> list = Files.list(historyDir)) {
+      return list.filter(Files::isDirectory).sorted().toList();
+    }
+  }
+
+  /**
+   * @return The directory of the most recent snapshot, or <code>null</code> if there are none
+   */
+  public Path getLatestSnapshot() throws IOException {
+    List<Path> snapshots = getSnapshots();
+    return snapshots.isEmpty() ? null : snapshots.getLast();
+  }
+
+  /**
+   * Read the template catalog of a snapshot.
+   * @param snapshot The directory of the snapshot
+   */
+  public Catalog readTemplate(Path snapshot) throws IOException {
+    Path tempFile = Files.createTempFile("rpy2po-", ".pot");
+    try {
+      try (InputStream in = new GZIPInputStream(Files.newInputStream(snapshot.resolve(profile.getTemplateFile().getFileName() + ".gz")))) {
+        Files.copy(in, tempFile, StandardCopyOption.REPLACE_EXISTING);
+      }
+      return PoBackend.current().read(tempFile);
+    } finally {
+      Files.deleteIfExists(tempFile);
+    }
+  }
+
+  private static void compress(Path source, Path target) throws IOException {
+    try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(target))) {
+      Files.copy(source, out);
+    }
+  }
+
+}
@@ -0,0 +1,294 @@
+package me.whizvox.rpy2po.core;
+
+import com.soberlemur.potentilla.Catalog;
+import me.whizvox.rpy2po.gettext.CatalogDiff;
+import me.whizvox.rpy2po.rpytl.RPY2POConverter;
+import me.whizvox.rpy2po.rpytl.TemplateSegments;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Regenerates a profile's template whenever the primary language's translation files change, i.e. right after Ren'Py
+ * has generated translations.
+ * <p>
+ * Ren'Py writes many files in one go, so changes are collected until none have come in for a short while, and then
+ * handled by a single rebuild. Changes that come in while a rebuild is running are handled by the next one. The template
+ * is kept as {@link TemplateSegments}, so a rebuild only parses the files that actually changed.
+ */
+public class TemplateWatcher implements Closeable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(TemplateWatcher.class);
+
+  /** How long no changes have to come in before rebuilding, in milliseconds */
+  public static final int DEBOUNCE_DELAY = 500;
+  /** How long a rebuild can be put off by changes that keep coming in, in milliseconds */
+  public static final int MAX_DELAY = 5000;
+
+  /**
+   * @param changedFiles How many files were reported as changed
+   * @param parsedFiles How many files had to be parsed
+   * @param totalFiles How many files the template was generated from
+   * @param waitMillis How long it took from the first change until the rebuild started
+   * @param parseMillis How long parsing took
+   * @param saveMillis How long writing the template and statements files took
+   * @param changes What changed in the template, or <code>null</code> if there was no previous template
+   * @param missingNames Character names that are not in the profile yet, which the watcher leaves for whoever owns the
+   *                     profile to add with {@link ProfileTasks#addMissingNames(Collection)}
+   */
+  public record Rebuild(int changedFiles,
+                        int parsedFiles,
+                        int totalFiles,
+                        long waitMillis,
+                        long parseMillis,
+                        long saveMillis,
+                        CatalogDiff.Result changes,
+                        List<String> missingNames) {
+
+    /**
+     * @return How long it took from the first change until the template was written, in milliseconds
+     */
+    public long latencyMillis() {
+      return waitMillis + parseMillis + saveMillis;
+    }
+
+  }
+
+  /**
+   * Receives the outcome of every rebuild, on the watcher's own thread.
+   */
+  public interface Listener {
+
+    void rebuilt(Rebuild rebuild);
+
+    /**
+     * Called when a rebuild failed, or when the watcher stopped on its own, in which case {@link #isWatching()} returns
+     * <code>false</code> by the time this is called.
+     */
+    void failed(Exception e);
+
+  }
+
+  private final ProfileTasks tasks;
+  private final Path directory;
+  private final Listener listener;
+  private final WatchService watchService;
+  private final Map<WatchKey, Path> watchedDirectories;
+  private final Thread watchThread;
+  private final ScheduledExecutorService rebuilder;
+  private volatile boolean watching;
+
+  // only touched by the rebuilder
+  private final TemplateSegments segments;
+  private Catalog lastCatalog;
+
+  // guarded by this
+  private final Set<Path> dirty;
+  private long firstChange;
+  private ScheduledFuture<?> scheduledRebuild;
+
+  private TemplateWatcher(ProfileTasks tasks, Listener listener) throws IOException {
+    this.tasks = tasks;
+    this.listener = listener;
+    Profile profile = tasks.profile();
+    directory = profile.getTranslationDirectory(profile.getPrimaryLanguage()).toAbsolutePath().normalize();
+    watchService = directory.getFileSystem().newWatchService();
+    watchedDirectories = new HashMap<>();
+    segments = new TemplateSegments();
+    lastCatalog = null;
+    dirty = new HashSet<>();
+    firstChange = 0;
+    scheduledRebuild = null;
+    rebuilder = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread thread = new Thread(r, "Template Rebuilder");
+      thread.setDaemon(true);
+      return thread;
+    });
+    watchThread = new Thread(this::watch, "Template Watcher");
+    watchThread.setDaemon(true);
+    watching = true;
+  }
+
+  /**
+   * Start watching a profile's translation files. All of them are parsed in the background right away, so that the
+   * first rebuild is as quick as the ones after it.
+   * @throws IOException If the translation directory could not be watched
+   */
+  public static TemplateWatcher start(ProfileTasks tasks, Listener listener) throws IOException {
+    TemplateWatcher watcher = new TemplateWatcher(tasks, listener);
+    try {
+      watcher.register(watcher.directory);
+    } catch (IOException e) {
+      watcher.close();
+      throw e;
+    }
+    watcher.watchThread.start();
+    watcher.rebuilder.execute(watcher::warmUp);
+    LOGGER.info("Watching {} for changes", watcher.directory);
+    return watcher;
+  }
+
+  private void register(Path dir) throws IOException {
+    List<Path> dirs;
+    try (Stream<Path> stream = Files.walk(dir)) {
+      dirs = stream.filter(Files::isDirectory).toList();
+    }
+    for (Path subDir : dirs) {
+      watchedDirectories.put(subDir.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE), subDir);
+    }
+  }
+
+  private void watch() {
+    try {
+      while (true) {
+        WatchKey key = watchService.take();
+        Path dir = watchedDirectories.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+          if (event.kind() == OVERFLOW) {
+            // lost track of what changed, so everything has to be parsed again
+            rebuilder.execute(segments::clear);
+            changed(directory);
+            continue;
+          }
+          Path path = dir.resolve((Path) event.context());
+          if (event.kind() == ENTRY_CREATE && Files.isDirectory(path)) {
+            try {
+              register(path);
+            } catch (IOException e) {
+              LOGGER.warn("Could not watch new directory {}", path, e);
+            }
+          } else if (path.getFileName().toString().endsWith(".rpy")) {
+            changed(path);
+          }
+        }
+        if (!key.reset()) {
+          watchedDirectories.remove(key);
+          if (dir.equals(directory)) {
+            // nothing is going to be reported anymore, not even when the directory is created again
+            stop(new NoSuchFileException(directory.toString(), null, "Translation directory was removed"));
+            return;
+          }
+        }
+      }
+    } catch (InterruptedException | ClosedWatchServiceException e) {
+      LOGGER.debug("Stopped watching {}", directory);
+    }
+  }
+
+  private void stop(Exception reason) {
+    LOGGER.warn("Stopped watching {}", directory, reason);
+    watching = false;
+    try {
+      close();
+    } catch (IOException e) {
+      LOGGER.debug("Could not close watch service", e);
+    }
+    listener.failed(reason);
+  }
+
+  /**
+   * @return Whether changes are still being watched for, which stops if the translation directory is removed
+   */
+  public boolean isWatching() {
+    return watching;
+  }
+
+  private synchronized void changed(Path path) {
+    long now = System.nanoTime();
+    dirty.add(path);
+    if (firstChange == 0) {
+      firstChange = now;
+    }
+    if (scheduledRebuild != null) {
+      scheduledRebuild.cancel(false);
+    }
+    long waited = TimeUnit.NANOSECONDS.toMillis(now - firstChange);
+    long delay = Math.max(0, Math.min(DEBOUNCE_DELAY, MAX_DELAY - waited));
+    if (!rebuilder.isShutdown()) {
+      scheduledRebuild = rebuilder.schedule(this::rebuild, delay, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  // files are told apart by their absolute paths, same as the ones the watch service reports
+  private List<Path> getSources() {
+    return tasks.getTemplateSources().stream().map(path -> path.toAbsolutePath().normalize()).toList();
+  }
+
+  private void warmUp() {
+    long start = System.currentTimeMillis();
+    List<Path> files = getSources();
+    try {
+      segments.update(tasks.createTemplateConverter(files), files, null);
+    } catch (IOException e) {
+      // those files are parsed again on the first rebuild
+      LOGGER.debug("Could not parse every file ahead of time", e);
+    }
+    LOGGER.info("Parsed {} translation file(s) in {} ms", segments.size(), System.currentTimeMillis() - start);
+  }
+
+  private void rebuild() {
+    Set<Path> changed;
+    long waitMillis;
+    synchronized (this) {
+      changed = new HashSet<>(dirty);
+      dirty.clear();
+      waitMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - firstChange);
+      firstChange = 0;
+      scheduledRebuild = null;
+    }
+    long start = System.currentTimeMillis();
+    List<Path> files = getSources();
+    if (files.isEmpty()) {
+      // most likely deleted to be generated again, which would otherwise replace the template with an empty one
+      LOGGER.info("None of the translation files exist, not regenerating the template");
+      return;
+    }
+    TemplateSegments.Update update;
+    try {
+      update = segments.update(tasks.createTemplateConverter(files), files, changed);
+    } catch (IOException e) {
+      // most likely caught a file halfway through being written, which is parsed again on the next change
+      listener.failed(e);
+      return;
+    }
+    if (update.isEmpty()) {
+      LOGGER.debug("None of the {} changed file(s) are part of the template", changed.size());
+      return;
+    }
+    RPY2POConverter.Result merged = segments.toResult();
+    long parseMillis = System.currentTimeMillis() - start;
+    start = System.currentTimeMillis();
+    ProfileTasks.TemplateResult saved;
+    try {
+      saved = tasks.saveTemplate(merged, lastCatalog);
+    } catch (IOException e) {
+      LOGGER.error("Could not save regenerated template", e);
+      listener.failed(e);
+      return;
+    }
+    lastCatalog = merged.catalog();
+    Rebuild rebuild = new Rebuild(changed.size(), update.parsed(), files.size(), waitMillis, parseMillis,
+        System.currentTimeMillis() - start, saved.changes(), List.copyOf(merged.missingNames()));
+    LOGGER.info("Regenerated template: {}/{} file(s) parsed, {} ms after the first change", update.parsed(), files.size(), rebuild.latencyMillis());
+    listener.rebuilt(rebuild);
+  }
+
+  @Override
+  public void close() throws IOException {
+    watching = false;
+    rebuilder.shutdownNow();
+    watchService.close();
+  }
+
+}
@@ -0,0 +1,123 @@
+package me.whizvox.rpy2po.core;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A case-insensitive substring index over a fixed list of strings. Every string is split up into its character
+ * trigrams, and each trigram maps to the (sorted) indices of the strings that contain it. A string can only contain the
+ * query if it contains every trigram of the query, so only the strings in the intersection of those lists need to be
+ * checked.
+ */
+public class TrigramIndex {
+
+  private static final int[] EMPTY = new int[0];
+
+  private final String[] strings;
+  private final Map<Long, int[]> postings;
+
+  private static class Posting {
+    int[] indices = new int[4];
+    int size = 0;
+  }
+
+  public TrigramIndex(List<String> strings) {
+    this.strings = new String[strings.size()];
+    Map<Long, Posting> postings = new HashMap<>();
+    for (int i = 0; i < this.strings.length; i++) {
+      String str = strings.get(i).toLowerCase();
+      this.strings[i] = str;
+      for (int j = 0; j + 3 <= str.length(); j++) {
+        Posting posting = postings.computeIfAbsent(getTrigram(str, j), k -> new Posting());
+        // a string can contain the same trigram more than once, but is only listed once
+        if (posting.size > 0 && posting.indices[posting.size - 1] == i) {
+          continue;
+        }
+        if (posting.size == posting.indices.length) {
+          posting.indices = Arrays.copyOf(posting.indices, posting.size * 2);
+        }
+        posting.indices[posting.size++] = i;
+      }
+    }
+    this.postings = new HashMap<>(postings.size() * 4 / 3 + 1);
+    postings.forEach((trigram, posting) -> this.postings.put(trigram, Arrays.copyOf(posting.indices, posting.size)));
+  }
+
+  public int size() {
+    return strings.length;
+  }
+
+  /**
+   * Find all strings that contain some text, ignoring case.
+   * @return The indices of all matching strings, in ascending order
+   */
+  public int[] search(String query) {
+    String queryLc = query.toLowerCase();
+    if (queryLc.length() < 3) {
+      return verify(null, queryLc);
+    }
+    int[][] lists = new int[queryLc.length() - 2][];
+    for (int i = 0; i < lists.length; i++) {
+      lists[i] = postings.get(getTrigram(queryLc, i));
+      if (lists[i] == null) {
+        return EMPTY;
+      }
+    }
+    // start with the rarest trigram, so that the candidates shrink as quickly as possible
+    Arrays.sort(lists, Comparator.comparingInt(list -> list.length));
+    int[] candidates = lists[0];
+    for (int i = 1; i < lists.length && candidates.length > 0; i++) {
+      candidates = intersect(candidates, lists[i]);
+    }
+    return verify(candidates, queryLc);
+  }
+
+  /**
+   * Same as {@link #search(String)}, but only checks strings that are already known to be candidates. Useful when the
+   * query only grew since the last search, since the new results are a subset of the old ones.
+   * @param candidates The indices to check, in ascending order
+   */
+  public int[] search(String query, int[] candidates) {
+    return verify(candidates, query.toLowerCase());
+  }
+
+  private int[] verify(int[] candidates, String queryLc) {
+    int count = candidates == null ? strings.length : candidates.length;
+    int[] result = new int[count];
+    int size = 0;
+    for (int i = 0; i < count; i++) {
+      int index = candidates == null ? i : candidates[i];
+      if (strings[index].contains(queryLc)) {
+        result[size++] = index;
+      }
+    }
+    return Arrays.copyOf(result, size);
+  }
+
+  private static int[] intersect(int[] a, int[] b) {
+    int[] result = new int[Math.min(a.length, b.length)];
+    int size = 0;
+    int i = 0;
+    int j = 0;
+    while (i < a.length && j < b.length) {
+      if (a[i] < b[j]) {
+        i++;
+      } else if (a[i] > b[j]) {
+        j++;
+      } else {
+        result[size++] = a[i];
+        i++;
+        j++;
+      }
+    }
+    return Arrays.copyOf(result, size);
+  }
+
+  private static long getTrigram(String str, int index) {
+    return ((long) str.charAt(index) << 32) | ((long) str.charAt(index + 1) << 16) | str.charAt(index + 2);
+  }
+
+}
@@ -0,0 +1,114 @@
+package me.whizvox.rpy2po.core;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Computes bounded edit distances with the incubating Vector API. Cells on the same anti-diagonal of the edit distance
+ * matrix do not depend on each other, so the matrix is evaluated one anti-diagonal at a time, several cells per
+ * instruction. Like {@link StringUtil#getBandedEditDistance(String, String, int)}, only cells within
+ * <code>maxDistance</code> of the main diagonal are evaluated.
+ * <p>
+ * This class requires the <code>jdk.incubator.vector</code> module, and fails to load without it. It is therefore only
+ * compiled with <code>-Dvector</code>. Use {@link StringUtil#getEditDistance(String, String, int)} instead, which only
+ * uses this class if it is available.
+ */
+public class VectorizedEditDistance {
+
+  private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+  /**
+   * @return The number of cells evaluated per instruction
+   */
+  public static int getLanes() {
+    return SPECIES.length();
+  }
+
+  /**
+   * Same as {@link StringUtil#getBandedEditDistance(String, String, int)}.
+   */
+  public static int getEditDistance(String a, String b, int maxDistance) {
+    if (maxDistance < 0) {
+      return 0;
+    }
+    // lowercasing can change the length, i.e. U+0130 becomes two chars
+    a = a.toLowerCase();
+    b = b.toLowerCase();
+    int n = a.length();
+    int m = b.length();
+    if (Math.abs(n - m) > maxDistance) {
+      return maxDistance + 1;
+    }
+    int limit = maxDistance + 1;
+    // index i of a diagonal is row i, b is reversed so that the characters compared on a diagonal are consecutive
+    int[] aChars = a.chars().toArray();
+    int[] bChars = new int[m];
+    for (int j = 0; j < m; j++) {
+      bChars[m - 1 - j] = b.charAt(j);
+    }
+    int[] prev2 = new int[n + 1];
+    int[] prev1 = new int[n + 1];
+    int[] cur = new int[n + 1];
+    prev1[0] = 0;
+    int prevMin = 0;
+    IntVector limitVec = IntVector.broadcast(SPECIES, limit);
+    for (int d = 1; d <= n + m; d++) {
+      int lo = Math.max(Math.max(0, d - m), (d - maxDistance + 1) / 2);
+      int hi = Math.min(Math.min(n, d), (d + maxDistance) / 2);
+      // with a narrow band, some diagonals have no cells in it at all
+      int curMin = limit;
+      if (lo == 0) {
+        cur[0] = d;
+        curMin = d;
+      }
+      if (hi == d) {
+        cur[d] = d;
+        curMin = Math.min(curMin, d);
+      }
+      int from = Math.max(lo, 1);
+      int to = Math.min(hi, d - 1);
+      int bOffset = m - d;
+      int i = from;
+      if (to - from + 1 >= SPECIES.length()) {
+        IntVector minVec = limitVec;
+        int bound = from + SPECIES.loopBound(to - from + 1);
+        for (; i < bound; i += SPECIES.length()) {
+          IntVector up = IntVector.fromArray(SPECIES, prev1, i - 1);
+          IntVector left = IntVector.fromArray(SPECIES, prev1, i);
+          IntVector diag = IntVector.fromArray(SPECIES, prev2, i - 1);
+          VectorMask<Integer> differs = IntVector.fromArray(SPECIES, aChars, i - 1)
+              .compare(VectorOperators.NE, IntVector.fromArray(SPECIES, bChars, i + bOffset));
+          IntVector cost = up.min(left).add(1).min(diag.add(1, differs)).min(limitVec);
+          cost.intoArray(cur, i);
+          minVec = minVec.min(cost);
+        }
+        curMin = Math.min(curMin, minVec.reduceLanes(VectorOperators.MIN));
+      }
+      for (; i <= to; i++) {
+        int cost = Math.min(1 + Math.min(prev1[i - 1], prev1[i]), prev2[i - 1] + (aChars[i - 1] == bChars[i + bOffset] ? 0 : 1));
+        cur[i] = Math.min(cost, limit);
+        curMin = Math.min(curMin, cur[i]);
+      }
+      // cells just outside the band are read by the next two diagonals
+      if (lo > 0) {
+        cur[lo - 1] = limit;
+      }
+      if (hi < n) {
+        cur[hi + 1] = limit;
+      }
+      // every path to the last cell passes through one of any two consecutive diagonals, and costs never decrease
+      if (curMin > maxDistance && prevMin > maxDistance) {
+        return limit;
+      }
+      prevMin = curMin;
+      int[] tmp = prev2;
+      prev2 = prev1;
+      prev1 = cur;
+      cur = tmp;
+    }
+    return Math.min(prev1[n], limit);
+  }
+
+}
@@ -0,0 +1,172 @@
+package me.whizvox.rpy2po.gettext;
+
+import com.soberlemur.potentilla.Catalog;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.*;
+
+/**
+ * Keeps recently parsed PO catalogs in memory, so that opening the same file again does not parse it again. A cached
+ * catalog is only reused as long as the size and last modified time of its file stay the same.
+ * <p>
+ * The cache is bounded by an estimate of how much memory its catalogs take up, which is based on the size of their
+ * files. Once the estimate goes over the limit, the least recently used catalogs are dropped. Catalogs can also be
+ * {@link #prefetch(Path) prefetched} in the background, and anyone asking for a catalog that is still being parsed
+ * waits for that instead of parsing it again.
+ * <p>
+ * Catalogs are shared between everyone using this cache, so they must not be modified.
+ */
+public class CatalogCache {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(CatalogCache.class);
+
+  // rough ratio between the memory a parsed catalog takes up and the size of its file
+  private static final int WEIGHT_PER_BYTE = 8;
+
+  private record Entry(long size, long lastModified, Catalog catalog) {
+  }
+
+  private final long maxWeight;
+  private final LinkedHashMap<Path, Entry> entries;
+  private final Map<Path, Future<Catalog>> loading;
+  private final ExecutorService prefetcher;
+  private long weight;
+
+  /**
+   * @param maxWeight Roughly how many bytes of memory all cached catalogs can take up
+   */
+  public CatalogCache(long maxWeight) {
+    this.maxWeight = maxWeight;
+    entries = new LinkedHashMap<>(16, 0.75F, true);
+    loading = new HashMap<>();
+    prefetcher = Executors.newSingleThreadExecutor(r -> {
+      Thread thread = new Thread(r, "Catalog Prefetcher");
+      thread.setDaemon(true);
+      return thread;
+    });
+    weight = 0;
+  }
+
+  /**
+   * Creates a cache that can use up to a quarter of the maximum heap size.
+   */
+  public CatalogCache() {
+    this(Runtime.getRuntime().maxMemory() / 4);
+  }
+
+  private static Path normalize(Path path) {
+    return path.toAbsolutePath().normalize();
+  }
+
+  /**
+   * Get a catalog, parsing its file if it is not cached or has changed since it was cached.
+   * @throws IOException If the file could not be read or parsed
+   */
+  public Catalog get(Path path) throws IOException {
+    Path key = normalize(path);
+    BasicFileAttributes attrs = Files.readAttributes(key, BasicFileAttributes.class);
+    FutureTask<Catalog> task;
+    Future<Catalog> pending;
+    synchronized (this) {
+      Entry entry = entries.get(key);
+      if (entry != null && entry.size() == attrs.size() && entry.lastModified() == attrs.lastModifiedTime().toMillis()) {
+        return entry.catalog();
+      }
+      pending = loading.get(key);
+      if (pending == null) {
+        task = new FutureTask<>(() -> load(key));
+        loading.put(key, task);
+      } else {
+        task = null;
+      }
+    }
+    if (task != null) {
+      task.run();
+      pending = task;
+    }
+    try {
+      Catalog catalog = pending.get();
+      // a prefetch could have started before the file was last changed
+      if (task == null) {
+        return get(path);
+      }
+      return catalog;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while waiting for catalog: " + key, e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException cause) {
+        throw cause;
+      }
+      throw new IOException("Could not load catalog: " + key, e.getCause());
+    }
+  }
+
+  private Catalog load(Path key) throws IOException {
+    try {
+      BasicFileAttributes attrs = Files.readAttributes(key, BasicFileAttributes.class);
+      long start = System.currentTimeMillis();
+      Catalog catalog = PoBackend.current().read(key);
+      LOGGER.debug("Parsed catalog at {} in {} ms", key, System.currentTimeMillis() - start);
+      put(key, new Entry(attrs.size(), attrs.lastModifiedTime().toMillis(), catalog));
+      return catalog;
+    } finally {
+      synchronized (this) {
+        loading.remove(key);
+      }
+    }
+  }
+
+  private synchronized void put(Path key, Entry entry) {
+    Entry old = entries.put(key, entry);
+    if (old != null) {
+      weight -= old.size() * WEIGHT_PER_BYTE;
+    }
+    weight += entry.size() * WEIGHT_PER_BYTE;
+    var it = entries.values().iterator();
+    // always keep the newest catalog, even if it's too big by itself
+    while (weight > maxWeight && entries.size() > 1) {
+      Entry eldest = it.next();
+      it.remove();
+      weight -= eldest.size() * WEIGHT_PER_BYTE;
+    }
+  }
+
+  /**
+   * Start parsing a catalog in the background, unless it is already cached and up-to-date.
+   */
+  public void prefetch(Path path) {
+    prefetcher.execute(() -> {
+      try {
+        get(path);
+      } catch (IOException e) {
+        LOGGER.warn("Could not prefetch catalog: {}", path, e);
+      }
+    });
+  }
+
+  public synchronized void invalidate(Path path) {
+    Entry old = entries.remove(normalize(path));
+    if (old != null) {
+      weight -= old.size() * WEIGHT_PER_BYTE;
+    }
+  }
+
+  public synchronized void clear() {
+    entries.clear();
+    weight = 0;
+  }
+
+  public synchronized int size() {
+    return entries.size();
+  }
+
+}
@@ -0,0 +1,93 @@
+package me.whizvox.rpy2po.gettext;
+
+import com.soberlemur.potentilla.Catalog;
+import com.soberlemur.potentilla.Message;
+import com.soberlemur.potentilla.MessageKey;
+
+import java.util.*;
+
+/**
+ * Compares two catalogs by message ID only, without comparing any of the strings for similarity. Every step is a hash
+ * join, so this runs in linear time.
+ * <ol>
+ *   <li>Messages whose {@link MessageKey} appears in both catalogs are unchanged.</li>
+ *   <li>Of the rest, messages with the same <code>msgctxt</code> in both catalogs had their string changed.</li>
+ *   <li>Of the rest, messages with the same <code>msgid</code> had their <code>msgctxt</code> changed, which happens
+ *   whenever anything besides the dialogue changes in a Ren'Py statement. Duplicates are paired up in order.</li>
+ *   <li>Everything else was either added or removed.</li>
+ * </ol>
+ */
+public class CatalogDiff {
+
+  /**
+   * A message that exists in both catalogs, but under a different key.
+   * @param oldKey The key in the old catalog
+   * @param newKey The key in the new catalog
+   */
+  public record Change(MessageKey oldKey,
+                       MessageKey newKey) {
+  }
+
+  /**
+   * @param added Keys that only exist in the new catalog
+   * @param removed Keys that only exist in the old catalog
+   * @param modified Messages whose key changed
+   */
+  public record Result(List<MessageKey> added,
+                       List<MessageKey> removed,
+                       List<Change> modified) {
+
+    public boolean isEmpty() {
+      return added.isEmpty() && removed.isEmpty() && modified.isEmpty();
+    }
+
+  }
+
+  public static Result compare(Catalog oldCatalog, Catalog newCatalog) {
+    List<MessageKey> added = new ArrayList<>();
+    for (Message msg : newCatalog) {
+      MessageKey key = new MessageKey(msg);
+      if (!oldCatalog.contains(key)) {
+        added.add(key);
+      }
+    }
+    Map<String, MessageKey> removedByContext = new HashMap<>();
+    Map<String, Deque<MessageKey>> removedById = new HashMap<>();
+    Set<MessageKey> removed = new LinkedHashSet<>();
+    for (Message msg : oldCatalog) {
+      MessageKey key = new MessageKey(msg);
+      if (!newCatalog.contains(key)) {
+        removed.add(key);
+        if (key.msgContext() != null) {
+          removedByContext.put(key.msgContext(), key);
+          removedById.computeIfAbsent(key.msgId(), k -> new ArrayDeque<>()).add(key);
+        }
+      }
+    }
+    List<Change> modified = new ArrayList<>();
+    List<MessageKey> remaining = new ArrayList<>();
+    for (MessageKey key : added) {
+      MessageKey oldKey = key.msgContext() == null ? null : removedByContext.remove(key.msgContext());
+      if (oldKey != null) {
+        modified.add(new Change(oldKey, key));
+        removed.remove(oldKey);
+        removedById.get(oldKey.msgId()).remove(oldKey);
+      } else {
+        remaining.add(key);
+      }
+    }
+    added = new ArrayList<>();
+    for (MessageKey key : remaining) {
+      Deque<MessageKey> candidates = key.msgContext() == null ? null : removedById.get(key.msgId());
+      MessageKey oldKey = candidates == null ? null : candidates.poll();
+      if (oldKey != null) {
+        modified.add(new Change(oldKey, key));
+        removed.remove(oldKey);
+      } else {
+        added.add(key);
+      }
+    }
+    return new Result(Collections.unmodifiableList(added), List.copyOf(removed), Collections.unmodifiableList(modified));
+  }
+
+}
@@ -0,0 +1,82 @@
+package me.whizvox.rpy2po.gettext;
+
+import com.soberlemur.potentilla.Catalog;
+import com.soberlemur.potentilla.PoParser;
+import com.soberlemur.potentilla.PoWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * What reads and writes PO files. potentilla is used unless told otherwise, either through the
+ * <code>rpy2po.poBackend</code> system property or the batch runner's <code>--po-backend</code> option.
+ */
+public enum PoBackend {
+
+  POTENTILLA {
+    @Override
+    public Catalog read(Path path) throws IOException {
+      return new PoParser().parseCatalog(path.toFile());
+    }
+
+    @Override
+    public void write(Catalog catalog, Path path) throws IOException {
+      try (OutputStream out = Files.newOutputStream(path)) {
+        new PoWriter().write(catalog, out);
+      }
+    }
+  },
+
+  /**
+   * Reads and writes with {@link StreamingPoReader} and {@link StreamingPoWriter}, which do not go through potentilla's
+   * parser and writer. Anything that only needs to go through a file once, i.e. exporting, skips building a catalog
+   * altogether.
+   */
+  STREAMING {
+    @Override
+    public Catalog read(Path path) throws IOException {
+      return StreamingPoReader.readCatalog(path);
+    }
+
+    @Override
+    public void write(Catalog catalog, Path path) throws IOException {
+      StreamingPoWriter.writeCatalog(catalog, path);
+    }
+  };
+
+  private static volatile PoBackend current = fromProperty();
+
+  private static PoBackend fromProperty() {
+    try {
+      return parse(System.getProperty("rpy2po.poBackend", "potentilla"));
+    } catch (IllegalArgumentException e) {
+      return POTENTILLA;
+    }
+  }
+
+  public abstract Catalog read(Path path) throws IOException;
+
+  /**
+   * Write a catalog, replacing the file if it already exists.
+   */
+  public abstract void write(Catalog catalog, Path path) throws IOException;
+
+  public static PoBackend current() {
+    return current;
+  }
+
+  public static void setCurrent(PoBackend backend) {
+    current = backend;
+  }
+
+  /**
+   * @throws IllegalArgumentException If there is no backend with that name
+   */
+  public static PoBackend parse(String name) {
+    return valueOf(name.toUpperCase(Locale.ROOT));
+  }
+
+}
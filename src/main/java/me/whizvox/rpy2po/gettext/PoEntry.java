@@ -0,0 +1,89 @@
+package me.whizvox.rpy2po.gettext;
+
+import com.soberlemur.potentilla.Message;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A single entry of a PO file, as read by {@link StreamingPoReader} and written by {@link StreamingPoWriter}. Unlike a
+ * {@link Message}, nothing is parsed beyond what is in the file, i.e. references are kept as they were written.
+ * @param translatorComments Comments starting with <code>#&nbsp;</code>
+ * @param extractedComments Comments starting with <code>#.</code>
+ * @param references Source references starting with <code>#:</code>, i.e. <code>game/script.rpy:10</code>
+ * @param flags Flags starting with <code>#,</code>, i.e. <code>fuzzy</code>
+ * @param prevMsgContext The previous <code>msgctxt</code>, starting with <code>#|</code>, or <code>null</code>
+ * @param prevMsgId The previous <code>msgid</code>, starting with <code>#|</code>, or <code>null</code>
+ * @param msgContext Can be <code>null</code>
+ * @param msgId Is empty for the header
+ * @param msgIdPlural Can be <code>null</code>
+ * @param msgstr Is <code>null</code> if the entry has plural forms
+ * @param msgstrPlural Is empty unless the entry has plural forms
+ * @param obsolete Whether the entry was commented out with <code>#~</code>
+ */
+public record PoEntry(List<String> translatorComments,
+                      List<String> extractedComments,
+                      List<String> references,
+                      List<String> flags,
+                      String prevMsgContext,
+                      String prevMsgId,
+                      String msgContext,
+                      String msgId,
+                      String msgIdPlural,
+                      String msgstr,
+                      List<String> msgstrPlural,
+                      boolean obsolete) {
+
+  public boolean isHeader() {
+    return msgContext == null && msgId.isEmpty();
+  }
+
+  public boolean isFuzzy() {
+    return flags.contains("fuzzy");
+  }
+
+  /**
+   * Create a message out of this entry. Everything that survives a round trip through potentilla is carried over,
+   * except for the previous <code>msgctxt</code> and plural forms, which Ren'Py translations never have.
+   */
+  public Message toMessage() {
+    Message msg = new Message();
+    msg.getSourceReferences().addAll(references);
+    msg.getExtractedComments().addAll(extractedComments);
+    translatorComments.forEach(msg::addComment);
+    for (String flag : flags) {
+      // potentilla keeps fuzzy apart from the other flags
+      if (flag.equals("fuzzy")) {
+        msg.markFuzzy();
+      } else {
+        msg.addFormat(flag);
+      }
+    }
+    msg.setMsgContext(msgContext);
+    msg.setMsgId(msgId);
+    msg.setMsgstr(msgstr);
+    if (prevMsgId != null) {
+      msg.setPrevMsgid(prevMsgId);
+    }
+    if (obsolete) {
+      msg.markObsolete();
+    }
+    return msg;
+  }
+
+  /**
+   * Create an entry out of a message, with the same fields {@link #toMessage()} carries over. The entry shares its
+   * comments and references with the message.
+   */
+  public static PoEntry of(Message msg) {
+    List<String> flags = msg.getFormats();
+    if (msg.isFuzzy()) {
+      flags = new ArrayList<>(flags.size() + 1);
+      flags.add("fuzzy");
+      flags.addAll(msg.getFormats());
+    }
+    return new PoEntry(msg.getComments(), msg.getExtractedComments(), msg.getSourceReferences(), flags, null,
+        msg.getPrevMsgid(), msg.getMsgContext(), msg.getMsgId(), null, msg.getMsgstr(), List.of(), msg.isObsolete());
+  }
+
+}
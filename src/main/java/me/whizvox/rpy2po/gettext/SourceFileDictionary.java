@@ -0,0 +1,89 @@
+package me.whizvox.rpy2po.gettext;
+
+import java.util.*;
+
+/**
+ * Numbers a fixed set of source files in the same order as their names, so that a {@link SourceReference} can be
+ * encoded as a single <code>long</code>: the file's number in the upper 32 bits, and the line in the lower 32 bits.
+ * Encoded references sort the same way as {@link SourceReference#compareTo(SourceReference)}, and take up no more
+ * space than the <code>long</code> itself.
+ */
+public class SourceFileDictionary {
+
+  private final String[] files;
+  private final Map<String, Integer> ids;
+
+  public SourceFileDictionary(Collection<String> files) {
+    this.files = files.stream().distinct().sorted().toArray(String[]::new);
+    ids = new HashMap<>();
+    for (int i = 0; i < this.files.length; i++) {
+      ids.put(this.files[i], i);
+    }
+  }
+
+  public int size() {
+    return files.length;
+  }
+
+  /**
+   * @return The number of a file, or <code>-1</code> if it is not part of this dictionary
+   */
+  public int getId(String file) {
+    return ids.getOrDefault(file, -1);
+  }
+
+  public String getFile(int id) {
+    return files[id];
+  }
+
+  /**
+   * Encode a source reference, i.e. <code>game/script.rpy:12</code>.
+   * @throws IllegalArgumentException If the reference is invalid, or its file is not part of this dictionary
+   */
+  public long encode(String reference) {
+    int index = reference.lastIndexOf(':');
+    if (index == -1) {
+      throw new IllegalArgumentException("Invalid source reference: " + reference);
+    }
+    int id = getId(reference.substring(0, index));
+    if (id == -1) {
+      throw new IllegalArgumentException("Unknown source file: " + reference);
+    }
+    return encode(id, Integer.parseInt(reference, index + 1, reference.length(), 10));
+  }
+
+  /**
+   * Encode several source references at once.
+   * @return The encoded references, in ascending order
+   */
+  public long[] encodeAll(Collection<String> references) {
+    long[] result = new long[references.size()];
+    int i = 0;
+    for (String reference : references) {
+      result[i++] = encode(reference);
+    }
+    Arrays.sort(result);
+    return result;
+  }
+
+  public SourceReference decode(long encoded) {
+    return new SourceReference(files[getFileId(encoded)], getLine(encoded));
+  }
+
+  public String format(long encoded) {
+    return files[getFileId(encoded)] + ":" + getLine(encoded);
+  }
+
+  public static long encode(int fileId, int line) {
+    return ((long) fileId << 32) | (line & 0xFFFFFFFFL);
+  }
+
+  public static int getFileId(long encoded) {
+    return (int) (encoded >>> 32);
+  }
+
+  public static int getLine(long encoded) {
+    return (int) encoded;
+  }
+
+}
@@ -1,15 +1,12 @@
 package me.whizvox.rpy2po.gettext;
 
-import java.util.Comparator;
-
 public record SourceReference(String file,
                               int line) implements Comparable<SourceReference> {
 
   @Override
   public int compareTo(SourceReference other) {
-    return Comparator.comparing(SourceReference::file)
-        .thenComparing(SourceReference::line)
-        .compare(this, other);
+    int cmp = file.compareTo(other.file);
+    return cmp != 0 ? cmp : Integer.compare(line, other.line);
   }
 
   public static SourceReference parse(String str) {
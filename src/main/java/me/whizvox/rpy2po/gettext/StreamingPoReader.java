@@ -0,0 +1,350 @@
+package me.whizvox.rpy2po.gettext;
+
+import com.soberlemur.potentilla.Catalog;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads a PO file one entry at a time, so that huge files can be gone through without holding all of them in memory.
+ * Files are always read as UTF-8, regardless of the charset in their header, which is what Ren'Py and rpy2po write.
+ * <pre>
+ * try (StreamingPoReader reader = StreamingPoReader.open(path)) {
+ *   PoEntry entry;
+ *   while ((entry = reader.next()) != null) {
+ *     ...
+ *   }
+ * }
+ * </pre>
+ */
+public class StreamingPoReader implements Closeable {
+
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  private enum Field {
+    NONE,
+    PREV_CONTEXT,
+    PREV_ID,
+    CONTEXT,
+    ID,
+    ID_PLURAL,
+    STR,
+    STR_PLURAL
+  }
+
+  private final BufferedReader reader;
+  private String pending;
+  private int lineNumber;
+
+  // the entry being read
+  private List<String> translatorComments;
+  private List<String> extractedComments;
+  private List<String> references;
+  private List<String> flags;
+  private String prevMsgContext;
+  private String prevMsgId;
+  private String msgContext;
+  private String msgId;
+  private String msgIdPlural;
+  private String msgstr;
+  private List<String> msgstrPlural;
+  private boolean obsolete;
+  private Field field;
+  private int pluralIndex;
+
+  public StreamingPoReader(Reader reader) {
+    this.reader = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader, BUFFER_SIZE);
+    pending = null;
+    lineNumber = 0;
+    reset();
+  }
+
+  public static StreamingPoReader open(Path path) throws IOException {
+    return new StreamingPoReader(new InputStreamReader(Files.newInputStream(path), StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Read an entire PO file into a catalog.
+   */
+  public static Catalog readCatalog(Path path) throws IOException {
+    Catalog catalog = new Catalog();
+    try (StreamingPoReader reader = open(path)) {
+      PoEntry entry;
+      while ((entry = reader.next()) != null) {
+        catalog.add(entry.toMessage());
+      }
+    }
+    return catalog;
+  }
+
+  /**
+   * @return The number of the last line that was read, starting at 1
+   */
+  public int getLineNumber() {
+    return lineNumber;
+  }
+
+  private void reset() {
+    translatorComments = new ArrayList<>(0);
+    extractedComments = new ArrayList<>(1);
+    references = new ArrayList<>(1);
+    flags = new ArrayList<>(0);
+    prevMsgContext = null;
+    prevMsgId = null;
+    msgContext = null;
+    msgId = null;
+    msgIdPlural = null;
+    msgstr = null;
+    msgstrPlural = new ArrayList<>(0);
+    obsolete = false;
+    field = Field.NONE;
+    pluralIndex = 0;
+  }
+
+  private String peekLine() throws IOException {
+    if (pending == null) {
+      pending = reader.readLine();
+      if (pending != null) {
+        lineNumber++;
+        if (lineNumber == 1 && pending.startsWith("\uFEFF")) {
+          pending = pending.substring(1);
+        }
+      }
+    }
+    return pending;
+  }
+
+  private IOException error(String message) {
+    return new IOException("Line " + lineNumber + ": " + message);
+  }
+
+  /**
+   * Read the next entry.
+   * @return The next entry, or <code>null</code> if the end of the file has been reached
+   * @throws IOException If the file could not be read or is malformed
+   */
+  public PoEntry next() throws IOException {
+    boolean hasMsgstr = false;
+    String line;
+    while ((line = peekLine()) != null) {
+      String content = line;
+      boolean obsoleteLine = false;
+      if (content.startsWith("#~")) {
+        obsoleteLine = true;
+        content = stripSpace(content.substring(2));
+      }
+      content = content.strip();
+      if (content.isEmpty()) {
+        if (msgId != null) {
+          break;
+        }
+        pending = null;
+        continue;
+      }
+      char first = content.charAt(0);
+      if (first == '#' || (first == '|' && obsoleteLine)) {
+        // comments always come before the strings of an entry
+        if (hasMsgstr) {
+          break;
+        }
+        pending = null;
+        readComment(first == '|' ? "#" + content : content);
+      } else if (first == '"') {
+        pending = null;
+        append(parseString(content));
+      } else {
+        int space = content.indexOf(' ');
+        if (space == -1) {
+          throw error("Expected a string after keyword: " + content);
+        }
+        String keyword = content.substring(0, space);
+        if (hasMsgstr && (keyword.equals("msgctxt") || keyword.equals("msgid"))) {
+          break;
+        }
+        pending = null;
+        String value = parseString(content.substring(space + 1).strip());
+        switch (keyword) {
+          case "msgctxt" -> {
+            field = Field.CONTEXT;
+            msgContext = value;
+          }
+          case "msgid" -> {
+            field = Field.ID;
+            msgId = value;
+          }
+          case "msgid_plural" -> {
+            field = Field.ID_PLURAL;
+            msgIdPlural = value;
+          }
+          case "msgstr" -> {
+            field = Field.STR;
+            msgstr = value;
+            hasMsgstr = true;
+          }
+          default -> {
+            if (!keyword.startsWith("msgstr[") || !keyword.endsWith("]")) {
+              throw error("Unknown keyword: " + keyword);
+            }
+            try {
+              pluralIndex = Integer.parseInt(keyword, 7, keyword.length() - 1, 10);
+            } catch (NumberFormatException e) {
+              throw error("Invalid plural index: " + keyword);
+            }
+            while (msgstrPlural.size() <= pluralIndex) {
+              msgstrPlural.add("");
+            }
+            field = Field.STR_PLURAL;
+            msgstrPlural.set(pluralIndex, value);
+            hasMsgstr = true;
+          }
+        }
+        obsolete |= obsoleteLine;
+      }
+    }
+    if (msgId == null) {
+      // nothing but comments, if anything, until the end of the file
+      reset();
+      return null;
+    }
+    if (!hasMsgstr) {
+      throw error("Missing msgstr for msgid \"" + msgId + "\"");
+    }
+    PoEntry entry = new PoEntry(translatorComments, extractedComments, references, flags, prevMsgContext, prevMsgId,
+        msgContext, msgId, msgIdPlural, msgstr, msgstrPlural, obsolete);
+    reset();
+    return entry;
+  }
+
+  private void readComment(String content) throws IOException {
+    if (content.length() == 1) {
+      translatorComments.add("");
+      return;
+    }
+    switch (content.charAt(1)) {
+      case '.' -> extractedComments.add(stripSpace(content.substring(2)));
+      case ':' -> {
+        String refs = content.substring(2).strip();
+        // rpy2po writes one reference per line, which does not need splitting
+        if (refs.indexOf(' ') == -1 && refs.indexOf('\t') == -1) {
+          if (!refs.isEmpty()) {
+            references.add(refs);
+          }
+        } else {
+          for (String ref : refs.split("\\s+")) {
+            references.add(ref);
+          }
+        }
+      }
+      case ',' -> {
+        for (String flag : content.substring(2).split(",")) {
+          flag = flag.strip();
+          if (!flag.isEmpty()) {
+            flags.add(flag);
+          }
+        }
+      }
+      case '|' -> {
+        String rest = content.substring(2).strip();
+        if (rest.startsWith("\"")) {
+          append(parseString(rest));
+        } else if (rest.startsWith("msgctxt ")) {
+          field = Field.PREV_CONTEXT;
+          prevMsgContext = parseString(rest.substring(8).strip());
+        } else if (rest.startsWith("msgid ")) {
+          field = Field.PREV_ID;
+          prevMsgId = parseString(rest.substring(6).strip());
+        } else {
+          // the previous msgid_plural is of no use to anyone
+          field = Field.NONE;
+        }
+      }
+      default -> translatorComments.add(stripSpace(content.substring(1)));
+    }
+  }
+
+  private void append(String value) throws IOException {
+    switch (field) {
+      case PREV_CONTEXT -> prevMsgContext += value;
+      case PREV_ID -> prevMsgId += value;
+      case CONTEXT -> msgContext += value;
+      case ID -> msgId += value;
+      case ID_PLURAL -> msgIdPlural += value;
+      case STR -> msgstr += value;
+      case STR_PLURAL -> msgstrPlural.set(pluralIndex, msgstrPlural.get(pluralIndex) + value);
+      case NONE -> throw error("String without a keyword");
+    }
+  }
+
+  private static String stripSpace(String str) {
+    return !str.isEmpty() && str.charAt(0) == ' ' ? str.substring(1) : str;
+  }
+
+  private String parseString(String str) throws IOException {
+    if (str.length() < 2 || str.charAt(0) != '"' || str.charAt(str.length() - 1) != '"') {
+      throw error("Expected a quoted string: " + str);
+    }
+    int end = str.length() - 1;
+    int backslash = str.indexOf('\\', 1);
+    if (backslash == -1 || backslash >= end) {
+      if (str.indexOf('"', 1) != end) {
+        throw error("Unescaped quote in string: " + str);
+      }
+      return str.substring(1, end);
+    }
+    StringBuilder sb = new StringBuilder(end);
+    sb.append(str, 1, backslash);
+    for (int i = backslash; i < end; i++) {
+      char c = str.charAt(i);
+      if (c == '"') {
+        throw error("Unescaped quote in string: " + str);
+      }
+      if (c != '\\') {
+        sb.append(c);
+        continue;
+      }
+      if (++i == end) {
+        throw error("Unfinished escape sequence in string: " + str);
+      }
+      c = str.charAt(i);
+      switch (c) {
+        case 'n' -> sb.append('\n');
+        case 't' -> sb.append('\t');
+        case 'r' -> sb.append('\r');
+        case '"', '\\', '\'', '?' -> sb.append(c);
+        case 'a' -> sb.append('\u0007');
+        case 'b' -> sb.append('\b');
+        case 'f' -> sb.append('\f');
+        case 'v' -> sb.append('\u000B');
+        default -> {
+          if (c >= '0' && c <= '7') {
+            int value = 0;
+            int digits = 0;
+            while (digits < 3 && i < end && str.charAt(i) >= '0' && str.charAt(i) <= '7') {
+              value = value * 8 + (str.charAt(i++) - '0');
+              digits++;
+            }
+            i--;
+            sb.append((char) value);
+          } else {
+            throw error("Unknown escape sequence \\" + c + " in string: " + str);
+          }
+        }
+      }
+    }
+    return sb.toString();
+  }
+
+  @Override
+  public void close() throws IOException {
+    reader.close();
+  }
+
+}
@@ -0,0 +1,167 @@
+package me.whizvox.rpy2po.gettext;
+
+import com.soberlemur.potentilla.Catalog;
+import com.soberlemur.potentilla.Message;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Writes a PO file one entry at a time, the counterpart of {@link StreamingPoReader}. Strings are never wrapped, except
+ * after line breaks, which is how <code>msgcat</code> writes them as well. Files are always written as UTF-8.
+ */
+public class StreamingPoWriter implements Closeable, Flushable {
+
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  private final Writer writer;
+  private boolean first;
+
+  public StreamingPoWriter(Writer writer) {
+    this.writer = writer instanceof BufferedWriter ? writer : new BufferedWriter(writer, BUFFER_SIZE);
+    first = true;
+  }
+
+  public static StreamingPoWriter open(Path path) throws IOException {
+    return new StreamingPoWriter(new OutputStreamWriter(Files.newOutputStream(path), StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Write an entire catalog to a PO file, starting with its header if it has one.
+   */
+  public static void writeCatalog(Catalog catalog, Path path) throws IOException {
+    try (StreamingPoWriter writer = open(path)) {
+      writer.write(catalog);
+    }
+  }
+
+  public void write(Catalog catalog) throws IOException {
+    boolean hasHeader = catalog.header() != null;
+    if (hasHeader) {
+      write(catalog.header().toMessage());
+    }
+    for (Message msg : catalog) {
+      if (!hasHeader || msg.getMsgContext() != null || !msg.getMsgId().isEmpty()) {
+        write(msg);
+      }
+    }
+  }
+
+  public void write(Message msg) throws IOException {
+    write(PoEntry.of(msg));
+  }
+
+  public void write(PoEntry entry) throws IOException {
+    if (!first) {
+      writer.write('\n');
+    }
+    first = false;
+    for (String comment : entry.translatorComments()) {
+      writeComment("#", comment);
+    }
+    for (String comment : entry.extractedComments()) {
+      writeComment("#.", comment);
+    }
+    for (String ref : entry.references()) {
+      writeComment("#:", ref);
+    }
+    if (!entry.flags().isEmpty()) {
+      writeComment("#,", String.join(", ", entry.flags()));
+    }
+    String prefix = entry.obsolete() ? "#~ " : "";
+    String prevPrefix = entry.obsolete() ? "#~| " : "#| ";
+    if (entry.prevMsgContext() != null) {
+      writeString(prevPrefix, "msgctxt", entry.prevMsgContext());
+    }
+    if (entry.prevMsgId() != null) {
+      writeString(prevPrefix, "msgid", entry.prevMsgId());
+    }
+    if (entry.msgContext() != null) {
+      writeString(prefix, "msgctxt", entry.msgContext());
+    }
+    writeString(prefix, "msgid", entry.msgId());
+    if (entry.msgIdPlural() != null) {
+      writeString(prefix, "msgid_plural", entry.msgIdPlural());
+      List<String> plurals = entry.msgstrPlural();
+      for (int i = 0; i < plurals.size(); i++) {
+        writeString(prefix, "msgstr[" + i + "]", plurals.get(i));
+      }
+    } else {
+      writeString(prefix, "msgstr", entry.msgstr() == null ? "" : entry.msgstr());
+    }
+  }
+
+  private void writeComment(String prefix, String comment) throws IOException {
+    writer.write(prefix);
+    if (!comment.isEmpty()) {
+      writer.write(' ');
+      // a line break would end the comment early
+      writer.write(comment.indexOf('\n') == -1 ? comment : comment.replace('\n', ' '));
+    }
+    writer.write('\n');
+  }
+
+  private void writeString(String prefix, String keyword, String value) throws IOException {
+    writer.write(prefix);
+    writer.write(keyword);
+    writer.write(' ');
+    int lineBreak = value.indexOf('\n');
+    if (lineBreak == -1 || lineBreak == value.length() - 1) {
+      writeQuoted(value, 0, value.length());
+      writer.write('\n');
+      return;
+    }
+    // one line of the file per line of the string, after an empty first line
+    writer.write("\"\"\n");
+    int start = 0;
+    while (start < value.length()) {
+      int end = value.indexOf('\n', start);
+      end = end == -1 ? value.length() : end + 1;
+      writer.write(prefix);
+      writeQuoted(value, start, end);
+      writer.write('\n');
+      start = end;
+    }
+  }
+
+  private void writeQuoted(String value, int start, int end) throws IOException {
+    writer.write('"');
+    int written = start;
+    for (int i = start; i < end; i++) {
+      char c = value.charAt(i);
+      String escaped = switch (c) {
+        case '"' -> "\\\"";
+        case '\\' -> "\\\\";
+        case '\n' -> "\\n";
+        case '\t' -> "\\t";
+        case '\r' -> "\\r";
+        case '\u0007' -> "\\a";
+        case '\b' -> "\\b";
+        case '\f' -> "\\f";
+        case '\u000B' -> "\\v";
+        default -> c < ' ' ? "\\%03o".formatted((int) c) : null;
+      };
+      if (escaped != null) {
+        writer.write(value, written, i - written);
+        writer.write(escaped);
+        written = i + 1;
+      }
+    }
+    writer.write(value, written, end - written);
+    writer.write('"');
+  }
+
+  @Override
+  public void flush() throws IOException {
+    writer.flush();
+  }
+
+  @Override
+  public void close() throws IOException {
+    writer.close();
+  }
+
+}
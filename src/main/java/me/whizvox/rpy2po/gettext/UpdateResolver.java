@@ -0,0 +1,398 @@
+package me.whizvox.rpy2po.gettext;
+
+import com.soberlemur.potentilla.Catalog;
+import com.soberlemur.potentilla.Message;
+import com.soberlemur.potentilla.MessageKey;
+import me.whizvox.rpy2po.core.*;
+import me.whizvox.rpy2po.rpytl.SequenceAligner;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+
+/**
+ * Updates a language catalog to match a new template without anyone looking at it, similar to <code>msgmerge</code>.
+ * This does the same thing as auto-resolving every problem string in the resolve window, and then marking everything
+ * that is left as new:
+ * <ol>
+ *   <li>Messages with the same key in both catalogs keep their translation.</li>
+ *   <li>Messages whose <code>msgctxt</code> or <code>msgid</code> stayed the same are matched up by
+ *   {@link CatalogDiff}.</li>
+ *   <li>Lines that were edited in place are matched up by {@link SequenceAligner}.</li>
+ *   <li>The rest are matched up with the most similar orphaned strings, looking either only at strings with unique
+ *   candidates, or at the best overall {@link AuctionAssignment assignment}.</li>
+ *   <li>Whatever is still left is marked as new.</li>
+ * </ol>
+ * Translations matched up with a different <code>msgid</code> get it as their previous <code>msgid</code>, so that
+ * translators can see what changed. A resolver only reads the catalogs it is given, so several of them can run at the
+ * same time, i.e. one per language sharing the same template.
+ * <p>
+ * The resolve window auto-resolves with {@link #match(Set, Set, Matcher)}, which runs the same steps except for the
+ * last one, with a {@link Matcher} of its own.
+ */
+public class UpdateResolver {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(UpdateResolver.class);
+
+  private static final int ASSIGNMENT_CANDIDATES_LIMIT = 10;
+
+  /**
+   * @param threshold The minimum similarity for two strings to be matched up
+   * @param approximate Whether to only compare strings that are likely to be similar according to a
+   *                    {@link MinHashIndex}, instead of comparing every pair. Only used without a custom
+   *                    {@link Matcher}.
+   * @param assign Whether to find the best overall assignment, instead of only matching up strings with one candidate
+   * @param sameFileOnly Whether to only match up strings that are in the same source file. Only used without a custom
+   *                     {@link Matcher}.
+   */
+  public record Options(float threshold,
+                        boolean approximate,
+                        boolean assign,
+                        boolean sameFileOnly) {
+
+    public static final Options DEFAULT = new Options(0.7F, false, true, true);
+
+  }
+
+  /**
+   * How every message of the updated catalog was resolved.
+   * @param unchanged Messages with the same key in both catalogs
+   * @param renamed Messages matched up by their <code>msgctxt</code> or <code>msgid</code>
+   * @param aligned Messages matched up by their position
+   * @param similar Messages matched up by similarity
+   * @param markedNew Messages that could not be matched up
+   * @param obsolete Translations that are no longer used
+   */
+  public record Report(int unchanged,
+                       int renamed,
+                       int aligned,
+                       int similar,
+                       int markedNew,
+                       int obsolete) {
+
+    @Override
+    public String toString() {
+      return "%d unchanged, %d renamed, %d aligned, %d similar, %d new, %d obsolete"
+          .formatted(unchanged, renamed, aligned, similar, markedNew, obsolete);
+    }
+
+  }
+
+  /**
+   * Decides which orphaned strings a problem string is compared to, and how similar two strings are. Is called from
+   * several threads at once.
+   */
+  public interface Matcher {
+
+    /**
+     * @return The orphaned strings worth comparing to a problem string. Strings that have been matched up already are
+     * skipped, so they do not need to be left out.
+     */
+    Collection<MessageKey> getCandidates(MessageKey problem);
+
+    /**
+     * Same as {@link StringUtil#getSimilarity(String, String, float)}.
+     */
+    float getSimilarity(String a, String b, float threshold);
+
+  }
+
+  /**
+   * What {@link #match(Set, Set, Matcher)} found.
+   * @param renamed Problem strings matched up by their <code>msgctxt</code> or <code>msgid</code>
+   * @param aligned Problem strings matched up by their position
+   * @param similar Problem strings matched up by similarity
+   * @param unmatched Problem strings that no orphaned string is similar enough to. Problem strings with several
+   *                  candidates that could not be matched up are in neither list.
+   */
+  public record Matches(List<ProblemResolution> renamed,
+                        List<ProblemResolution> aligned,
+                        List<ProblemResolution> similar,
+                        Set<MessageKey> unmatched) {
+  }
+
+  private final Catalog template;
+  private final Catalog translations;
+  private final Options options;
+  private final Map<MessageKey, ProblemResolution> resolutions;
+  private Catalog result;
+  private Report report;
+
+  public UpdateResolver(Catalog template, Catalog translations, Options options) {
+    this.template = template;
+    this.translations = translations;
+    this.options = options == null ? Options.DEFAULT : options;
+    resolutions = new HashMap<>();
+    result = null;
+    report = null;
+  }
+
+  private static void resolve(ProblemResolution resolution, List<ProblemResolution> resolved, Set<MessageKey> problems,
+                              Set<MessageKey> orphans) {
+    resolved.add(resolution);
+    problems.remove(resolution.templateKey());
+    if (resolution.langKey() != null) {
+      orphans.remove(resolution.langKey());
+    }
+  }
+
+  /**
+   * Match up problem strings with orphaned strings, without marking anything as new. Neither set is modified.
+   * @param problems Template strings that are not in the translations
+   * @param orphans Translated strings that are not in the template, and have not been matched up yet
+   * @param matcher Finds similar strings, or <code>null</code> to go by the options of this resolver
+   */
+  public Matches match(Set<MessageKey> problems, Set<MessageKey> orphans, Matcher matcher) {
+    problems = new LinkedHashSet<>(problems);
+    orphans = new LinkedHashSet<>(orphans);
+    List<ProblemResolution> renamed = new ArrayList<>();
+    for (CatalogDiff.Change change : CatalogDiff.compare(translations, template).modified()) {
+      if (problems.contains(change.newKey()) && orphans.contains(change.oldKey())) {
+        resolve(new ProblemResolution(change.newKey(), change.oldKey(), false), renamed, problems, orphans);
+      }
+    }
+    // lines that were edited in place can be found by aligning both catalogs, which is much cheaper than searching
+    List<ProblemResolution> aligned = new ArrayList<>();
+    for (ProblemResolution resolution : new SequenceAligner(template, translations).align(problems, orphans, 0.5F)) {
+      resolve(resolution, aligned, problems, orphans);
+    }
+    List<ProblemResolution> similar = new ArrayList<>();
+    Set<MessageKey> unmatched = new LinkedHashSet<>();
+    if (!problems.isEmpty()) {
+      resolveSimilar(problems, orphans, matcher == null ? createMatcher(orphans) : matcher, similar, unmatched);
+    }
+    return new Matches(renamed, aligned, similar, unmatched);
+  }
+
+  public void update() {
+    long start = System.currentTimeMillis();
+    Set<MessageKey> problems = new LinkedHashSet<>();
+    int unchanged = 0;
+    for (Message msg : template) {
+      MessageKey key = new MessageKey(msg);
+      if (translations.contains(key)) {
+        unchanged++;
+      } else {
+        problems.add(key);
+      }
+    }
+    Set<MessageKey> orphans = new LinkedHashSet<>();
+    for (Message msg : translations) {
+      MessageKey key = new MessageKey(msg);
+      if (!template.contains(key)) {
+        orphans.add(key);
+      }
+    }
+
+    Matches matches = match(problems, orphans, null);
+    for (List<ProblemResolution> resolved : List.of(matches.renamed(), matches.aligned(), matches.similar())) {
+      for (ProblemResolution resolution : resolved) {
+        resolutions.put(resolution.templateKey(), resolution);
+        problems.remove(resolution.templateKey());
+        orphans.remove(resolution.langKey());
+      }
+    }
+    int markedNew = problems.size();
+    problems.forEach(key -> resolutions.put(key, new ProblemResolution(key, null, true)));
+
+    result = merge(template, translations, resolutions);
+    report = new Report(unchanged, matches.renamed().size(), matches.aligned().size(), matches.similar().size(),
+        markedNew, orphans.size());
+    LOGGER.debug("Updated catalog in {} ms: {}", System.currentTimeMillis() - start, report);
+  }
+
+  private static Set<String> getFiles(Message msg) {
+    Set<String> files = new HashSet<>();
+    msg.getSourceReferences().forEach(ref -> files.add(SourceReference.parse(ref).file()));
+    return files;
+  }
+
+  // compares every pair, or only pairs in the same file, or only pairs the MinHash index deems likely to be similar
+  private Matcher createMatcher(Set<MessageKey> orphans) {
+    Map<String, List<MessageKey>> orphansByFile = new HashMap<>();
+    Map<MessageKey, Set<String>> orphanFiles = new HashMap<>();
+    MinHashIndex<MessageKey> index = options.approximate() ? new MinHashIndex<>() : null;
+    for (MessageKey key : orphans) {
+      Set<String> files = getFiles(translations.get(key));
+      orphanFiles.put(key, files);
+      files.forEach(file -> orphansByFile.computeIfAbsent(file, k -> new ArrayList<>()).add(key));
+      if (index != null) {
+        index.add(key, key.msgId());
+      }
+    }
+    List<MessageKey> orphanList = List.copyOf(orphans);
+    return new Matcher() {
+      @Override
+      public Collection<MessageKey> getCandidates(MessageKey problem) {
+        if (!options.sameFileOnly()) {
+          return index != null ? index.query(problem.msgId()) : orphanList;
+        }
+        Set<String> files = getFiles(template.get(problem));
+        if (index != null) {
+          return index.query(problem.msgId()).stream()
+              .filter(langKey -> !Collections.disjoint(files, orphanFiles.get(langKey)))
+              .toList();
+        }
+        Set<MessageKey> pool = new LinkedHashSet<>();
+        files.forEach(file -> pool.addAll(orphansByFile.getOrDefault(file, List.of())));
+        return pool;
+      }
+
+      @Override
+      public float getSimilarity(String a, String b, float threshold) {
+        return StringUtil.getSimilarity(a, b, threshold);
+      }
+    };
+  }
+
+  private void resolveSimilar(Set<MessageKey> problems, Set<MessageKey> orphans, Matcher matcher,
+                              List<ProblemResolution> resolved, Set<MessageKey> unmatched) {
+    List<MessageKey> problemList = List.copyOf(problems);
+    if (options.assign()) {
+      // nothing gets claimed until the very end, so every string can be looked at separately
+      Set<MessageKey> unclaimed = orphans;
+      List<List<SimilarMessage>> candidates = problemList.parallelStream()
+          .map(key -> findSimilar(key, unclaimed, matcher, ASSIGNMENT_CANDIDATES_LIMIT, false))
+          .toList();
+      List<MessageKey> langKeys = new ArrayList<>();
+      Map<MessageKey, Integer> langIndices = new HashMap<>();
+      candidates.forEach(similar -> similar.forEach(msg -> langIndices.computeIfAbsent(msg.key(), k -> {
+        langKeys.add(k);
+        return langKeys.size() - 1;
+      })));
+      AuctionAssignment assignment = new AuctionAssignment(problemList.size(), langKeys.size());
+      for (int i = 0; i < problemList.size(); i++) {
+        if (candidates.get(i).isEmpty()) {
+          unmatched.add(problemList.get(i));
+        }
+        for (SimilarMessage msg : candidates.get(i)) {
+          assignment.addEdge(i, langIndices.get(msg.key()), Math.round(msg.similarity() * 1000));
+        }
+      }
+      long start = System.currentTimeMillis();
+      int[] assigned = assignment.solve();
+      LOGGER.debug("Assigned {} strings with {} edges in {} ms", problemList.size(), assignment.getEdgeCount(),
+          System.currentTimeMillis() - start);
+      for (int i = 0; i < problemList.size(); i++) {
+        if (assigned[i] != -1) {
+          resolve(new ProblemResolution(problemList.get(i), langKeys.get(assigned[i]), false), resolved, problems, orphans);
+        }
+      }
+      return;
+    }
+    for (MessageKey key : problemList) {
+      // only need to know whether there is exactly one candidate, so stop as soon as a second one shows up
+      List<SimilarMessage> similar = findSimilar(key, orphans, matcher, 2, true);
+      if (similar.size() == 1) {
+        resolve(new ProblemResolution(key, similar.getFirst().key(), false), resolved, problems, orphans);
+      } else if (similar.isEmpty()) {
+        unmatched.add(key);
+      }
+    }
+  }
+
+  private List<SimilarMessage> findSimilar(MessageKey key, Set<MessageKey> orphans, Matcher matcher, int limit,
+                                           boolean stopWhenFull) {
+    SimilarMessageCollector collector = new SimilarMessageCollector(options.threshold(), limit);
+    for (MessageKey langKey : matcher.getCandidates(key)) {
+      if (!orphans.contains(langKey)) {
+        continue;
+      }
+      float similarity = matcher.getSimilarity(key.msgId(), langKey.msgId(), collector.getMinimumSimilarity());
+      if (similarity >= 0 && collector.add(langKey, similarity) && stopWhenFull && collector.isFull()) {
+        break;
+      }
+    }
+    return collector.toList();
+  }
+
+  public Map<MessageKey, ProblemResolution> getResolutions() {
+    return Collections.unmodifiableMap(resolutions);
+  }
+
+  /**
+   * @return The updated catalog, or <code>null</code> if {@link #update()} has not been called yet
+   */
+  public Catalog getResult() {
+    return result;
+  }
+
+  /**
+   * @return How the updated catalog came to be, or <code>null</code> if {@link #update()} has not been called yet
+   */
+  public Report getReport() {
+    return report;
+  }
+
+  /**
+   * Creates an updated version of a language catalog by applying resolutions to it.
+   * @param template The new template
+   * @param translations The language catalog, which must have been created from the same old template as the
+   *                     resolutions were made for
+   * @param resolutions How every template message that is not in the language catalog was resolved
+   * @return A new catalog that matches the template. Translations that are no longer used are marked obsolete.
+   */
+  public static Catalog merge(Catalog template, Catalog translations, Map<MessageKey, ProblemResolution> resolutions) {
+    Set<MessageKey> resolvedFrom = new HashSet<>();
+    resolutions.values().forEach(resolution -> {
+      if (resolution.langKey() != null) {
+        resolvedFrom.add(resolution.langKey());
+      }
+    });
+    List<Message> resultMessages = new ArrayList<>();
+    template.forEach(msg -> {
+      Message newMsg = new Message();
+      newMsg.getSourceReferences().addAll(msg.getSourceReferences());
+      newMsg.getExtractedComments().addAll(msg.getExtractedComments());
+      newMsg.setMsgContext(msg.getMsgContext());
+      newMsg.setMsgId(msg.getMsgId());
+      MessageKey key = new MessageKey(newMsg);
+      if (translations.contains(key)) {
+        newMsg.setMsgstr(translations.get(key).getMsgstr());
+        resultMessages.add(newMsg);
+      } else {
+        ProblemResolution resolution = resolutions.get(key);
+        if (resolution == null || resolution.markNew()) {
+          resultMessages.add(newMsg);
+        } else if (resolution.langKey() != null) {
+          Message langMsg = translations.get(resolution.langKey());
+          if (langMsg != null) {
+            newMsg.setMsgstr(langMsg.getMsgstr());
+            // add previous string if they don't match
+            if (!langMsg.getMsgId().equals(msg.getMsgId())) {
+              newMsg.setPrevMsgid(langMsg.getMsgId());
+            }
+          }
+          resultMessages.add(newMsg);
+        } else {
+          LOGGER.warn("Invalid resolution: {}", resolution);
+        }
+      }
+    });
+    List<Message> sortedMessages = SourceReferenceSort.sort(resultMessages);
+    resultMessages.clear();
+    resultMessages.addAll(sortedMessages);
+    // add obsolete translations
+    translations.forEach(msg -> {
+      MessageKey key = new MessageKey(msg);
+      if (!template.contains(key) && !resolvedFrom.contains(key)) {
+        Message newMsg = new Message();
+        newMsg.getSourceReferences().addAll(msg.getSourceReferences());
+        newMsg.getExtractedComments().addAll(msg.getExtractedComments());
+        newMsg.setMsgContext(msg.getMsgContext());
+        newMsg.setMsgId(msg.getMsgId());
+        newMsg.setMsgstr(msg.getMsgstr());
+        newMsg.markObsolete();
+        resultMessages.add(newMsg);
+      }
+    });
+    Catalog result = new Catalog();
+    // add header from translation file
+    if (translations.header() != null) {
+      result.add(translations.header().toMessage());
+    }
+    resultMessages.forEach(result::add);
+    return result;
+  }
+
+}
@@ -2,6 +2,7 @@ package me.whizvox.rpy2po.gui;
 
 import com.soberlemur.potentilla.MessageKey;
 import me.whizvox.rpy2po.core.Pair;
+import me.whizvox.rpy2po.core.TrigramIndex;
 
 import javax.swing.table.AbstractTableModel;
 import java.util.ArrayList;
@@ -10,16 +11,36 @@ import java.util.Objects;
 
 public class ProblemMessagesTableModel extends AbstractTableModel {
 
+  /**
+   * The rows that match a filter.
+   * @param filter The filter
+   * @param version The version of the rows that were searched. If rows were added or removed since then, the indices
+   *                are no longer valid.
+   * @param indices Indices of all matching rows, or <code>null</code> if every row matches
+   */
+  public record Matches(String filter,
+                        int version,
+                        int[] indices) {
+  }
+
   private List<Object[]> values;
   private final List<Object[]> allValues;
   private boolean showAll;
   private String filter;
+  private Matches matches;
+  private int version;
+  private TrigramIndex index;
+  private Matches lastMatches;
 
   public ProblemMessagesTableModel() {
     allValues = new ArrayList<>();
     values = allValues;
     showAll = true;
     filter = null;
+    matches = null;
+    version = 0;
+    index = null;
+    lastMatches = null;
   }
 
   @Override
@@ -79,21 +100,28 @@ public class ProblemMessagesTableModel extends AbstractTableModel {
   }
 
   public void clear() {
-    values.clear();
-    if (!showAll) {
-      allValues.clear();
+    // findMatches reads all rows from other threads
+    synchronized (this) {
+      values.clear();
+      if (!showAll) {
+        allValues.clear();
+      }
+      invalidateIndex();
     }
   }
 
   public void addValue(boolean resolved, MessageKey key) {
     var value = new Object[] {resolved, key};
-    if (showAll) {
-      values.add(value);
-    } else {
-      allValues.add(value);
-      if (!resolved) {
+    synchronized (this) {
+      if (showAll) {
         values.add(value);
+      } else {
+        allValues.add(value);
+        if (!resolved) {
+          values.add(value);
+        }
       }
+      invalidateIndex();
     }
   }
 
@@ -102,16 +130,74 @@ public class ProblemMessagesTableModel extends AbstractTableModel {
     values.forEach(pair -> addValue(pair.left(), pair.right()));
   }
 
+  private synchronized void invalidateIndex() {
+    version++;
+    index = null;
+    lastMatches = null;
+  }
+
+  /**
+   * Find the rows that match a filter, without changing what this model shows. This can be called from any thread.
+   * <p>
+   * Rows are looked up in a {@link TrigramIndex}, which is built the first time this is called. If the filter only
+   * grew since the last call, only the rows that matched last time are checked.
+   */
+  public Matches findMatches(String filter) {
+    TrigramIndex index;
+    Matches lastMatches;
+    int version;
+    List<String> strings = null;
+    synchronized (this) {
+      index = this.index;
+      lastMatches = this.lastMatches;
+      version = this.version;
+      if (filter == null || filter.isBlank()) {
+        return new Matches(null, version, null);
+      }
+      if (index == null) {
+        strings = new ArrayList<>(allValues.size());
+        for (Object[] value : allValues) {
+          strings.add(((MessageKey) value[1]).msgId());
+        }
+      }
+    }
+    // the index is built without holding the lock, so that rows can still be added in the meantime
+    if (index == null) {
+      index = new TrigramIndex(strings);
+    }
+    int[] indices;
+    if (lastMatches != null && filter.toLowerCase().contains(lastMatches.filter().toLowerCase())) {
+      indices = index.search(filter, lastMatches.indices());
+    } else {
+      indices = index.search(filter);
+    }
+    Matches matches = new Matches(filter, version, indices);
+    synchronized (this) {
+      // only keep what is still up to date
+      if (this.version == version) {
+        this.index = index;
+        this.lastMatches = matches;
+      }
+    }
+    return matches;
+  }
+
   private void updateRows() {
+    if (filter != null && (matches == null || matches.version() != version || !filter.equals(matches.filter()))) {
+      matches = findMatches(filter);
+    }
     if (showAll && filter == null) {
       values = allValues;
+    } else if (filter == null) {
+      values = new ArrayList<>(allValues.stream().filter(pair -> !(boolean) pair[0]).toList());
     } else {
-      String filterLc = filter == null ? null : filter.toLowerCase();
-      values = new ArrayList<>(allValues.stream().filter(pair -> {
-        boolean c1 = showAll || !(boolean) pair[0];
-        boolean c2 = filter == null || ((MessageKey) pair[1]).msgId().toLowerCase().contains(filterLc);
-        return c1 && c2;
-      }).toList());
+      values = new ArrayList<>(matches.indices().length);
+      for (int i : matches.indices()) {
+        Object[] pair = allValues.get(i);
+        if (showAll || !(boolean) pair[0]) {
+          values.add(pair);
+        }
+      }
     }
   }
 
@@ -123,11 +209,18 @@ public class ProblemMessagesTableModel extends AbstractTableModel {
   }
 
   public void setFilter(String filter) {
-    if (filter.isBlank()) {
-      filter = null;
-    }
+    setFilter(findMatches(filter));
+  }
+
+  /**
+   * Show the rows found by {@link #findMatches(String)}. If rows were added or removed since then, the filter is applied
+   * again.
+   */
+  public void setFilter(Matches matches) {
+    String filter = matches.filter();
     if (!Objects.equals(this.filter, filter)) {
       this.filter = filter;
+      this.matches = matches;
       updateRows();
     }
   }
@@ -8,7 +8,9 @@ import me.whizvox.rpy2po.core.json.EpochSecondLocalDateTimeDeserializer;
 import me.whizvox.rpy2po.core.json.EpochSecondLocalDateTimeSerializer;
 import me.whizvox.rpy2po.core.json.SimplePathJsonDeserializer;
 import me.whizvox.rpy2po.core.json.SimplePathJsonSerializer;
+import me.whizvox.rpy2po.gettext.CatalogCache;
 import me.whizvox.rpy2po.gui.form.SelectProfile;
+import me.whizvox.rpy2po.gui.task.TaskScheduler;
 import me.whizvox.rpy2po.rpytl.CharacterNames;
 import me.whizvox.rpy2po.rpytl.Statements;
 import me.whizvox.rpy2po.rpytl.json.CharacterNamesCodec;
@@ -38,6 +40,8 @@ public class RPY2PO {
 
   private final Path workingDir;
   private final ObjectMapper mapper;
+  private final CatalogCache catalogCache;
+  private final TaskScheduler taskScheduler;
   private JFrame frame;
 
   public RPY2PO(Path workingDir) {
@@ -48,7 +52,17 @@ public class RPY2PO {
     } catch (IOException e) {
       LOGGER.warn("Could not create profiles directory: {}", profilesDir, e);
     }
-    mapper = new ObjectMapper();
+    mapper = createMapper();
+    catalogCache = new CatalogCache();
+    taskScheduler = new TaskScheduler();
+    frame = null;
+  }
+
+  /**
+   * Creates a mapper that can read and write profiles and statements files.
+   */
+  public static ObjectMapper createMapper() {
+    ObjectMapper mapper = new ObjectMapper();
     SimpleModule module = new SimpleModule();
     module.addSerializer(CharacterNames.class, CharacterNamesCodec.SERIALIZER);
     module.addDeserializer(CharacterNames.class, CharacterNamesCodec.DESERIALIZER);
@@ -59,7 +73,7 @@ public class RPY2PO {
     module.addSerializer(LocalDateTime.class, new EpochSecondLocalDateTimeSerializer());
     module.addDeserializer(LocalDateTime.class, new EpochSecondLocalDateTimeDeserializer());
     mapper.registerModule(module);
-    frame = null;
+    return mapper;
   }
 
   private List<String> loadProfiles() {
@@ -87,6 +101,14 @@ public class RPY2PO {
     return mapper;
   }
 
+  public CatalogCache getCatalogCache() {
+    return catalogCache;
+  }
+
+  public TaskScheduler getTaskScheduler() {
+    return taskScheduler;
+  }
+
   public void writeJson(Path outputPath, Object value) throws IOException {
     try (OutputStream out = Files.newOutputStream(outputPath)) {
       mapper.writerWithDefaultPrettyPrinter().writeValue(out, value);
@@ -0,0 +1,79 @@
+package me.whizvox.rpy2po.gui;
+
+import com.soberlemur.potentilla.MessageKey;
+import me.whizvox.rpy2po.core.SimilarMessage;
+
+import javax.swing.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Searches for similar strings of problem strings the user has not gotten to yet, on low priority background threads.
+ * Only the latest batch of keys is searched: starting a new batch cancels whatever is left of the previous one, and
+ * results of cancelled searches are dropped. All methods must be called from the EDT, and results are handed back on
+ * the EDT as well.
+ */
+public class SimilarStringsPrefetcher {
+
+  private final ExecutorService executor;
+  private final List<Future<?>> tasks;
+  private int generation;
+
+  public SimilarStringsPrefetcher(int threads) {
+    executor = Executors.newFixedThreadPool(threads, r -> {
+      Thread thread = new Thread(r, "Similar Strings Prefetcher");
+      thread.setDaemon(true);
+      thread.setPriority(Thread.MIN_PRIORITY);
+      return thread;
+    });
+    tasks = new ArrayList<>();
+    generation = 0;
+  }
+
+  public SimilarStringsPrefetcher() {
+    this(Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+  }
+
+  /**
+   * Search for similar strings of several keys, starting with the first one.
+   * @param keys The keys to search for
+   * @param search Finds the similar strings of a key. Is called from background threads, so it must only read data
+   *               that nothing else modifies in the meantime.
+   * @param callback Receives the similar strings of each key once they are found, unless this batch has been cancelled
+   *                 by then
+   */
+  public void prefetch(List<MessageKey> keys, Function<MessageKey, List<SimilarMessage>> search,
+                       BiConsumer<MessageKey, List<SimilarMessage>> callback) {
+    cancel();
+    int gen = generation;
+    for (MessageKey key : keys) {
+      tasks.add(executor.submit(() -> {
+        List<SimilarMessage> similar = search.apply(key);
+        if (!Thread.currentThread().isInterrupted()) {
+          SwingUtilities.invokeLater(() -> {
+            if (gen == generation) {
+              callback.accept(key, similar);
+            }
+          });
+        }
+      }));
+    }
+  }
+
+  public void cancel() {
+    generation++;
+    tasks.forEach(task -> task.cancel(true));
+    tasks.clear();
+  }
+
+  public void shutdown() {
+    cancel();
+    executor.shutdownNow();
+  }
+
+}
@@ -5,7 +5,9 @@ import me.whizvox.rpy2po.core.SimilarMessage;
 
 import javax.swing.table.AbstractTableModel;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 public class SimilarStringsTableModel extends AbstractTableModel {
 
@@ -60,4 +62,32 @@ public class SimilarStringsTableModel extends AbstractTableModel {
     values.add(new SimilarMessage(key, similarity));
   }
 
+  /**
+   * Replace all values, only firing events for the rows that were actually removed or inserted, so that the selection
+   * stays on the same row. Meant for showing the results of a search as it goes, where each list is sorted the same
+   * way as the last, and rows kept from the last list stay in the same order.
+   */
+  public void update(List<SimilarMessage> newValues) {
+    Set<SimilarMessage> kept = new HashSet<>(newValues);
+    for (int i = values.size() - 1; i >= 0; i--) {
+      if (!kept.contains(values.get(i))) {
+        values.remove(i);
+        fireTableRowsDeleted(i, i);
+      }
+    }
+    int row = 0;
+    for (SimilarMessage value : newValues) {
+      if (row >= values.size() || !values.get(row).equals(value)) {
+        values.add(row, value);
+        fireTableRowsInserted(row, row);
+      }
+      row++;
+    }
+    // rows were in a different order after all
+    if (values.size() != newValues.size()) {
+      setValues(newValues);
+      fireTableDataChanged();
+    }
+  }
+
 }
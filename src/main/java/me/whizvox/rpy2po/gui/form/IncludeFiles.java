@@ -6,6 +6,8 @@ import com.intellij.uiDesigner.core.Spacer;
 import me.whizvox.rpy2po.core.Profile;
 import me.whizvox.rpy2po.gui.GuiUtils;
 import me.whizvox.rpy2po.gui.RPY2PO;
+import me.whizvox.rpy2po.gui.task.TaskHandle;
+import me.whizvox.rpy2po.gui.task.TaskScheduler;
 import me.whizvox.rpy2po.rpytl.RenPyUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -37,9 +39,11 @@ public class IncludeFiles extends JFrame {
   private final DefaultListModel<String> includedModel;
   private final DefaultListModel<String> excludedModel;
   private final Profile profile;
+  private TaskHandle scanTask;
 
   public IncludeFiles(Profile profile) {
     this.profile = profile;
+    scanTask = null;
     includedModel = new DefaultListModel<>();
     excludedModel = new DefaultListModel<>();
     listIncluded.setModel(includedModel);
@@ -115,52 +119,71 @@ public class IncludeFiles extends JFrame {
     profile.getExcludedFiles().stream().sorted().forEach(excludedModel::addElement);
   }
 
-  private List<Path> findNewFiles() {
-    try {
-      List<Path> detected = new ArrayList<>(RenPyUtil.scanForTranslationFiles(profile.getRenPyProjectDirectory(), profile.getPrimaryLanguage()));
-      List<String> missing = new ArrayList<>();
-      Stream.concat(profile.getIncludedFiles().stream(), profile.getExcludedFiles().stream()).forEach(file -> {
-        Path path = profile.getTranslationDirectory(profile.getPrimaryLanguage()).resolve(file);
-        if (!detected.remove(path)) {
-          missing.add(file);
-        }
-      });
-      if (!missing.isEmpty()) {
-        LOGGER.debug("Found {} missing file(s): {}", missing.size(), missing);
-        List<String> newIncluded = new ArrayList<>(profile.getIncludedFiles());
-        newIncluded.removeIf(missing::contains);
-        List<String> newExcluded = new ArrayList<>(profile.getExcludedFiles());
-        newExcluded.removeIf(missing::contains);
-        profile.setIncludedFiles(newIncluded);
-        profile.setExcludedFiles(newExcluded);
-        LOGGER.info("Updated profile {} ({}) to remove missing files", profile.getName(), profile.getBaseDirectory());
+  /**
+   * Drop files from the profile that no longer exist.
+   * @param detected All translation files that currently exist
+   * @return All files that are not in the profile yet
+   */
+  private List<Path> findNewFiles(List<Path> detected) {
+    List<Path> newFiles = new ArrayList<>(detected);
+    List<String> missing = new ArrayList<>();
+    Stream.concat(profile.getIncludedFiles().stream(), profile.getExcludedFiles().stream()).forEach(file -> {
+      Path path = profile.getTranslationDirectory(profile.getPrimaryLanguage()).resolve(file);
+      if (!newFiles.remove(path)) {
+        missing.add(file);
       }
-      return detected;
-    } catch (IOException e) {
-      LOGGER.error("Could not scan for translation files in {}", profile.getTranslationDirectory(profile.getPrimaryLanguage()), e);
-      GuiUtils.showErrorMessage(this, "Could not scan for files", e);
+    });
+    if (!missing.isEmpty()) {
+      LOGGER.debug("Found {} missing file(s): {}", missing.size(), missing);
+      List<String> newIncluded = new ArrayList<>(profile.getIncludedFiles());
+      newIncluded.removeIf(missing::contains);
+      List<String> newExcluded = new ArrayList<>(profile.getExcludedFiles());
+      newExcluded.removeIf(missing::contains);
+      profile.setIncludedFiles(newIncluded);
+      profile.setExcludedFiles(newExcluded);
+      LOGGER.info("Updated profile {} ({}) to remove missing files", profile.getName(), profile.getBaseDirectory());
     }
-    return List.of();
+    return newFiles;
   }
 
   private void scanFiles() {
     buttonScan.setText(this.$$$getMessageFromBundle$$$("strings", "button.scanFiles.scanning"));
     enableButtons(false);
-    List<Path> files = findNewFiles();
-    if (files.isEmpty()) {
-      LOGGER.info("Finished rescanning project at <{}>, found no new files", profile.getRenPyProjectDirectory());
-    } else {
-      Path tlDir = profile.getTranslationDirectory(profile.getPrimaryLanguage());
-      List<String> newIncluded = new ArrayList<>(profile.getIncludedFiles());
-      files.forEach(path -> newIncluded.add(tlDir.relativize(path).normalize().toString()));
-      profile.setIncludedFiles(newIncluded);
+    scanTask = RPY2PO.inst().getTaskScheduler().submit("Scanning for translation files", TaskScheduler.Kind.IO,
+        ctx -> RenPyUtil.scanForTranslationFiles(profile.getRenPyProjectDirectory(), profile.getPrimaryLanguage()), detected -> {
+      List<Path> files = findNewFiles(detected);
+      if (files.isEmpty()) {
+        LOGGER.info("Finished rescanning project at <{}>, found no new files", profile.getRenPyProjectDirectory());
+      } else {
+        Path tlDir = profile.getTranslationDirectory(profile.getPrimaryLanguage());
+        List<String> newIncluded = new ArrayList<>(profile.getIncludedFiles());
+        files.forEach(path -> newIncluded.add(tlDir.relativize(path).normalize().toString()));
+        profile.setIncludedFiles(newIncluded);
+        LOGGER.info("Finished rescanning project at <{}> found {} new file(s): {}", profile.getRenPyProjectDirectory(), files.size(), files);
+      }
       updateLists();
-      LOGGER.info("Finished rescanning project at <{}> found {} new file(s): {}", profile.getRenPyProjectDirectory(), files.size(), files);
-    }
+      finishScan();
+    }, e -> {
+      LOGGER.error("Could not scan for translation files in {}", profile.getTranslationDirectory(profile.getPrimaryLanguage()), e);
+      GuiUtils.showErrorMessage(this, "Could not scan for files", e);
+      finishScan();
+    });
+  }
+
+  private void finishScan() {
     enableButtons(true);
     buttonScan.setText(this.$$$getMessageFromBundle$$$("strings", "button.scanFiles"));
   }
 
+  @Override
+  public void dispose() {
+    if (scanTask != null) {
+      scanTask.cancel();
+    }
+    super.dispose();
+  }
+
+
   {
 // GUI initializer generated by IntelliJ IDEA GUI Designer
 // >>> IMPORTANT!! <<<
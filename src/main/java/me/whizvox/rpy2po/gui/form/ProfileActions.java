@@ -3,11 +3,15 @@ package me.whizvox.rpy2po.gui.form;
 import com.intellij.uiDesigner.core.GridConstraints;
 import com.intellij.uiDesigner.core.GridLayoutManager;
 import com.intellij.uiDesigner.core.Spacer;
-import com.soberlemur.potentilla.Catalog;
-import com.soberlemur.potentilla.PoWriter;
 import me.whizvox.rpy2po.core.FileUtils;
 import me.whizvox.rpy2po.core.Profile;
+import me.whizvox.rpy2po.core.ProfileTasks;
+import me.whizvox.rpy2po.core.TemplateWatcher;
+import me.whizvox.rpy2po.gettext.CatalogDiff;
 import me.whizvox.rpy2po.gui.*;
+import me.whizvox.rpy2po.gui.task.TaskHandle;
+import me.whizvox.rpy2po.gui.task.TaskProgress;
+import me.whizvox.rpy2po.gui.task.TaskScheduler;
 import me.whizvox.rpy2po.rpytl.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -18,12 +22,14 @@ import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
 import java.lang.reflect.Method;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 public class ProfileActions extends JFrame {
@@ -42,17 +48,27 @@ public class ProfileActions extends JFrame {
   private JButton buttonSaveSettings;
   private JButton buttonImport;
   private JTextArea textAreaFeedback;
+  private JCheckBox checkBoxWatch;
 
   private final Profile profile;
+  private final ProfileTasks tasks;
+  private final Consumer<TaskProgress> progressListener;
+  private TaskHandle task;
+  private TemplateWatcher watcher;
 
   public ProfileActions(Profile profile) {
     this.profile = profile;
+    tasks = new ProfileTasks(profile, RPY2PO.inst().getMapper(), RPY2PO.inst().getCatalogCache());
+    progressListener = this::showProgress;
+    task = null;
+    watcher = null;
+    RPY2PO.inst().getTaskScheduler().getProgressBus().addListener(progressListener);
     setContentPane(contentPane);
     buttonSaveSettings.setEnabled(false);
     textFieldOutLangs.setText(String.join(", ", profile.getOutputLanguages()));
     textAreaFeedback.setCaret(new EmptyCaret());
 
-    buttonGenTemplate.addActionListener(e -> generateTemplate());
+    buttonGenTemplate.addActionListener(e -> generateTemplate(null));
     buttonGenTemplate.addMouseListener(new UpdateOnMouseEnteredListener(textAreaFeedback, "Read the project's " + profile.getPrimaryLanguage() + " Ren'Py translation (.rpy) files to generate a template (.pot) file."));
     buttonCreateTranslations.addActionListener(e -> generateCatalogs());
     buttonCreateTranslations.addMouseListener(new UpdateOnMouseEnteredListener(textAreaFeedback, "Copy the template (.pot) file to generate all missing language (.po) files."));
@@ -84,10 +100,12 @@ public class ProfileActions extends JFrame {
     buttonNames.addMouseListener(new UpdateOnMouseEnteredListener(textAreaFeedback, "Character names that appear when generating language (.po) files to assist translators."));
     buttonFiles.addActionListener(e -> RPY2PO.inst().setFrame(() -> new IncludeFiles(profile), "Set Files", null));
     buttonFiles.addMouseListener(new UpdateOnMouseEnteredListener(textAreaFeedback, "Specify which Ren'Py (.rpy) files to include and exclude in the template (.pot) and language (.po) files."));
+    checkBoxWatch.addActionListener(e -> setWatching(checkBoxWatch.isSelected()));
+    checkBoxWatch.addMouseListener(new UpdateOnMouseEnteredListener(textAreaFeedback, "Regenerate the template (.pot) file whenever the project's " + profile.getPrimaryLanguage() + " Ren'Py translation (.rpy) files change, i.e. after generating translations in Ren'Py."));
   }
 
   private void enableActions(boolean enable, boolean includeSettings) {
-    buttonGenTemplate.setEnabled(enable);
+    buttonGenTemplate.setEnabled(enable && watcher == null);
     buttonCreateTranslations.setEnabled(enable);
     buttonExport.setEnabled(enable);
     buttonUpdate.setEnabled(enable);
@@ -98,25 +116,47 @@ public class ProfileActions extends JFrame {
     }
   }
 
-  private void generateTemplate() {
+  /**
+   * Ask whether the template should be generated, then generate it in the background.
+   * @param onGenerated Called on the EDT once the template has been generated. Can be <code>null</code>.
+   */
+  private void generateTemplate(Runnable onGenerated) {
+    if (refuseWhileWatching()) {
+      return;
+    }
     Path tlDir = profile.getTranslationDirectory(profile.getPrimaryLanguage());
-    boolean showInstructions = true;
     if (Files.exists(tlDir)) {
       int answer = JOptionPane.showConfirmDialog(this, "Do you want to delete the old translation files and generate new ones?\nWill delete directory at " + tlDir, "Question", JOptionPane.YES_NO_CANCEL_OPTION, JOptionPane.QUESTION_MESSAGE);
       if (answer == JOptionPane.YES_OPTION) {
-        try {
+        enableActions(false, true);
+        task = RPY2PO.inst().getTaskScheduler().submit("Deleting translation files", TaskScheduler.Kind.IO, false, ctx -> {
           FileUtils.deleteDirectory(tlDir);
+          return null;
+        }, result -> {
+          enableActions(true, true);
           JOptionPane.showMessageDialog(this, "Translation files have been deleted.");
-        } catch (IOException e) {
+          generateTemplate(true, onGenerated);
+        }, e -> {
+          enableActions(true, true);
           LOGGER.error("Could not delete translation files at {}", tlDir, e);
           GuiUtils.showErrorMessage(this, "Could not delete translation files", e);
-          return;
-        }
+        });
       } else if (answer == JOptionPane.NO_OPTION) {
-        showInstructions = false;
-      } else {
-        return;
+        generateTemplate(false, onGenerated);
       }
+    } else {
+      generateTemplate(true, onGenerated);
+    }
+  }
+
+  /**
+   * Generate the template once the old translation files have been dealt with.
+   * @param showInstructions Whether to explain how to generate the translation files in Ren'Py first
+   */
+  private void generateTemplate(boolean showInstructions, Runnable onGenerated) {
+    // watch mode can be turned on while the old translation files are being deleted
+    if (refuseWhileWatching()) {
+      return;
     }
     if (showInstructions) {
       int answer = PrepTemplateDialog.prompt(this, profile.getPrimaryLanguage());
@@ -140,41 +180,36 @@ public class ProfileActions extends JFrame {
       JOptionPane.showMessageDialog(this, "No translation files have been found", "Warning!", JOptionPane.WARNING_MESSAGE);
       return;
     }
-    RPY2POConverter converter = new RPY2POConverter(profile.getPrimaryLanguage(), files, profile.getNames(), null, CommentGenerator.SPEAKING);
-    try {
-      enableActions(false, true);
-      var result = converter.convert();
-      if (!result.missingNames().isEmpty()) {
-        LOGGER.info("Found {} missing name(s): {}", result.missingNames().size(), result.missingNames());
-        Map<String, String> newNamesMap = new HashMap<>(profile.getNames().names());
-        result.missingNames().forEach(name -> newNamesMap.put(name, ""));
-        profile.setNames(new CharacterNames(newNamesMap, profile.getNames().narrator(), profile.getNames().speakFormat()));
-        try {
-          RPY2PO.inst().writeJson(profile.getFile(), profile);
-          LOGGER.info("Updated profile to account for missing names: {}", profile.getFile());
-        } catch (IOException e) {
-          LOGGER.error("Could not update profile: {}", profile.getFile(), e);
-        }
-      }
-      if (!result.mismatchedFormats().isEmpty()) {
-        LOGGER.info("Found {} mismatched formats: {}", result.mismatchedFormats().size(), result.mismatchedFormats());
+    enableActions(false, true);
+    task = RPY2PO.inst().getTaskScheduler().submit("Generating template", TaskScheduler.Kind.CPU, false, ctx -> {
+      ctx.message("Reading " + files.size() + " translation file(s)");
+      return tasks.generateTemplate(files);
+    }, result -> {
+      enableActions(true, true);
+      tasks.addMissingNames(result.result().missingNames());
+      String changes = "";
+      if (result.changes() != null) {
+        CatalogDiff.Result diff = result.changes();
+        changes = "\nSince the last template: %d added, %d removed, %d modified.".formatted(diff.added().size(), diff.removed().size(), diff.modified().size());
       }
-      Path statementsPath = profile.getStatementsFile();
-      LOGGER.info("Saving statements file {}", statementsPath);
-      RPY2PO.inst().writeJson(statementsPath, result.statements());
-      Path tempFile = profile.getTemplateFile();
-      PoWriter poWriter = new PoWriter();
-      try (OutputStream out = Files.newOutputStream(tempFile)) {
-        LOGGER.info("Writing catalog file {}", tempFile);
-        poWriter.write(result.catalog(), out);
+      JOptionPane.showMessageDialog(this, "Successfully generated " + profile.getTemplateFile().getFileName() + " and " + profile.getStatementsFile().getFileName() + "." + changes);
+      if (onGenerated != null) {
+        onGenerated.run();
       }
-      JOptionPane.showMessageDialog(this, "Successfully generated " + tempFile.getFileName() + " and " + statementsPath.getFileName() + ".");
-    } catch (IOException e) {
+    }, e -> {
+      enableActions(true, true);
       LOGGER.error("Could not generate template for profile {} ({})", profile.getName(), profile.getBaseDirectory(), e);
       JOptionPane.showMessageDialog(this, "Could not generate template\n" + e.getClass() + ": " + e.getMessage(), "Error!", JOptionPane.ERROR_MESSAGE);
-    } finally {
-      enableActions(true, true);
+    });
+  }
+
+  private boolean refuseWhileWatching() {
+    if (watcher != null) {
+      // the watcher is the only one writing the template while it runs, and would not survive its files being deleted
+      JOptionPane.showMessageDialog(this, "The template is regenerated automatically while watching for changes.\nStop watching to generate it by hand.");
+      return true;
     }
+    return false;
   }
 
   private void generateCatalogs() {
@@ -182,68 +217,96 @@ public class ProfileActions extends JFrame {
     if (!Files.exists(potPath)) {
       int answer = JOptionPane.showConfirmDialog(this, "A template file must be generated first. Would you like to do that now?");
       if (answer == JOptionPane.YES_OPTION) {
-        generateTemplate();
+        generateTemplate(null);
       }
       return;
     }
-    List<Path> missing = new ArrayList<>();
-    profile.getOutputLanguages().forEach(lang -> {
-      Path path = profile.getLanguageFile(lang);
-      if (!Files.exists(path)) {
-        missing.add(path);
-      }
-    });
+    List<String> missing = profile.getOutputLanguages().stream()
+        .filter(lang -> !Files.exists(profile.getLanguageFile(lang)))
+        .toList();
     if (missing.isEmpty()) {
       JOptionPane.showMessageDialog(this, "There are no PO files to generate.");
-    } else {
+      return;
+    }
+    enableActions(false, true);
+    task = RPY2PO.inst().getTaskScheduler().submit("Generating PO files", TaskScheduler.Kind.IO, false, ctx -> {
       List<Map.Entry<String, Exception>> exceptions = new ArrayList<>();
-      missing.forEach(path -> {
+      for (int i = 0; i < missing.size(); i++) {
+        ctx.checkCancelled();
+        String lang = missing.get(i);
+        ctx.progress(i, missing.size(), lang);
+        Path path = profile.getLanguageFile(lang);
         try {
-          Files.copy(potPath, path);
-          LOGGER.info("Copied <{}> to <{}>", potPath, path);
+          tasks.createCatalog(lang);
         } catch (IOException e) {
           LOGGER.error("Could not copy <{}> to <{}>", potPath, path, e);
           exceptions.add(Map.entry(path.getFileName().toString(), e));
         }
-      });
+      }
+      return exceptions;
+    }, exceptions -> {
+      enableActions(true, true);
       if (!exceptions.isEmpty()) {
         JOptionPane.showMessageDialog(this, "Could not generate all PO files!\n" + exceptions.stream().map(e -> "(" + e.getKey() + ") " + e.getValue().getClass() + ": " + e.getValue().getMessage()).collect(Collectors.joining("\n")), "Error!", JOptionPane.ERROR_MESSAGE);
       }
-      JOptionPane.showMessageDialog(this, "Generated PO files: " + missing.stream().map(path -> path.getFileName().toString()).collect(Collectors.joining(", ")));
-    }
+      JOptionPane.showMessageDialog(this, "Generated PO files: " + missing.stream().map(lang -> profile.getLanguageFile(lang).getFileName().toString()).collect(Collectors.joining(", ")));
+    }, e -> enableActions(true, true));
   }
 
   private void importFiles() {
-    List<String> langs = SelectLanguagesDialog.prompt(this, profile, "Which languages do you want to import?", "Import");
-    for (String lang : langs) {
+    List<String> langs = new ArrayList<>();
+    for (String lang : SelectLanguagesDialog.prompt(this, profile, "Which languages do you want to import?", "Import")) {
       Path path = profile.getLanguageFile(lang);
-      try {
-        if (Files.exists(path)) {
-          int answer = GuiUtils.askYesNoOption(this, "Do you want to overwrite " + path.getFileName() + "?");
-          if (answer == JOptionPane.YES_OPTION) {
-            Files.deleteIfExists(path);
-          }
-        }
-        RPY2POConverter converter = new RPY2POConverter(lang, profile.getTranslationFiles(lang), profile.getNames(), null, CommentGenerator.SPEAKING);
-        var result = converter.convert();
-        Catalog catalog = result.catalog();
-        Files.createDirectories(path.getParent());
-        new PoWriter().write(catalog, path.toFile());
-        JOptionPane.showMessageDialog(this, "Successfully created " + path.getFileName());
-      } catch (IOException e) {
-        LOGGER.error("Could not convert {}", lang, e);
-        GuiUtils.showErrorMessage(this, "Could not convert " + lang, e);
+      if (!Files.exists(path) || GuiUtils.askYesNoOption(this, "Do you want to overwrite " + path.getFileName() + "?") == JOptionPane.YES_OPTION) {
+        langs.add(lang);
       }
     }
+    if (langs.isEmpty()) {
+      return;
+    }
+    enableActions(false, true);
+    task = RPY2PO.inst().getTaskScheduler().submit("Importing translations", TaskScheduler.Kind.CPU, false, ctx -> {
+      Map<String, Exception> exceptions = new LinkedHashMap<>();
+      for (int i = 0; i < langs.size(); i++) {
+        ctx.checkCancelled();
+        String lang = langs.get(i);
+        ctx.progress(i, langs.size(), lang);
+        try {
+          tasks.importLanguage(lang);
+        } catch (IOException e) {
+          LOGGER.error("Could not convert {}", lang, e);
+          exceptions.put(lang, e);
+        }
+      }
+      return exceptions;
+    }, exceptions -> {
+      enableActions(true, true);
+      List<String> created = langs.stream()
+          .filter(lang -> !exceptions.containsKey(lang))
+          .map(lang -> profile.getLanguageFile(lang).getFileName().toString())
+          .toList();
+      if (!created.isEmpty()) {
+        JOptionPane.showMessageDialog(this, "Successfully created " + String.join(", ", created));
+      }
+      exceptions.forEach((lang, e) -> GuiUtils.showErrorMessage(this, "Could not convert " + lang, e));
+    }, e -> enableActions(true, true));
   }
 
   private void updateFiles() {
+    if (watcher != null) {
+      // already up-to-date
+      resolveProblems();
+      return;
+    }
     int answer = JOptionPane.showConfirmDialog(this, "It is highly recommended that you have an up-to-date template file before doing this. Do you want to update it now?", null, JOptionPane.YES_NO_CANCEL_OPTION);
     if (answer == JOptionPane.YES_OPTION) {
-      generateTemplate();
-    } else if (answer == JOptionPane.CANCEL_OPTION) {
-      return;
+      generateTemplate(this::resolveProblems);
+    } else if (answer == JOptionPane.NO_OPTION) {
+      resolveProblems();
     }
+  }
+
+  private void resolveProblems() {
     Path templatePath = profile.getTemplateFile();
     if (!Files.exists(templatePath)) {
       JOptionPane.showMessageDialog(this, "Missing template file.");
@@ -272,61 +335,136 @@ public class ProfileActions extends JFrame {
     } else {
       return;
     }
-    Statements statements;
-    Path stmtsPath = profile.getStatementsFile();
-    try {
-      statements = RPY2PO.inst().getMapper().readValue(stmtsPath.toFile(), Statements.class);
-    } catch (IOException e) {
-      LOGGER.error("Could not read statements file at {}", stmtsPath);
-      GuiUtils.showErrorMessage(this, "Could not read statements file.", e);
-      return;
-    }
-    langs.forEach(lang -> {
+    List<String> exported = new ArrayList<>();
+    Set<String> deleteOld = new HashSet<>();
+    for (String lang : langs) {
       Path poPath = profile.getLanguageFile(lang);
       if (!Files.exists(poPath)) {
         JOptionPane.showMessageDialog(this, "Could not find file " + poPath.getFileName() + "!", "Warning", JOptionPane.WARNING_MESSAGE);
-        return;
+        continue;
       }
-      Path tlDir;
-      if (stage) {
-        tlDir = profile.getStagedLanguageDirectory(lang);
-      } else {
-        tlDir = profile.getTranslationDirectory(lang);
+      exported.add(lang);
+      if (!stage && Files.exists(profile.getTranslationDirectory(lang))
+          && GuiUtils.askYesNoOption(this, "Do you want to delete the old " + lang + " translations?") == JOptionPane.YES_OPTION) {
+        deleteOld.add(lang);
       }
-      if (Files.exists(tlDir)) {
-        int answer;
-        if (stage) {
-          answer = JOptionPane.YES_OPTION;
-        } else {
-          answer = GuiUtils.askYesNoOption(this, "Do you want to delete the old " + lang + " translations?");
-        }
-        if (answer == JOptionPane.YES_OPTION) {
-          try {
-            FileUtils.deleteDirectory(tlDir);
-          } catch (IOException e) {
-            LOGGER.error("Could not delete translations from {}", tlDir, e);
-            GuiUtils.showErrorMessage(this, "Could not delete " + lang + " translations.", e);
-            return;
+    }
+    if (exported.isEmpty()) {
+      return;
+    }
+    enableActions(false, true);
+    task = RPY2PO.inst().getTaskScheduler().submit("Exporting translations", TaskScheduler.Kind.CPU, false, ctx -> {
+      Statements statements;
+      try {
+        statements = tasks.readStatements();
+      } catch (IOException e) {
+        LOGGER.error("Could not read statements file at {}", profile.getStatementsFile());
+        throw e;
+      }
+      Map<String, String> problems = new LinkedHashMap<>();
+      for (int i = 0; i < exported.size(); i++) {
+        ctx.checkCancelled();
+        String lang = exported.get(i);
+        ctx.progress(i, exported.size(), lang);
+        try {
+          Map<String, Exception> exceptions = tasks.exportLanguage(lang, statements, stage, deleteOld.contains(lang), ctx::isCancelled);
+          if (!exceptions.isEmpty()) {
+            problems.put(lang, "Could not write to:\n" + exceptions.keySet().stream().sorted().map(filePath -> {
+              Exception e = exceptions.get(filePath);
+              return "<" + filePath + "> " + e.getClass() + ": " + e.getMessage();
+            }).collect(Collectors.joining("\n")));
           }
+        } catch (IOException e) {
+          LOGGER.error("Could not export {} translations from {}", lang, profile.getLanguageFile(lang), e);
+          problems.put(lang, "Could not export " + lang + " translations.\n" + e.getClass() + ": " + e.getMessage());
         }
       }
-      PO2RPYConverter converter = new PO2RPYConverter(lang, poPath, statements);
+      return problems;
+    }, problems -> {
+      enableActions(true, true);
+      List<String> converted = exported.stream().filter(lang -> !problems.containsKey(lang)).toList();
+      if (!converted.isEmpty()) {
+        JOptionPane.showMessageDialog(this, "Successfully converted " + String.join(", ", converted) + " translations!");
+      }
+      problems.values().forEach(message -> JOptionPane.showMessageDialog(this, message, "Error", JOptionPane.ERROR_MESSAGE));
+    }, e -> {
+      enableActions(true, true);
+      GuiUtils.showErrorMessage(this, "Could not read statements file.", e);
+    });
+  }
+
+  private void setWatching(boolean watch) {
+    if (watch == (watcher != null)) {
+      return;
+    }
+    if (watch) {
       try {
-        Map<String, TranslationFile> files = converter.convert();
-        Map<String, Exception> exceptions = converter.write(files, tlDir);
-        if (exceptions.isEmpty()) {
-          JOptionPane.showMessageDialog(this, "Successfully converted " + lang + " translations!");
-        } else {
-          JOptionPane.showMessageDialog(this, "Could not write to:\n" + exceptions.keySet().stream().sorted().map(filePath -> {
-            Exception e = exceptions.get(filePath);
-            return "<" + filePath + "> " + e.getClass() + ": " + e.getMessage();
-          }).collect(Collectors.joining("\n")), "Error", JOptionPane.ERROR_MESSAGE);
-        }
+        watcher = TemplateWatcher.start(tasks, new TemplateWatcher.Listener() {
+          @Override
+          public void rebuilt(TemplateWatcher.Rebuild rebuild) {
+            SwingUtilities.invokeLater(() -> showRebuild(rebuild));
+          }
+
+          @Override
+          public void failed(Exception e) {
+            SwingUtilities.invokeLater(() -> {
+              if (watcher != null && !watcher.isWatching()) {
+                checkBoxWatch.setSelected(false);
+                setWatching(false);
+                textAreaFeedback.setText("Stopped watching for changes\n" + e.getClass() + ": " + e.getMessage());
+              } else {
+                textAreaFeedback.setText("Could not regenerate template\n" + e.getClass() + ": " + e.getMessage());
+              }
+            });
+          }
+        });
+        textAreaFeedback.setText("Watching " + profile.getTranslationDirectory(profile.getPrimaryLanguage()) + " for changes.");
       } catch (IOException e) {
-        LOGGER.error("Could not read PO file at {}", poPath, e);
-        GuiUtils.showErrorMessage(this, "Could not read PO file.", e);
+        LOGGER.error("Could not watch translation files of profile {}", profile.getName(), e);
+        GuiUtils.showErrorMessage(this, "Could not watch translation files", e);
+        checkBoxWatch.setSelected(false);
       }
-    });
+    } else {
+      try {
+        watcher.close();
+      } catch (IOException e) {
+        LOGGER.warn("Could not stop watching translation files", e);
+      }
+      watcher = null;
+      textAreaFeedback.setText("Stopped watching for changes.");
+    }
+    buttonGenTemplate.setEnabled(watcher == null && buttonCreateTranslations.isEnabled());
+  }
+
+  private void showRebuild(TemplateWatcher.Rebuild rebuild) {
+    tasks.addMissingNames(rebuild.missingNames());
+    StringBuilder sb = new StringBuilder();
+    sb.append("Regenerated template at ").append(LocalTime.now().truncatedTo(ChronoUnit.SECONDS)).append('\n');
+    sb.append("%d changed file(s), parsed %d of %d file(s)\n".formatted(rebuild.changedFiles(), rebuild.parsedFiles(), rebuild.totalFiles()));
+    sb.append("Latency: %d ms (waited %d ms, parsed in %d ms, saved in %d ms)".formatted(rebuild.latencyMillis(), rebuild.waitMillis(), rebuild.parseMillis(), rebuild.saveMillis()));
+    if (rebuild.changes() != null) {
+      CatalogDiff.Result diff = rebuild.changes();
+      sb.append("\nChanges: %d added, %d removed, %d modified".formatted(diff.added().size(), diff.removed().size(), diff.modified().size()));
+    }
+    textAreaFeedback.setText(sb.toString());
+  }
+
+  private void showProgress(TaskProgress progress) {
+    // other windows run tasks of their own
+    if (task != null && progress.id() == task.getId()) {
+      textAreaFeedback.setText(progress.toString());
+    }
+  }
+
+  @Override
+  public void dispose() {
+    RPY2PO.inst().getTaskScheduler().getProgressBus().removeListener(progressListener);
+    if (task != null) {
+      // none of the tasks are interrupted, so whatever file they are writing is finished first
+      task.cancel();
+    }
+    setWatching(false);
+    super.dispose();
   }
 
   {
@@ -377,7 +515,7 @@ public class ProfileActions extends JFrame {
     buttonImport.setText("Import Ren'Py Translations");
     panel1.add(buttonImport, new GridConstraints(4, 0, 1, 1, GridConstraints.ANCHOR_CENTER, GridConstraints.FILL_HORIZONTAL, GridConstraints.SIZEPOLICY_CAN_SHRINK | GridConstraints.SIZEPOLICY_CAN_GROW, GridConstraints.SIZEPOLICY_FIXED, null, new Dimension(-1, 40), null, 0, false));
     final JPanel panel2 = new JPanel();
-    panel2.setLayout(new GridLayoutManager(10, 1, new Insets(0, 0, 10, 0), -1, -1));
+    panel2.setLayout(new GridLayoutManager(11, 1, new Insets(0, 0, 10, 0), -1, -1));
     contentPane.add(panel2, new GridConstraints(1, 2, 1, 1, GridConstraints.ANCHOR_CENTER, GridConstraints.FILL_BOTH, GridConstraints.SIZEPOLICY_CAN_SHRINK | GridConstraints.SIZEPOLICY_CAN_GROW, GridConstraints.SIZEPOLICY_CAN_SHRINK | GridConstraints.SIZEPOLICY_CAN_GROW, null, null, null, 0, false));
     final JLabel label2 = new JLabel();
     label2.setText("Settings");
@@ -385,7 +523,7 @@ public class ProfileActions extends JFrame {
     final Spacer spacer3 = new Spacer();
     panel2.add(spacer3, new GridConstraints(1, 0, 1, 1, GridConstraints.ANCHOR_CENTER, GridConstraints.FILL_VERTICAL, 1, GridConstraints.SIZEPOLICY_WANT_GROW, null, null, null, 0, false));
     final Spacer spacer4 = new Spacer();
-    panel2.add(spacer4, new GridConstraints(9, 0, 1, 1, GridConstraints.ANCHOR_CENTER, GridConstraints.FILL_VERTICAL, 1, GridConstraints.SIZEPOLICY_WANT_GROW, null, null, null, 0, false));
+    panel2.add(spacer4, new GridConstraints(10, 0, 1, 1, GridConstraints.ANCHOR_CENTER, GridConstraints.FILL_VERTICAL, 1, GridConstraints.SIZEPOLICY_WANT_GROW, null, null, null, 0, false));
     final JLabel label3 = new JLabel();
     label3.setText("Output Language(s)");
     panel2.add(label3, new GridConstraints(2, 0, 1, 1, GridConstraints.ANCHOR_WEST, GridConstraints.FILL_NONE, GridConstraints.SIZEPOLICY_FIXED, GridConstraints.SIZEPOLICY_FIXED, null, null, null, 0, false));
@@ -397,6 +535,9 @@ public class ProfileActions extends JFrame {
     buttonFiles = new JButton();
     buttonFiles.setText("Input Files");
     panel2.add(buttonFiles, new GridConstraints(8, 0, 1, 1, GridConstraints.ANCHOR_CENTER, GridConstraints.FILL_HORIZONTAL, GridConstraints.SIZEPOLICY_CAN_SHRINK | GridConstraints.SIZEPOLICY_CAN_GROW, GridConstraints.SIZEPOLICY_FIXED, null, null, null, 0, false));
+    checkBoxWatch = new JCheckBox();
+    checkBoxWatch.setText("Watch Translation Files");
+    panel2.add(checkBoxWatch, new GridConstraints(9, 0, 1, 1, GridConstraints.ANCHOR_WEST, GridConstraints.FILL_NONE, GridConstraints.SIZEPOLICY_CAN_SHRINK | GridConstraints.SIZEPOLICY_CAN_GROW, GridConstraints.SIZEPOLICY_FIXED, null, null, null, 0, false));
     final Spacer spacer5 = new Spacer();
     panel2.add(spacer5, new GridConstraints(5, 0, 1, 1, GridConstraints.ANCHOR_CENTER, GridConstraints.FILL_VERTICAL, 1, GridConstraints.SIZEPOLICY_FIXED, null, new Dimension(-1, 10), null, 0, false));
     final Spacer spacer6 = new Spacer();
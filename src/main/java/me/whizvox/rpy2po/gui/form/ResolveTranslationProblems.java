@@ -4,13 +4,23 @@ import com.intellij.uiDesigner.core.GridConstraints;
 import com.intellij.uiDesigner.core.GridLayoutManager;
 import com.intellij.uiDesigner.core.Spacer;
 import com.soberlemur.potentilla.*;
-import me.whizvox.rpy2po.core.MessageSourceReferenceComparator;
+import me.whizvox.rpy2po.core.MessageFingerprints;
+import me.whizvox.rpy2po.core.MessageKeyMap;
+import me.whizvox.rpy2po.core.OrphanedStrings;
 import me.whizvox.rpy2po.core.Profile;
+import me.whizvox.rpy2po.core.ResolutionJournal;
 import me.whizvox.rpy2po.core.SimilarMessage;
+import me.whizvox.rpy2po.core.SimilarMessageCollector;
+import me.whizvox.rpy2po.core.SimilarityCache;
+import me.whizvox.rpy2po.core.SourceReferenceSort;
 import me.whizvox.rpy2po.core.StringUtil;
+import me.whizvox.rpy2po.gettext.PoBackend;
 import me.whizvox.rpy2po.gettext.ProblemResolution;
+import me.whizvox.rpy2po.gettext.SourceFileDictionary;
 import me.whizvox.rpy2po.gettext.SourceReference;
+import me.whizvox.rpy2po.gettext.UpdateResolver;
 import me.whizvox.rpy2po.gui.*;
+import me.whizvox.rpy2po.gui.task.TaskScheduler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -19,17 +29,46 @@ import javax.swing.border.TitledBorder;
 import javax.swing.plaf.FontUIResource;
 import javax.swing.text.StyleContext;
 import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.io.IOException;
 import java.lang.reflect.Method;
 import java.nio.file.Path;
 import java.util.*;
 import java.util.List;
-import java.util.stream.Stream;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 public class ResolveTranslationProblems extends JFrame {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(ResolveTranslationProblems.class);
 
+  /** Maximum number of similar strings shown for a single problem string */
+  private static final int SIMILAR_STRINGS_LIMIT = 100;
+  private static final int STRATEGY_MINHASH = 1;
+  private static final int FILTER_DELAY = 150;
+  /** Number of problem strings after the selected one whose similar strings are searched in the background */
+  private static final int PREFETCH_AHEAD = 5;
+  /** Minimum time between showing partial results of a scan, in milliseconds */
+  private static final int SCAN_PROGRESS_INTERVAL = 100;
+
+  /**
+   * Everything a search for similar strings needs, taken on the EDT, so that the search itself can run on another
+   * thread while the user keeps working.
+   */
+  private record SimilarStringsSearch(float threshold,
+                                      boolean filtered,
+                                      OrphanedStrings orphans,
+                                      Function<MessageKey, Collection<MessageKey>> pool,
+                                      BitSet fileIds,
+                                      Set<MessageKey> claimed,
+                                      int limit) {
+  }
+
   private JPanel contentPane;
   private JComboBox<String> comboBoxTplFiles;
   private JButton buttonSelectFiles;
@@ -62,6 +101,7 @@ public class ResolveTranslationProblems extends JFrame {
   private JTextField textFieldFilter;
   private JButton buttonShowUnresolved;
   private JComboBox<String> comboBoxLang;
+  private JComboBox<String> comboBoxStrategy;
 
   private final ProblemMessagesTableModel problemStringsModel;
   private final SimilarStringsTableModel similarStringsModel;
@@ -69,34 +109,63 @@ public class ResolveTranslationProblems extends JFrame {
   private final Profile profile;
   private final List<String> languages;
   private int languageIndex;
+  // shared by every map keyed by message keys, so each message is only fingerprinted once
+  private final MessageFingerprints fingerprints;
   private final Set<MessageKey> missingStrings;
   private final Map<MessageKey, List<SimilarMessage>> problemStrings;
+  // every problem string of each template file, in the order they appear in
+  private final Map<String, List<MessageKey>> problemStringsByFile;
   private final Set<String> tplFiles;
   private final Set<String> langFiles;
+  // encoded source references of every orphaned string, see sourceFiles
+  private final Map<MessageKey, long[]> orphanReferences;
   private String currentFile;
   private final Map<String, List<String>> searchingFiles;
-  private final Map<MessageKey, ProblemResolution> resolutions;
-  private final Map<MessageKey, ProblemResolution> resolutionsReverse;
+  private final MessageKeyMap<ProblemResolution> resolutions;
+  private final MessageKeyMap<ProblemResolution> resolutionsReverse;
   private final Set<MessageKey> obsoleteStrings;
+  // problem strings that have been fully scanned with the current files, as opposed to only being auto-resolved
+  private final Set<MessageKey> scannedStrings;
 
   private Catalog template;
   private Catalog translations;
+  private SimilarityCache similarityCache;
+  private SourceFileDictionary sourceFiles;
+  // what background searches look at, taken whenever the orphaned strings or their references change
+  private OrphanedStrings orphans;
+  private final javax.swing.Timer filterTimer;
+  private int filterGeneration;
+  private final SimilarStringsPrefetcher prefetcher;
+  private SwingWorker<List<SimilarMessage>, List<SimilarMessage>> scanWorker;
+  private ResolutionJournal journal;
+  private boolean initialized;
 
   public ResolveTranslationProblems(Profile profile, List<String> languages) {
     this.profile = profile;
     this.languages = Collections.unmodifiableList(languages);
     languageIndex = 0;
-    missingStrings = new HashSet<>();
-    problemStrings = new HashMap<>();
+    fingerprints = new MessageFingerprints();
+    missingStrings = Collections.newSetFromMap(new MessageKeyMap<>(fingerprints));
+    problemStrings = new MessageKeyMap<>(fingerprints);
+    problemStringsByFile = new HashMap<>();
     tplFiles = new HashSet<>();
     langFiles = new HashSet<>();
+    orphanReferences = new HashMap<>();
     currentFile = null;
     searchingFiles = new HashMap<>();
-    resolutions = new HashMap<>();
-    resolutionsReverse = new HashMap<>();
-    obsoleteStrings = new HashSet<>();
+    resolutions = new MessageKeyMap<>(fingerprints);
+    resolutionsReverse = new MessageKeyMap<>(fingerprints);
+    obsoleteStrings = Collections.newSetFromMap(new MessageKeyMap<>(fingerprints));
+    scannedStrings = Collections.newSetFromMap(new MessageKeyMap<>(fingerprints));
+    prefetcher = new SimilarStringsPrefetcher();
+    scanWorker = null;
+    journal = null;
+    initialized = false;
     template = new Catalog();
     translations = new Catalog();
+    similarityCache = new SimilarityCache();
+    sourceFiles = new SourceFileDictionary(List.of());
+    orphans = new OrphanedStrings(List.of(), Map.of());
 
     languages.forEach(comboBoxLang::addItem);
     comboBoxLang.addActionListener(e -> {
@@ -114,7 +183,15 @@ public class ResolveTranslationProblems extends JFrame {
         files.clear();
         files.addAll(newFiles);
         files.sort(String::compareTo);
+        if (journal != null) {
+          journal.searchingFilesChanged(currentFile, files);
+        }
         updateSearchingFiles();
+        // earlier scans looked through other files
+        scannedStrings.clear();
+        if (getSelectedProblemRow() != -1) {
+          prefetchSimilarStrings(getSelectedProblemRow());
+        }
       }
     });
     problemStringsModel = new ProblemMessagesTableModel();
@@ -124,10 +201,10 @@ public class ResolveTranslationProblems extends JFrame {
       problemStringsModel.toggleShowAll(checkBoxShowAllProblems.isSelected());
       problemStringsModel.fireTableDataChanged();
     });
-    textFieldFilter.getDocument().addDocumentListener((DocumentChangedListener) e -> {
-      problemStringsModel.setFilter(textFieldFilter.getText());
-      problemStringsModel.fireTableDataChanged();
-    });
+    // filter once typing pauses, and off the EDT, so that typing stays responsive with lots of problem strings
+    filterTimer = new javax.swing.Timer(FILTER_DELAY, e -> updateFilter());
+    filterTimer.setRepeats(false);
+    textFieldFilter.getDocument().addDocumentListener((DocumentChangedListener) e -> filterTimer.restart());
 
     buttonUnmarkResolved.addActionListener(e -> unmarkResolved());
     buttonUnresolveAll.addActionListener(e -> unresolveAll());
@@ -147,6 +224,7 @@ public class ResolveTranslationProblems extends JFrame {
       }
     });
 
+    comboBoxStrategy.addActionListener(e -> indexOrphans());
     buttonRescan.addActionListener(e -> initialize());
     buttonShowUnresolved.addActionListener(e -> ObsoleteStringsDialog.show(this));
     buttonBack.addActionListener(e -> {
@@ -156,12 +234,25 @@ public class ResolveTranslationProblems extends JFrame {
       }
     });
     buttonFinish.addActionListener(e -> finish());
+    addWindowListener(new WindowAdapter() {
+      @Override
+      public void windowClosing(WindowEvent e) {
+        saveSimilarityCache();
+        closeJournal();
+      }
+
+      @Override
+      public void windowClosed(WindowEvent e) {
+        cancelScan();
+        prefetcher.shutdown();
+      }
+    });
 
     setContentPane(contentPane);
 
     Path tplPath = profile.getTemplateFile();
     try {
-      template = new PoParser().parseCatalog(tplPath.toFile());
+      template = RPY2PO.inst().getCatalogCache().get(tplPath);
     } catch (IOException e) {
       LOGGER.error("Could not parse template file: {}", tplPath, e);
       GuiUtils.showErrorMessage(this, "Could not parse template file.", e);
@@ -169,16 +260,148 @@ public class ResolveTranslationProblems extends JFrame {
       return;
     }
     ((TitledBorder) panelTemplate.getBorder()).setTitle(tplPath.getFileName().toString());
+    similarityCache = SimilarityCache.load(profile.getSimilarityCacheFile(), tplPath, SimilarityCache.DEFAULT_CAPACITY);
 
     initialize();
+    openJournal();
     onProblemStringSelected(-1);
   }
 
+  @Override
+  public void dispose() {
+    saveSimilarityCache();
+    closeJournal();
+    super.dispose();
+  }
+
+  /**
+   * Open the journal of this profile, and restore everything that was done the last time it was open.
+   */
+  private void openJournal() {
+    Path path = profile.getResolutionJournalFile();
+    int[] skipped = {0};
+    try {
+      journal = ResolutionJournal.open(path, profile.getTemplateFile(), new ResolutionJournal.Listener() {
+        @Override
+        public void resolved(ProblemResolution resolution) {
+          // the journal only knows the template by its size and modification time, and the translations may have
+          // changed since
+          if (!isValidResolution(resolution)) {
+            skipped[0]++;
+            return;
+          }
+          removeResolution(resolution.templateKey());
+          putResolution(resolution);
+        }
+
+        @Override
+        public void unresolved(MessageKey templateKey) {
+          removeResolution(templateKey);
+        }
+
+        @Override
+        public void markedObsolete(MessageKey langKey, boolean obsolete) {
+          if (obsolete) {
+            obsoleteStrings.add(langKey);
+          } else {
+            obsoleteStrings.remove(langKey);
+          }
+        }
+
+        @Override
+        public void searchingFilesChanged(String templateFile, List<String> files) {
+          searchingFiles.put(templateFile, new ArrayList<>(files));
+        }
+      });
+    } catch (IOException e) {
+      LOGGER.warn("Could not open resolution journal: {}", path, e);
+      GuiUtils.showErrorMessage(this, "Could not open resolution journal. Resolutions will not be saved.", e);
+    }
+    if (skipped[0] > 0) {
+      LOGGER.info("Skipped {} resolution(s) from the journal that no longer match the template or translations", skipped[0]);
+    }
+    if (journal != null && journal.getRecordCount() > 0) {
+      setCurrentFile(currentFile);
+    }
+  }
+
+  /**
+   * @return Whether a resolution still applies, i.e. its template string is still a problem string, and the string it
+   * was resolved to is still orphaned and not claimed by another problem string
+   */
+  private boolean isValidResolution(ProblemResolution resolution) {
+    if (!template.contains(resolution.templateKey()) || !problemStrings.containsKey(resolution.templateKey())) {
+      return false;
+    }
+    if (resolution.langKey() == null) {
+      return true;
+    }
+    if (!translations.contains(resolution.langKey()) || !missingStrings.contains(resolution.langKey())) {
+      return false;
+    }
+    ProblemResolution claimedBy = resolutionsReverse.get(resolution.langKey());
+    return claimedBy == null || claimedBy.templateKey().equals(resolution.templateKey());
+  }
+
+  private void closeJournal() {
+    if (journal != null) {
+      try {
+        journal.close();
+      } catch (IOException e) {
+        LOGGER.warn("Could not close resolution journal: {}", profile.getResolutionJournalFile(), e);
+      }
+      journal = null;
+    }
+  }
+
+  private void resetJournal() {
+    if (journal != null) {
+      try {
+        journal.reset();
+      } catch (IOException e) {
+        LOGGER.warn("Could not reset resolution journal: {}", profile.getResolutionJournalFile(), e);
+      }
+    }
+  }
+
+  private void putResolution(ProblemResolution resolution) {
+    resolutions.put(resolution.templateKey(), resolution);
+    if (resolution.langKey() != null) {
+      resolutionsReverse.put(resolution.langKey(), resolution);
+    }
+    if (journal != null) {
+      journal.resolved(resolution);
+    }
+  }
+
+  private void removeResolution(MessageKey templateKey) {
+    ProblemResolution resolution = resolutions.remove(templateKey);
+    if (resolution != null) {
+      if (resolution.langKey() != null) {
+        resolutionsReverse.remove(resolution.langKey());
+      }
+      if (journal != null) {
+        journal.unresolved(templateKey);
+      }
+    }
+  }
+
+  private void saveSimilarityCache() {
+    if (similarityCache.size() > 0) {
+      Path path = profile.getSimilarityCacheFile();
+      try {
+        similarityCache.save(path, profile.getTemplateFile());
+      } catch (IOException e) {
+        LOGGER.warn("Could not save similarity cache: {}", path, e);
+      }
+    }
+  }
+
   public void markObsolete(Message msg, boolean obsolete) {
-    if (obsolete) {
-      obsoleteStrings.add(new MessageKey(msg));
-    } else {
-      obsoleteStrings.remove(new MessageKey(msg));
+    MessageKey key = new MessageKey(msg);
+    boolean changed = obsolete ? obsoleteStrings.add(key) : obsoleteStrings.remove(key);
+    if (changed && journal != null) {
+      journal.markedObsolete(key, obsolete);
     }
   }
 
@@ -199,56 +422,250 @@ public class ResolveTranslationProblems extends JFrame {
     return tableSimilar.getSelectionModel().getLeadSelectionIndex();
   }
 
+  /**
+   * Load the current language file, and find all problem strings and orphaned strings. The first time, everything is
+   * built from scratch. After that, only what changed between the previously loaded catalog and the new one is updated,
+   * so that similar strings found for problem strings that weren't affected are kept.
+   */
   private void initialize() {
     try {
       Path langPath = profile.getLanguageFile(languages.get(languageIndex));
-      translations = new PoParser().parseCatalog(langPath.toFile());
-      problemStrings.clear();
-      tplFiles.clear();
-      for (Message msg : template) {
-        msg.getSourceReferences().stream().map(str -> SourceReference.parse(str).file()).forEach(tplFiles::add);
-        MessageKey key = new MessageKey(msg);
-        if (!translations.contains(key)) {
-          problemStrings.put(key, new ArrayList<>());
+      Catalog newTranslations = RPY2PO.inst().getCatalogCache().get(langPath);
+      cancelScan();
+      prefetcher.cancel();
+      if (initialized) {
+        update(newTranslations);
+      } else {
+        rebuild(newTranslations);
+        initialized = true;
+      }
+      ((TitledBorder) panelLang.getBorder()).setTitle(langPath.getFileName().toString());
+      // the user is likely to switch to the other languages next
+      for (int i = 0; i < languages.size(); i++) {
+        if (i != languageIndex) {
+          RPY2PO.inst().getCatalogCache().prefetch(profile.getLanguageFile(languages.get(i)));
         }
       }
-      missingStrings.clear();
-      langFiles.clear();
-      for (Message msg : translations) {
-        msg.getSourceReferences().stream().map(str -> SourceReference.parse(str).file()).forEach(langFiles::add);
-        MessageKey key = new MessageKey(msg);
-        if (!template.contains(key)) {
-          missingStrings.add(key);
+    } catch (Exception e) {
+      LOGGER.error("Could not initialize", e);
+    }
+  }
+
+  private void rebuild(Catalog newTranslations) {
+    translations = newTranslations;
+    // the strings of the old translations won't be looked up anymore
+    fingerprints.clear();
+    scannedStrings.clear();
+    problemStrings.clear();
+    problemStringsByFile.clear();
+    tplFiles.clear();
+    for (Message msg : template) {
+      List<SourceReference> refs = msg.getSourceReferences().stream().map(SourceReference::parse).toList();
+      refs.forEach(ref -> tplFiles.add(ref.file()));
+      MessageKey key = new MessageKey(msg);
+      if (!translations.contains(key)) {
+        problemStrings.put(key, new ArrayList<>());
+        if (!refs.isEmpty()) {
+          refs.stream().map(SourceReference::file).distinct()
+              .forEach(file -> problemStringsByFile.computeIfAbsent(file, k -> new ArrayList<>()).add(key));
         }
       }
-      comboBoxTplFiles.removeAllItems();
-      tplFiles.stream().sorted().forEach(file -> {
-        comboBoxTplFiles.addItem(file);
-        if (currentFile == null) {
-          currentFile = file;
+    }
+    problemStringsByFile.replaceAll((file, keys) -> SourceReferenceSort.sort(keys, key -> template.get(key).getSourceReferences()));
+    missingStrings.clear();
+    langFiles.clear();
+    for (Message msg : translations) {
+      msg.getSourceReferences().stream().map(str -> SourceReference.parse(str).file()).forEach(langFiles::add);
+      MessageKey key = new MessageKey(msg);
+      if (!template.contains(key)) {
+        missingStrings.add(key);
+      }
+    }
+    encodeOrphanReferences();
+    orphans = new OrphanedStrings(missingStrings, orphanReferences);
+    indexOrphans();
+    comboBoxTplFiles.removeAllItems();
+    tplFiles.stream().sorted().forEach(file -> {
+      comboBoxTplFiles.addItem(file);
+      if (currentFile == null) {
+        currentFile = file;
+      }
+    });
+    setCurrentFile(currentFile);
+    searchingFiles.clear();
+    if (langFiles.contains(currentFile)) {
+      searchingFiles.computeIfAbsent(currentFile, s -> new ArrayList<>()).add(currentFile);
+    }
+    updateSearchingFiles();
+  }
+
+  private void encodeOrphanReferences() {
+    Set<String> allFiles = new HashSet<>(tplFiles);
+    allFiles.addAll(langFiles);
+    sourceFiles = new SourceFileDictionary(allFiles);
+    orphanReferences.clear();
+    missingStrings.forEach(key -> orphanReferences.put(key, sourceFiles.encodeAll(translations.get(key).getSourceReferences())));
+  }
+
+  /**
+   * Update everything that depends on the translations to match a newly loaded catalog. The template stays the same, so
+   * only messages that were added to or removed from the translations, or whose source references changed, can turn
+   * into or stop being problem strings or orphaned strings. Resolutions of strings that are translated now, or that
+   * point to orphaned strings that are gone, are undone and journaled as such.
+   */
+  private void update(Catalog newTranslations) {
+    if (newTranslations == translations) {
+      // the catalog cache hands out the same catalog as long as its file hasn't changed
+      LOGGER.debug("Translations have not changed");
+      return;
+    }
+    long start = System.currentTimeMillis();
+    Catalog oldTranslations = translations;
+    List<MessageKey> added = new ArrayList<>();
+    List<MessageKey> moved = new ArrayList<>();
+    List<MessageKey> removed = new ArrayList<>();
+    for (Message msg : newTranslations) {
+      MessageKey key = new MessageKey(msg);
+      Message oldMsg = oldTranslations.get(key);
+      if (oldMsg == null) {
+        added.add(key);
+      } else if (!oldMsg.getSourceReferences().equals(msg.getSourceReferences())) {
+        moved.add(key);
+      }
+    }
+    for (Message msg : oldTranslations) {
+      MessageKey key = new MessageKey(msg);
+      if (!newTranslations.contains(key)) {
+        removed.add(key);
+      }
+    }
+    translations = newTranslations;
+
+    Set<String> changedFiles = new HashSet<>();
+    Set<MessageKey> removedOrphans = new HashSet<>();
+    boolean orphansAdded = false;
+    for (MessageKey key : removed) {
+      if (template.contains(key)) {
+        // no longer translated
+        problemStrings.put(key, new ArrayList<>());
+        getTemplateFiles(key).forEach(file -> {
+          problemStringsByFile.computeIfAbsent(file, k -> new ArrayList<>()).add(key);
+          changedFiles.add(file);
+        });
+      } else if (missingStrings.remove(key)) {
+        orphanReferences.remove(key);
+        removedOrphans.add(key);
+        // whatever was resolved to it would be merged with an empty translation
+        ProblemResolution resolution = resolutionsReverse.get(key);
+        if (resolution != null) {
+          removeResolution(resolution.templateKey());
         }
-      });
-      setCurrentFile(currentFile);
-      ((TitledBorder) panelLang.getBorder()).setTitle(langPath.getFileName().toString());
-      searchingFiles.clear();
-      if (langFiles.contains(currentFile)) {
-        searchingFiles.computeIfAbsent(currentFile, s -> new ArrayList<>()).add(currentFile);
       }
-      updateSearchingFiles();
-    } catch (Exception e) {
-      LOGGER.error("Could not initialize", e);
     }
+    for (MessageKey key : added) {
+      if (template.contains(key)) {
+        // translated now, so any resolution of it is no longer needed
+        removeResolution(key);
+        problemStrings.remove(key);
+        scannedStrings.remove(key);
+        getTemplateFiles(key).forEach(file -> {
+          List<MessageKey> keys = problemStringsByFile.get(file);
+          if (keys != null) {
+            keys.remove(key);
+          }
+        });
+      } else {
+        missingStrings.add(key);
+        orphansAdded = true;
+      }
+    }
+    changedFiles.forEach(file -> problemStringsByFile.computeIfPresent(file,
+        (k, keys) -> SourceReferenceSort.sort(keys, key -> template.get(key).getSourceReferences())));
+
+    Set<String> oldLangFiles = new HashSet<>(langFiles);
+    langFiles.clear();
+    for (Message msg : translations) {
+      msg.getSourceReferences().stream().map(str -> SourceReference.parse(str).file()).forEach(langFiles::add);
+    }
+    if (langFiles.stream().allMatch(file -> sourceFiles.getId(file) != -1)) {
+      for (MessageKey key : added) {
+        if (missingStrings.contains(key)) {
+          orphanReferences.put(key, sourceFiles.encodeAll(translations.get(key).getSourceReferences()));
+        }
+      }
+      for (MessageKey key : moved) {
+        if (missingStrings.contains(key)) {
+          orphanReferences.put(key, sourceFiles.encodeAll(translations.get(key).getSourceReferences()));
+        }
+      }
+    } else {
+      // file numbers follow file names, so new files shift everything
+      encodeOrphanReferences();
+    }
+    if (!oldLangFiles.equals(langFiles)) {
+      searchingFiles.values().forEach(files -> files.retainAll(langFiles));
+    }
+
+    // searches that are still running keep looking at the old snapshot, and their results are dropped
+    if (!removedOrphans.isEmpty() || orphansAdded) {
+      orphans = new OrphanedStrings(missingStrings, orphanReferences);
+      indexOrphans();
+    } else {
+      orphans = orphans.withReferences(orphanReferences);
+    }
+    if (!removedOrphans.isEmpty()) {
+      problemStrings.values().forEach(similar -> similar.removeIf(msg -> removedOrphans.contains(msg.key())));
+    }
+    if (orphansAdded || !moved.isEmpty()) {
+      // results might be missing some of the new strings, so look again in the background, but keep showing them for now
+      scannedStrings.clear();
+    }
+    setCurrentFile(currentFile);
+    LOGGER.debug("Updated translations in {} ms: {} added, {} removed, {} moved", System.currentTimeMillis() - start,
+        added.size(), removed.size(), moved.size());
+  }
+
+  private Set<String> getTemplateFiles(MessageKey key) {
+    Set<String> files = new HashSet<>();
+    template.get(key).getSourceReferences().forEach(ref -> files.add(SourceReference.parse(ref).file()));
+    return files;
+  }
+
+  private void updateFilter() {
+    String filter = textFieldFilter.getText();
+    int generation = ++filterGeneration;
+    new SwingWorker<ProblemMessagesTableModel.Matches, Void>() {
+      @Override
+      protected ProblemMessagesTableModel.Matches doInBackground() {
+        return problemStringsModel.findMatches(filter);
+      }
+
+      @Override
+      protected void done() {
+        // a newer filter might have finished first
+        if (generation != filterGeneration) {
+          return;
+        }
+        try {
+          problemStringsModel.setFilter(get());
+          problemStringsModel.fireTableDataChanged();
+        } catch (Exception e) {
+          LOGGER.error("Could not filter problem strings", e);
+        }
+      }
+    }.execute();
   }
 
   private void setCurrentFile(String file) {
     textFieldFilter.setText("");
+    // clear the filter right away, since rows are about to be replaced
+    filterTimer.stop();
+    filterGeneration++;
+    problemStringsModel.setFilter("");
     currentFile = file;
     problemStringsModel.clear();
-    problemStrings.keySet().stream()
-        .map(key -> template.get(key))
-        .filter(msg -> msg.getSourceReferences().stream().map(str -> SourceReference.parse(str).file()).anyMatch(str -> str.equals(file)))
-        .sorted(new MessageSourceReferenceComparator())
-        .forEach(msg -> problemStringsModel.addValue(resolutions.containsKey(new MessageKey(msg)), new MessageKey(msg)));
+    problemStringsByFile.getOrDefault(file, List.of())
+        .forEach(key -> problemStringsModel.addValue(resolutions.containsKey(key), key));
     problemStringsModel.fireTableDataChanged();
     List<String> files = searchingFiles.computeIfAbsent(currentFile, s -> new ArrayList<>());
     if (files.isEmpty() && langFiles.contains(currentFile)) {
@@ -271,6 +688,7 @@ public class ResolveTranslationProblems extends JFrame {
   }
 
   private void onProblemStringSelected(int row) {
+    cancelScan();
     if (row < 0 || row >= problemStringsModel.getRowCount()) {
       labelTplRef.setText(" ");
       labelTplContext.setText(" ");
@@ -286,25 +704,63 @@ public class ResolveTranslationProblems extends JFrame {
       labelTplContext.setText(StringUtil.notNullOrBlankOrElse(key.msgContext(), " "));
       labelTplComment.setText(StringUtil.notNullOrBlankOrElse(String.join(", ", msg.getExtractedComments()), ""));
       textAreaTplString.setText(key.msgId());
-      similarStringsModel.setValues(problemStrings.computeIfAbsent(key, k -> new ArrayList<>()));
-      similarStringsModel.fireTableDataChanged();
-      if (similarStringsModel.getRowCount() > 0) {
-        tableSimilar.clearSelection();
-        tableSimilar.setRowSelectionInterval(0, 0);
-        updateSimilarStringDetails(0);
+      showSimilarStrings(key);
+      prefetchSimilarStrings(row);
+    }
+  }
+
+  private void showSimilarStrings(MessageKey key) {
+    similarStringsModel.setValues(problemStrings.computeIfAbsent(key, k -> new ArrayList<>()));
+    similarStringsModel.fireTableDataChanged();
+    if (similarStringsModel.getRowCount() > 0) {
+      tableSimilar.clearSelection();
+      tableSimilar.setRowSelectionInterval(0, 0);
+      updateSimilarStringDetails(0);
+    }
+  }
+
+  /**
+   * Search for similar strings of the selected problem string and the next few after it in the background, unless
+   * they have been scanned already. Moving the selection again cancels any searches that are still left.
+   */
+  private void prefetchSimilarStrings(int row) {
+    List<MessageKey> keys = new ArrayList<>();
+    for (int i = row; i < problemStringsModel.getRowCount() && i <= row + PREFETCH_AHEAD; i++) {
+      MessageKey key = problemStringsModel.getKey(i);
+      if (!problemStringsModel.isResolved(i) && !scannedStrings.contains(key)) {
+        keys.add(key);
       }
     }
+    if (keys.isEmpty()) {
+      prefetcher.cancel();
+      return;
+    }
+    SimilarStringsSearch search = prepareSearch(0.7F, null, false, SIMILAR_STRINGS_LIMIT);
+    prefetcher.prefetch(keys, key -> collectSimilarStrings(key, search, null), (key, similar) -> {
+      if (scannedStrings.add(key)) {
+        List<SimilarMessage> values = problemStrings.computeIfAbsent(key, k -> new ArrayList<>());
+        values.clear();
+        values.addAll(similar);
+        // a scan of the selected string shows its own results
+        if (key.equals(getSelectedProblemKey()) && !isScanning()) {
+          showSimilarStrings(key);
+        }
+      }
+    });
+  }
+
+  private MessageKey getSelectedProblemKey() {
+    int row = getSelectedProblemRow();
+    if (row < 0 || row >= problemStringsModel.getRowCount()) {
+      return null;
+    }
+    return problemStringsModel.getKey(row);
   }
 
   private void unmarkResolved() {
     int row = getSelectedProblemRow();
     if (problemStringsModel.isResolved(row)) {
-      MessageKey key = problemStringsModel.getKey(row);
-      ProblemResolution resolution = resolutions.get(key);
-      resolutions.remove(key);
-      if (resolution.langKey() != null) {
-        resolutionsReverse.remove(resolution.langKey());
-      }
+      removeResolution(problemStringsModel.getKey(row));
       problemStringsModel.markResolved(row, false);
       problemStringsModel.fireTableRowsUpdated(row, row);
     }
@@ -313,12 +769,7 @@ public class ResolveTranslationProblems extends JFrame {
   private void unresolveAll() {
     for (int row = 0; row < problemStringsModel.getRowCount(); row++) {
       if (problemStringsModel.isResolved(row)) {
-        MessageKey key = problemStringsModel.getKey(row);
-        ProblemResolution resolution = resolutions.get(key);
-        resolutions.remove(key);
-        if (resolution.langKey() != null) {
-          resolutionsReverse.remove(resolution.langKey());
-        }
+        removeResolution(problemStringsModel.getKey(row));
         problemStringsModel.markResolved(row, false);
       }
     }
@@ -337,8 +788,7 @@ public class ResolveTranslationProblems extends JFrame {
         if (oldResolution != null) {
           int answer = JOptionPane.showConfirmDialog(this, "This string has already been marked as being updated to " + oldResolution.templateKey().msgContext() + ". Do you want to override this?", "Question", JOptionPane.YES_NO_OPTION);
           if (answer == JOptionPane.YES_OPTION) {
-            resolutions.remove(oldResolution.templateKey());
-            resolutionsReverse.remove(langKey);
+            removeResolution(oldResolution.templateKey());
             for (int row = 0; row < problemStringsModel.getRowCount(); row++) {
               if (problemStringsModel.getKey(row).equals(oldResolution.templateKey())) {
                 problemStringsModel.markResolved(row, false);
@@ -356,9 +806,7 @@ public class ResolveTranslationProblems extends JFrame {
             similarMessages.removeIf(similarMsg -> similarMsg.key().equals(langKey));
           }
         }
-        ProblemResolution resolution = new ProblemResolution(tplKey, langKey, false);
-        resolutions.put(tplKey, resolution);
-        resolutionsReverse.put(langKey, resolution);
+        putResolution(new ProblemResolution(tplKey, langKey, false));
         problemStringsModel.markResolved(problemRow);
         problemStringsModel.fireTableDataChanged();
         if (!problemStringsModel.isShowingAll() && problemStringsModel.getRowCount() > 0) {
@@ -372,51 +820,108 @@ public class ResolveTranslationProblems extends JFrame {
     if (searchingFiles.get(currentFile).isEmpty()) {
       JOptionPane.showMessageDialog(this, "No search files are selected.");
     } else {
-      ProgressMonitor monitor = new ProgressMonitor(this, "Finding similar strings...", "", 0, problemStringsModel.getRowCount());
-      monitor.setMillisToPopup(100);
-      Thread thread = new Thread(() -> {
-        List<Integer> rows = new ArrayList<>();
-        for (int row = 0; row < problemStringsModel.getRowCount(); row++) {
-          if (monitor.isCanceled()) {
-            break;
-          }
-          if (!problemStringsModel.isResolved(row)) {
-            MessageKey key = problemStringsModel.getKey(row);
-            if (key.msgId().length() > 50) {
-              monitor.setNote(key.msgId().substring(0, 50) + "...");
-            } else {
-              monitor.setNote(key.msgId());
-            }
-            List<SimilarMessage> similar = findSimilarStrings(key, 0.7F, null, false);
-            if (similar.size() == 1) {
-              SimilarMessage msg = similar.getFirst();
-              ProblemResolution resolution = new ProblemResolution(key, msg.key(), false);
-              resolutions.put(key, resolution);
-              resolutionsReverse.put(msg.key(), resolution);
-              rows.add(row);
-            } else if (similar.isEmpty()) {
-              ProblemResolution resolution = new ProblemResolution(key, null, true);
-              resolutions.put(key, resolution);
-              rows.add(row);
-            }
-          }
-          monitor.setProgress(row + 1);
+      String[] options = {"Cancel", "Unique Matches Only", "Best Overall Assignment"};
+      int answer = JOptionPane.showOptionDialog(this, "How should strings with several similar candidates be resolved?\n" +
+          "Unique matches only resolves strings with exactly one candidate. The best overall assignment also resolves\n" +
+          "strings with several candidates, by pairing up all strings so that they are as similar as possible.",
+          "Question", JOptionPane.DEFAULT_OPTION, JOptionPane.QUESTION_MESSAGE, null, options, options[1]);
+      if (answer <= 0) {
+        return;
+      }
+      boolean assign = answer == 2;
+      // everything the engine looks at is copied here, since strings can be resolved by hand while it runs
+      Set<MessageKey> unresolved = new LinkedHashSet<>();
+      for (int row = 0; row < problemStringsModel.getRowCount(); row++) {
+        if (!problemStringsModel.isResolved(row)) {
+          unresolved.add(problemStringsModel.getKey(row));
         }
-        // if show all is unchecked
-        for (int i = rows.size() - 1; i >= 0; i--) {
-          problemStringsModel.markResolved(rows.get(i));
+      }
+      Set<MessageKey> unclaimed = new LinkedHashSet<>();
+      missingStrings.stream().filter(key -> !resolutionsReverse.containsKey(key)).forEach(unclaimed::add);
+      UpdateResolver.Matcher matcher = createMatcher(unresolved.size());
+      UpdateResolver resolver = new UpdateResolver(template, translations, new UpdateResolver.Options(0.7F, false, assign, false));
+      RPY2PO.inst().getTaskScheduler().submit("Auto-resolving problem strings", TaskScheduler.Kind.CPU,
+          ctx -> resolver.match(unresolved, unclaimed, matcher), this::applyMatches, e -> {
+            // the matcher cancels from a worker thread of the engine, which can surface here as a failure
+            if (!(e instanceof CancellationException)) {
+              GuiUtils.showErrorMessage(this, "Could not auto-resolve problem strings.", e);
+            }
+          });
+    }
+  }
+
+  /**
+   * Create what the engine finds similar strings with during auto-resolving, which only looks at the files being
+   * searched, goes by the selected strategy, and shares the similarity cache with every other search. Must be called
+   * from the EDT. Shows its progress, and cancels the engine if its progress monitor is cancelled.
+   * @param count The number of strings the engine is going to look for
+   */
+  private UpdateResolver.Matcher createMatcher(int count) {
+    OrphanedStrings orphans = this.orphans;
+    BitSet fileIds = getFileIds(searchingFiles.getOrDefault(currentFile, List.of()));
+    boolean minHash = comboBoxStrategy.getSelectedIndex() == STRATEGY_MINHASH;
+    ProgressMonitor monitor = new ProgressMonitor(this, "Finding similar strings...", "", 0, count);
+    monitor.setMillisToPopup(100);
+    AtomicInteger searched = new AtomicInteger();
+    return new UpdateResolver.Matcher() {
+      @Override
+      public Collection<MessageKey> getCandidates(MessageKey problem) {
+        if (monitor.isCanceled()) {
+          throw new CancellationException();
         }
-        problemStringsModel.fireTableDataChanged();
-      });
-      thread.start();
+        int progress = searched.incrementAndGet();
+        SwingUtilities.invokeLater(() -> monitor.setProgress(progress));
+        Collection<MessageKey> pool = minHash ? orphans.getMinHashIndex().query(problem.msgId()) : orphans.keys();
+        return SourceReferenceSort.sortEncoded(pool.stream()
+            .filter(langKey -> isInFiles(orphans.getReferences(langKey), fileIds))
+            .toList(), langKey -> {
+          long[] refs = orphans.getReferences(langKey);
+          return refs.length == 0 ? SourceReferenceSort.NO_REFERENCE : refs[0];
+        });
+      }
+
+      @Override
+      public float getSimilarity(String a, String b, float threshold) {
+        return similarityCache.getSimilarity(a, b, threshold);
+      }
+    };
+  }
+
+  /**
+   * Apply what auto-resolving found. Strings that were resolved by hand or reloaded while it ran are left alone, and
+   * strings with several candidates stay unresolved.
+   */
+  private void applyMatches(UpdateResolver.Matches matches) {
+    List<ProblemResolution> found = new ArrayList<>();
+    found.addAll(matches.renamed());
+    found.addAll(matches.aligned());
+    found.addAll(matches.similar());
+    matches.unmatched().forEach(key -> found.add(new ProblemResolution(key, null, true)));
+    int skipped = 0;
+    for (ProblemResolution resolution : found) {
+      if (!resolutions.containsKey(resolution.templateKey()) && isValidResolution(resolution)) {
+        putResolution(resolution);
+      } else {
+        skipped++;
+      }
+    }
+    if (skipped > 0) {
+      LOGGER.debug("Skipped {} auto-resolved strings that were changed meanwhile", skipped);
+    }
+    // if show all is unchecked, resolved rows are removed, so go from the bottom up
+    for (int row = problemStringsModel.getRowCount() - 1; row >= 0; row--) {
+      if (!problemStringsModel.isResolved(row) && resolutions.containsKey(problemStringsModel.getKey(row))) {
+        problemStringsModel.markResolved(row);
+      }
     }
+    problemStringsModel.fireTableDataChanged();
   }
 
   private void markAllNew() {
     for (int row = 0; row < problemStringsModel.getRowCount(); row++) {
       if (!problemStringsModel.isResolved(row)) {
         MessageKey key = problemStringsModel.getKey(row);
-        resolutions.put(key, new ProblemResolution(key, null, true));
+        putResolution(new ProblemResolution(key, null, true));
         problemStringsModel.markResolved(row);
       }
     }
@@ -439,50 +944,170 @@ public class ResolveTranslationProblems extends JFrame {
     }
   }
 
-  private List<SimilarMessage> findSimilarStrings(MessageKey key, float threshold, String filter, boolean scanAllFiles) {
-    List<SimilarMessage> similar = problemStrings.computeIfAbsent(key, k -> new ArrayList<>());
-    similar.clear();
-    Collection<String> files;
-    if (scanAllFiles) {
-      files = langFiles;
+  /**
+   * Build the MinHash index of the orphaned strings in the background if it is going to be used, so that neither the
+   * EDT nor the first search has to wait for it.
+   */
+  private void indexOrphans() {
+    if (comboBoxStrategy.getSelectedIndex() == STRATEGY_MINHASH) {
+      OrphanedStrings snapshot = orphans;
+      RPY2PO.inst().getTaskScheduler().submit("Indexing orphaned strings", TaskScheduler.Kind.CPU,
+          ctx -> snapshot.getMinHashIndex(), null, null);
+    }
+  }
+
+  private BitSet getFileIds(Collection<String> files) {
+    BitSet fileIds = new BitSet(sourceFiles.size());
+    for (String file : files) {
+      int id = sourceFiles.getId(file);
+      if (id != -1) {
+        fileIds.set(id);
+      }
+    }
+    return fileIds;
+  }
+
+  /**
+   * Take everything a search for similar strings looks at, so the search can be run later on another thread. Must be
+   * called from the EDT. Everything is copied, except for the snapshot of the orphaned strings, which never changes.
+   */
+  private SimilarStringsSearch prepareSearch(float threshold, String filter, boolean scanAllFiles, int limit) {
+    BitSet fileIds = getFileIds(scanAllFiles ? langFiles : searchingFiles.getOrDefault(currentFile, List.of()));
+    Set<MessageKey> claimed = resolutionsReverse.snapshot().keySet();
+    OrphanedStrings orphans = this.orphans;
+    // the indexes can take seconds to build the first time, so they are only used once the search runs
+    Function<MessageKey, Collection<MessageKey>> pool;
+    if (filter != null) {
+      pool = key -> orphans.getSearchIndex().search(filter);
+    } else if (comboBoxStrategy.getSelectedIndex() == STRATEGY_MINHASH) {
+      pool = key -> orphans.getMinHashIndex().query(key.msgId());
     } else {
-      files = searchingFiles.get(currentFile);
-    }
-    Stream<Message> stream = missingStrings.stream()
-        .filter(langKey -> !resolutionsReverse.containsKey(langKey))
-        .map(langKey -> translations.get(langKey))
-        .sorted(new MessageSourceReferenceComparator());
-    if (filter == null) {
-      Message tplMsg = template.get(key);
-      stream.forEach(msg -> {
-        if (msg.getSourceReferences().stream().map(str -> SourceReference.parse(str).file()).anyMatch(files::contains)) {
-          int max = Math.max(tplMsg.getMsgId().length(), msg.getMsgId().length());
-          int dist = StringUtil.getEditDistance(tplMsg.getMsgId(), msg.getMsgId());
-          float similarity = 1.0F - (float) dist / max;
-          if (similarity >= threshold) {
-            similar.add(new SimilarMessage(new MessageKey(msg), similarity));
+      List<MessageKey> keys = orphans.keys();
+      pool = key -> keys;
+    }
+    return new SimilarStringsSearch(threshold, filter != null, orphans, pool, fileIds, claimed, limit);
+  }
+
+  private List<SimilarMessage> collectSimilarStrings(MessageKey key, SimilarStringsSearch search, Consumer<List<SimilarMessage>> progress) {
+    return collectSimilarStrings(key, search.threshold(), search.filtered(), search.orphans(), search.pool().apply(key),
+        search.fileIds(), search.claimed(), search.limit(), false, progress);
+  }
+
+  /**
+   * Compare a template message to a pool of orphaned strings. Besides its arguments, this only reads the similarity
+   * cache, which is thread-safe, so this can run on any thread as long as the arguments aren't modified meanwhile.
+   * Stops early if the current thread is interrupted.
+   * @param filtered Whether the pool only contains strings that match a filter, in which case all of them are equally
+   *                 similar
+   * @param orphans The orphaned strings the pool was taken from
+   * @param claimed Orphaned strings that have already been used to resolve another string
+   * @param progress If not <code>null</code>, receives the best results found so far every now and then
+   */
+  private List<SimilarMessage> collectSimilarStrings(MessageKey key, float threshold, boolean filtered, OrphanedStrings orphans,
+                                                     Collection<MessageKey> pool, BitSet fileIds, Set<MessageKey> claimed, int limit, boolean stopWhenFull,
+                                                     Consumer<List<SimilarMessage>> progress) {
+    List<MessageKey> candidates = SourceReferenceSort.sortEncoded(pool.stream()
+        .filter(langKey -> !claimed.contains(langKey))
+        .filter(langKey -> isInFiles(orphans.getReferences(langKey), fileIds))
+        .toList(), langKey -> {
+      long[] refs = orphans.getReferences(langKey);
+      return refs.length == 0 ? SourceReferenceSort.NO_REFERENCE : refs[0];
+    });
+    SimilarMessageCollector collector = new SimilarMessageCollector(threshold, limit);
+    if (!filtered) {
+      String tplMsgId = key.msgId();
+      long lastProgress = System.currentTimeMillis();
+      for (MessageKey langKey : candidates) {
+        if (Thread.currentThread().isInterrupted()) {
+          break;
+        }
+        float similarity = similarityCache.getSimilarity(tplMsgId, langKey.msgId(), collector.getMinimumSimilarity());
+        if (similarity >= 0 && collector.add(langKey, similarity)) {
+          if (stopWhenFull && collector.isFull()) {
+            break;
+          }
+          if (progress != null && System.currentTimeMillis() - lastProgress >= SCAN_PROGRESS_INTERVAL) {
+            progress.accept(collector.toList());
+            lastProgress = System.currentTimeMillis();
           }
         }
-      });
+      }
     } else {
-      String actualFilter = filter.toLowerCase();
-      stream.forEach(msg -> {
-        if (msg.getSourceReferences().stream().map(str -> SourceReference.parse(str).file()).anyMatch(files::contains)) {
-          if (msg.getMsgId().toLowerCase().contains(actualFilter)) {
-            similar.add(new SimilarMessage(new MessageKey(msg), 1.0F));
-          }
+      // every candidate already contains the filter
+      for (MessageKey langKey : candidates) {
+        collector.add(langKey, 1.0F);
+        // every match is equally similar, so nothing found later could replace what is already collected
+        if (collector.isFull()) {
+          break;
         }
-      });
+      }
+    }
+    return collector.toList();
+  }
+
+  private static boolean isInFiles(long[] refs, BitSet fileIds) {
+    for (long ref : refs) {
+      if (fileIds.get(SourceFileDictionary.getFileId(ref))) {
+        return true;
+      }
     }
-    similar.sort((o1, o2) -> Float.compare(o2.similarity(), o1.similarity()));
-    return similar;
+    return false;
   }
 
+  /**
+   * Scan for similar strings of the selected problem string in the background. The best strings found so far are shown
+   * while the scan is running, and starting another scan or selecting another problem string cancels it.
+   */
   private void scanStrings(float threshold, String filter, boolean scanAllFiles) {
+    cancelScan();
     MessageKey key = problemStringsModel.getKey(getSelectedProblemRow());
-    List<SimilarMessage> similar = findSimilarStrings(key, threshold, filter, scanAllFiles);
-    similarStringsModel.setValues(similar);
+    SimilarStringsSearch search = prepareSearch(threshold, filter, scanAllFiles, SIMILAR_STRINGS_LIMIT);
+    similarStringsModel.clear();
     similarStringsModel.fireTableDataChanged();
+    updateSimilarStringDetails(-1);
+    scanWorker = new SwingWorker<>() {
+      @Override
+      protected List<SimilarMessage> doInBackground() {
+        return collectSimilarStrings(key, search, this::publish);
+      }
+
+      @Override
+      protected void process(List<List<SimilarMessage>> chunks) {
+        if (!isCancelled()) {
+          similarStringsModel.update(chunks.getLast());
+        }
+      }
+
+      @Override
+      protected void done() {
+        if (isCancelled()) {
+          return;
+        }
+        try {
+          List<SimilarMessage> similar = get();
+          List<SimilarMessage> values = problemStrings.computeIfAbsent(key, k -> new ArrayList<>());
+          values.clear();
+          values.addAll(similar);
+          scannedStrings.add(key);
+          similarStringsModel.update(similar);
+        } catch (InterruptedException | ExecutionException e) {
+          LOGGER.error("Could not scan for similar strings", e);
+          GuiUtils.showErrorMessage(ResolveTranslationProblems.this, "Could not scan for similar strings.", e);
+        }
+      }
+    };
+    scanWorker.execute();
+  }
+
+  private boolean isScanning() {
+    return scanWorker != null && !scanWorker.isDone();
+  }
+
+  private void cancelScan() {
+    if (scanWorker != null) {
+      scanWorker.cancel(true);
+      scanWorker = null;
+    }
   }
 
   private void finish() {
@@ -497,80 +1122,43 @@ public class ResolveTranslationProblems extends JFrame {
       ObsoleteStringsDialog.show(this);
       return;
     }
-    List<Message> unresolved = problemStrings.keySet().stream()
+    List<Message> unresolved = SourceReferenceSort.sort(problemStrings.keySet().stream()
         .filter(key -> !resolutions.containsKey(key))
         .map(key -> template.get(key))
-        .sorted(new MessageSourceReferenceComparator())
-        .toList();
+        .toList());
     if (!unresolved.isEmpty()) {
       boolean markAllNew = MarkNewDialog.prompt(this, unresolved);
       if (!markAllNew) {
         return;
       }
     }
-    unresolved.forEach(msg -> {
-      MessageKey key = new MessageKey(msg);
-      resolutions.put(key, new ProblemResolution(key, null, true));
-    });
     String file = languages.get(languageIndex);
-    String[] options = {"Cancel", "Yes, Write to New File", "Yes, Overwrite " + file + ".po"};
+    String[] options;
+    if (languages.size() > 1) {
+      options = new String[] {"Cancel", "Yes, Write to New File", "Yes, Overwrite " + file + ".po", "Yes, Overwrite All " + languages.size() + " Languages"};
+    } else {
+      options = new String[] {"Cancel", "Yes, Write to New File", "Yes, Overwrite " + file + ".po"};
+    }
     int answer = JOptionPane.showOptionDialog(this, "Are you sure you want to apply these updates?", "Question", JOptionPane.DEFAULT_OPTION, JOptionPane.QUESTION_MESSAGE, null, options, options[0]);
-    if (answer != 0) {
+    if (answer <= 0) {
+      return;
+    }
+    // only resolved once something is going to be written, or they would be replayed from the journal next time
+    unresolved.forEach(msg -> putResolution(new ProblemResolution(new MessageKey(msg), null, true)));
+    if (answer == 3) {
+      applyToAllLanguages();
+    } else {
       if (answer == 1) {
         file = languages.get(languageIndex) + "-" + StringUtil.randomChars(6);
       }
-      List<Message> resultMessages = new ArrayList<>();
-      template.forEach(msg -> {
-        Message newMsg = new Message();
-        newMsg.getSourceReferences().addAll(msg.getSourceReferences());
-        newMsg.getExtractedComments().addAll(msg.getExtractedComments());
-        newMsg.setMsgContext(msg.getMsgContext());
-        newMsg.setMsgId(msg.getMsgId());
-        MessageKey key = new MessageKey(newMsg);
-        if (translations.contains(key)) {
-          newMsg.setMsgstr(translations.get(key).getMsgstr());
-          resultMessages.add(newMsg);
-        } else {
-          ProblemResolution resolution = resolutions.get(key);
-          if (resolution == null || resolution.markNew()) {
-            resultMessages.add(newMsg);
-          } else if (resolution.langKey() != null) {
-            Message langMsg = translations.get(resolution.langKey());
-            newMsg.setMsgstr(langMsg.getMsgstr());
-            // add previous string if they don't match
-            if (!langMsg.getMsgId().equals(msg.getMsgId())) {
-              newMsg.setPrevMsgid(langMsg.getMsgId());
-            }
-            resultMessages.add(newMsg);
-          } else {
-            LOGGER.warn("Invalid resolution: {}", resolution);
-          }
-        }
-      });
-      resultMessages.sort(new MessageSourceReferenceComparator());
-      // add obsolete translations
-      translations.forEach(msg -> {
-        MessageKey key = new MessageKey(msg);
-        if (!template.contains(key) && !resolutionsReverse.containsKey(key)) {
-          Message newMsg = new Message();
-          newMsg.getSourceReferences().addAll(msg.getSourceReferences());
-          newMsg.getExtractedComments().addAll(msg.getExtractedComments());
-          newMsg.setMsgContext(msg.getMsgContext());
-          newMsg.setMsgId(msg.getMsgId());
-          newMsg.setMsgstr(msg.getMsgstr());
-          newMsg.markObsolete();
-          resultMessages.add(newMsg);
-        }
-      });
       Path path = profile.getLanguageFile(file);
       try {
-        Catalog result = new Catalog();
-        // add header from translation file
-        if (translations.header() != null) {
-          result.add(translations.header().toMessage());
+        PoBackend.current().write(applyResolutions(translations, resolutions), path);
+        RPY2PO.inst().getCatalogCache().invalidate(path);
+        if (answer == 2) {
+          // the resolutions are in the language file itself now
+          resetJournal();
         }
-        resultMessages.forEach(result::add);
-        new PoWriter().write(result, path.toFile());
         JOptionPane.showMessageDialog(this, "Successfully updated " + path.getFileName());
       } catch (IOException e) {
         LOGGER.error("Could not write file: {}", path.getFileName(), e);
@@ -579,6 +1167,67 @@ public class ResolveTranslationProblems extends JFrame {
     }
   }
 
+  /**
+   * Since every language file was created from the same old template, the resolutions made against the current
+   * language also apply to every other language. Updates all selected languages at once, in the background.
+   */
+  private void applyToAllLanguages() {
+    // the task must not see resolutions that are made while it runs
+    Map<MessageKey, ProblemResolution> snapshot = resolutions.snapshot();
+    String currentLang = languages.get(languageIndex);
+    Catalog currentTranslations = translations;
+    buttonFinish.setEnabled(false);
+    RPY2PO.inst().getTaskScheduler().submit("Updating " + languages.size() + " languages", TaskScheduler.Kind.IO, false, ctx -> {
+      Map<String, Exception> exceptions = new HashMap<>();
+      for (int i = 0; i < languages.size(); i++) {
+        ctx.checkCancelled();
+        String lang = languages.get(i);
+        ctx.progress(i, languages.size(), lang);
+        Path path = profile.getLanguageFile(lang);
+        try {
+          Catalog langCatalog;
+          if (lang.equals(currentLang)) {
+            langCatalog = currentTranslations;
+          } else {
+            langCatalog = RPY2PO.inst().getCatalogCache().get(path);
+          }
+          PoBackend.current().write(applyResolutions(langCatalog, snapshot), path);
+          RPY2PO.inst().getCatalogCache().invalidate(path);
+          LOGGER.info("Updated {}", path);
+        } catch (Exception e) {
+          LOGGER.error("Could not update file: {}", path, e);
+          exceptions.put(lang, e);
+        }
+      }
+      return exceptions;
+    }, exceptions -> {
+      buttonFinish.setEnabled(true);
+      if (exceptions.isEmpty()) {
+        resetJournal();
+        JOptionPane.showMessageDialog(this, "Successfully updated " + languages.size() + " languages: " + String.join(", ", languages));
+      } else {
+        JOptionPane.showMessageDialog(this, "Could not update:\n" + exceptions.keySet().stream().sorted().map(lang -> {
+          Exception e = exceptions.get(lang);
+          return "<" + lang + "> " + e.getClass().getSimpleName() + ": " + e.getMessage();
+        }).collect(Collectors.joining("\n")), "Error", JOptionPane.ERROR_MESSAGE);
+      }
+    }, e -> {
+      buttonFinish.setEnabled(true);
+      GuiUtils.showErrorMessage(this, "Could not update languages", e);
+    });
+  }
+
+  /**
+   * Creates an updated version of a language catalog by applying resolutions to it.
+   * @param langCatalog The language catalog, which must have been created from the same template as
+   *                    {@link #translations}
+   * @param resolved Resolutions of problem strings, keyed by template key
+   * @return A new catalog that matches the template. Translations that are no longer used are marked obsolete.
+   */
+  private Catalog applyResolutions(Catalog langCatalog, Map<MessageKey, ProblemResolution> resolved) {
+    return UpdateResolver.merge(template, langCatalog, resolved);
+  }
+
   {
 // GUI initializer generated by IntelliJ IDEA GUI Designer
 // >>> IMPORTANT!! <<<
@@ -744,7 +1393,7 @@ public class ResolveTranslationProblems extends JFrame {
     tableSimilar.setPreferredScrollableViewportSize(new Dimension(300, 200));
     scrollPane4.setViewportView(tableSimilar);
     final JPanel panel6 = new JPanel();
-    panel6.setLayout(new GridLayoutManager(2, 2, new Insets(0, 0, 0, 0), -1, -1));
+    panel6.setLayout(new GridLayoutManager(3, 2, new Insets(0, 0, 0, 0), -1, -1));
     panelLang.add(panel6, new GridConstraints(12, 0, 1, 1, GridConstraints.ANCHOR_CENTER, GridConstraints.FILL_BOTH, GridConstraints.SIZEPOLICY_CAN_SHRINK | GridConstraints.SIZEPOLICY_CAN_GROW, GridConstraints.SIZEPOLICY_CAN_SHRINK | GridConstraints.SIZEPOLICY_CAN_GROW, null, null, null, 0, false));
     buttonScan = new JButton();
     buttonScan.setText("Scan");
@@ -757,6 +1406,12 @@ public class ResolveTranslationProblems extends JFrame {
     checkBoxAllFiles = new JCheckBox();
     checkBoxAllFiles.setText("All Files");
     panel6.add(checkBoxAllFiles, new GridConstraints(0, 1, 1, 1, GridConstraints.ANCHOR_WEST, GridConstraints.FILL_NONE, GridConstraints.SIZEPOLICY_CAN_SHRINK | GridConstraints.SIZEPOLICY_CAN_GROW, GridConstraints.SIZEPOLICY_FIXED, null, null, null, 0, false));
+    comboBoxStrategy = new JComboBox();
+    final DefaultComboBoxModel defaultComboBoxModel1 = new DefaultComboBoxModel();
+    defaultComboBoxModel1.addElement("Exhaustive Search");
+    defaultComboBoxModel1.addElement("MinHash Search (Approximate)");
+    comboBoxStrategy.setModel(defaultComboBoxModel1);
+    panel6.add(comboBoxStrategy, new GridConstraints(2, 0, 1, 2, GridConstraints.ANCHOR_WEST, GridConstraints.FILL_HORIZONTAL, GridConstraints.SIZEPOLICY_CAN_GROW, GridConstraints.SIZEPOLICY_FIXED, null, null, null, 0, false));
     final JPanel panel7 = new JPanel();
     panel7.setLayout(new GridLayoutManager(1, 2, new Insets(0, 0, 0, 0), -1, -1));
     panelLang.add(panel7, new GridConstraints(8, 0, 1, 1, GridConstraints.ANCHOR_CENTER, GridConstraints.FILL_BOTH, GridConstraints.SIZEPOLICY_CAN_SHRINK | GridConstraints.SIZEPOLICY_CAN_GROW, GridConstraints.SIZEPOLICY_CAN_SHRINK | GridConstraints.SIZEPOLICY_CAN_GROW, null, null, null, 0, false));
@@ -7,6 +7,8 @@ import me.whizvox.rpy2po.core.Profile;
 import me.whizvox.rpy2po.gui.DocumentChangedListener;
 import me.whizvox.rpy2po.gui.GuiUtils;
 import me.whizvox.rpy2po.gui.RPY2PO;
+import me.whizvox.rpy2po.gui.task.TaskHandle;
+import me.whizvox.rpy2po.gui.task.TaskScheduler;
 import me.whizvox.rpy2po.rpytl.CharacterNames;
 import me.whizvox.rpy2po.rpytl.CommentGenerator;
 import me.whizvox.rpy2po.rpytl.RPY2POConverter;
@@ -42,10 +44,12 @@ public class SetCharacterNames extends JFrame {
   private JScrollPane scrollPaneTable;
 
   private final Profile profile;
+  private TaskHandle scanTask;
   private DefaultTableModel namesModel;
 
   public SetCharacterNames(Profile profile) {
     this.profile = profile;
+    scanTask = null;
     $$$setupUI$$$();
     setContentPane(contentPane);
 
@@ -154,26 +158,42 @@ public class SetCharacterNames extends JFrame {
   private void scanForNames() {
     enableButtons(false);
     Path tlDir = profile.getTranslationDirectory(profile.getPrimaryLanguage());
-    try {
+    scanTask = RPY2PO.inst().getTaskScheduler().submit("Scanning for character names", TaskScheduler.Kind.CPU, ctx -> {
       var converter = new RPY2POConverter(profile.getPrimaryLanguage(), profile.getTranslationFiles(profile.getPrimaryLanguage()), profile.getNames(), null, CommentGenerator.NONE);
-      var result = converter.convert();
+      return converter.convert();
+    }, result -> {
       if (!result.missingNames().isEmpty()) {
         Map<String, String> newNames = new HashMap<>(profile.getNames().names());
         result.missingNames().forEach(id -> newNames.put(id, ""));
         profile.setNames(new CharacterNames(newNames, profile.getNames().narrator(), profile.getNames().speakFormat()));
         updateNamesTable();
-        RPY2PO.inst().writeJson(profile.getFile(), profile);
+        try {
+          RPY2PO.inst().writeJson(profile.getFile(), profile);
+        } catch (IOException e) {
+          LOGGER.error("Could not save profile: {}", profile.getFile(), e);
+          GuiUtils.showErrorMessage(this, "Could not save profile", e);
+        }
         LOGGER.info("Finished scanning translation files in <{}>, found {} missing name(s)", tlDir, result.missingNames().size());
       } else {
         LOGGER.info("Finished scanning translation files in <{}>, found no missing names", tlDir);
       }
-    } catch (IOException e) {
+      enableButtons(true);
+    }, e -> {
       LOGGER.error("Could not scan translation files in {}", tlDir, e);
       GuiUtils.showErrorMessage(this, "Could not scan translation files!", e);
+      enableButtons(true);
+    });
+  }
+
+  @Override
+  public void dispose() {
+    if (scanTask != null) {
+      scanTask.cancel();
     }
-    enableButtons(true);
+    super.dispose();
   }
 
+
   /**
    * Method generated by IntelliJ IDEA GUI Designer
    * >>> IMPORTANT!! <<<
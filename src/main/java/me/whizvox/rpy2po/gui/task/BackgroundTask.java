@@ -0,0 +1,12 @@
+package me.whizvox.rpy2po.gui.task;
+
+/**
+ * Work to be done off the EDT.
+ * @param <T> The type of result
+ */
+@FunctionalInterface
+public interface BackgroundTask<T> {
+
+  T run(TaskContext ctx) throws Exception;
+
+}
@@ -0,0 +1,34 @@
+package me.whizvox.rpy2po.gui.task;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * Tells a background task that it should stop. Tasks are expected to check this every now and then, i.e. once per file
+ * or language, since not everything they call can be interrupted.
+ */
+public class CancellationToken {
+
+  private volatile boolean cancelled;
+
+  public CancellationToken() {
+    cancelled = false;
+  }
+
+  public void cancel() {
+    cancelled = true;
+  }
+
+  public boolean isCancelled() {
+    return cancelled;
+  }
+
+  /**
+   * @throws CancellationException If this token has been cancelled
+   */
+  public void throwIfCancelled() {
+    if (cancelled) {
+      throw new CancellationException();
+    }
+  }
+
+}
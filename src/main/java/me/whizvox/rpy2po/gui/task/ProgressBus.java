@@ -0,0 +1,59 @@
+package me.whizvox.rpy2po.gui.task;
+
+import javax.swing.*;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Hands progress of background tasks to whichever frames are listening. Tasks can report progress as often as they like
+ * from any thread: only the latest progress of each task is kept until the EDT gets around to delivering it, so a task
+ * going through thousands of strings does not flood the event queue.
+ */
+public class ProgressBus {
+
+  private final List<Consumer<TaskProgress>> listeners;
+  private Map<Long, TaskProgress> pending;
+  private boolean flushScheduled;
+
+  public ProgressBus() {
+    listeners = new CopyOnWriteArrayList<>();
+    pending = new LinkedHashMap<>();
+    flushScheduled = false;
+  }
+
+  /**
+   * @param listener Called on the EDT
+   */
+  public void addListener(Consumer<TaskProgress> listener) {
+    listeners.add(listener);
+  }
+
+  public void removeListener(Consumer<TaskProgress> listener) {
+    listeners.remove(listener);
+  }
+
+  public void publish(TaskProgress progress) {
+    synchronized (this) {
+      pending.put(progress.id(), progress);
+      if (flushScheduled) {
+        return;
+      }
+      flushScheduled = true;
+    }
+    SwingUtilities.invokeLater(this::flush);
+  }
+
+  private void flush() {
+    Map<Long, TaskProgress> events;
+    synchronized (this) {
+      events = pending;
+      pending = new LinkedHashMap<>();
+      flushScheduled = false;
+    }
+    events.values().forEach(progress -> listeners.forEach(listener -> listener.accept(progress)));
+  }
+
+}
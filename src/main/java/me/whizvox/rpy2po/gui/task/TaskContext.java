@@ -0,0 +1,60 @@
+package me.whizvox.rpy2po.gui.task;
+
+/**
+ * Given to a running background task, so that it can report its progress and find out whether it has been cancelled.
+ */
+public class TaskContext {
+
+  private final long id;
+  private final String name;
+  private final CancellationToken token;
+  private final ProgressBus bus;
+  private int done;
+  private int total;
+  private String message;
+
+  TaskContext(long id, String name, CancellationToken token, ProgressBus bus) {
+    this.id = id;
+    this.name = name;
+    this.token = token;
+    this.bus = bus;
+    done = 0;
+    total = 0;
+    message = null;
+  }
+
+  public CancellationToken getToken() {
+    return token;
+  }
+
+  public boolean isCancelled() {
+    return token.isCancelled();
+  }
+
+  /**
+   * @throws java.util.concurrent.CancellationException If the task has been cancelled
+   */
+  public void checkCancelled() {
+    token.throwIfCancelled();
+  }
+
+  public void progress(int done, int total, String message) {
+    this.done = done;
+    this.total = total;
+    this.message = message;
+    publish(TaskProgress.State.RUNNING);
+  }
+
+  public void progress(int done, int total) {
+    progress(done, total, message);
+  }
+
+  public void message(String message) {
+    progress(done, total, message);
+  }
+
+  void publish(TaskProgress.State state) {
+    bus.publish(new TaskProgress(id, name, done, total, message, state));
+  }
+
+}
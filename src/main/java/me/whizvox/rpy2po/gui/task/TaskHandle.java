@@ -0,0 +1,53 @@
+package me.whizvox.rpy2po.gui.task;
+
+import java.util.concurrent.Future;
+
+/**
+ * A task that has been submitted to a {@link TaskScheduler}.
+ */
+public class TaskHandle {
+
+  private final long id;
+  private final String name;
+  private final CancellationToken token;
+  private final boolean interruptible;
+  private volatile Future<?> future;
+
+  TaskHandle(long id, String name, CancellationToken token, boolean interruptible) {
+    this.id = id;
+    this.name = name;
+    this.token = token;
+    this.interruptible = interruptible;
+    future = null;
+  }
+
+  void setFuture(Future<?> future) {
+    this.future = future;
+  }
+
+  public long getId() {
+    return id;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public boolean isDone() {
+    Future<?> f = future;
+    return f != null && f.isDone();
+  }
+
+  /**
+   * Cancel this task. Its callbacks are not called afterward, even if it was about to finish. Tasks that are not
+   * interruptible keep running until they next check their token.
+   */
+  public void cancel() {
+    token.cancel();
+    Future<?> f = future;
+    if (f != null) {
+      f.cancel(interruptible);
+    }
+  }
+
+}
@@ -0,0 +1,50 @@
+package me.whizvox.rpy2po.gui.task;
+
+/**
+ * A snapshot of how far along a background task is.
+ * @param id Unique to each submitted task
+ * @param name What the task is doing, i.e. <code>Generating template</code>
+ * @param done How many steps have been done so far
+ * @param total How many steps there are in total, or <code>0</code> if that is not known
+ * @param message What the task is currently working on, or <code>null</code>
+ * @param state Whether the task is still running, and how it ended if not
+ */
+public record TaskProgress(long id,
+                           String name,
+                           int done,
+                           int total,
+                           String message,
+                           State state) {
+
+  public enum State {
+    RUNNING,
+    SUCCEEDED,
+    FAILED,
+    CANCELLED
+  }
+
+  public boolean isFinished() {
+    return state != State.RUNNING;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder(name);
+    switch (state) {
+      case RUNNING -> {
+        sb.append("...");
+        if (total > 0) {
+          sb.append(" (").append(done).append('/').append(total).append(')');
+        }
+        if (message != null) {
+          sb.append('\n').append(message);
+        }
+      }
+      case SUCCEEDED -> sb.append(": done");
+      case FAILED -> sb.append(": failed");
+      case CANCELLED -> sb.append(": cancelled");
+    }
+    return sb.toString();
+  }
+
+}
@@ -0,0 +1,125 @@
+package me.whizvox.rpy2po.gui.task;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.swing.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Runs long actions off the EDT so that the UI stays responsive. Tasks that mostly wait on files each get their own
+ * virtual thread, while tasks that mostly keep the CPU busy share a pool with one thread per processor, so that several
+ * of them do not fight over the same cores.
+ * <p>
+ * Progress is reported through the {@link #getProgressBus() progress bus}, and the result of a task is handed back on
+ * the EDT. A cancelled task never calls back.
+ */
+public class TaskScheduler {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(TaskScheduler.class);
+
+  public enum Kind {
+    /** Mostly reads and writes files */
+    IO,
+    /** Mostly parses, converts or compares strings */
+    CPU
+  }
+
+  private final ExecutorService ioExecutor;
+  private final ExecutorService cpuExecutor;
+  private final ProgressBus progressBus;
+  private final AtomicLong nextId;
+
+  public TaskScheduler(int cpuThreads) {
+    ioExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("IO Task ", 0).factory());
+    cpuExecutor = Executors.newFixedThreadPool(cpuThreads, r -> {
+      Thread thread = new Thread(r, "CPU Task");
+      thread.setDaemon(true);
+      return thread;
+    });
+    progressBus = new ProgressBus();
+    nextId = new AtomicLong();
+  }
+
+  public TaskScheduler() {
+    this(Runtime.getRuntime().availableProcessors());
+  }
+
+  public ProgressBus getProgressBus() {
+    return progressBus;
+  }
+
+  /**
+   * Run a task in the background, which is interrupted if it is cancelled.
+   * @param name What the task is doing, shown alongside its progress
+   * @param kind Decides which threads the task runs on
+   * @param task The task itself
+   * @param onSuccess Receives the result on the EDT. Can be <code>null</code>.
+   * @param onFailure Receives whatever the task threw on the EDT. Can be <code>null</code>, in which case it is only
+   *                  logged.
+   */
+  public <T> TaskHandle submit(String name, Kind kind, BackgroundTask<T> task, Consumer<T> onSuccess,
+                               Consumer<Exception> onFailure) {
+    return submit(name, kind, true, task, onSuccess, onFailure);
+  }
+
+  /**
+   * Run a task in the background.
+   * @param interruptible Whether cancelling the task interrupts it. Tasks that write files should not be, since an
+   *                      interrupt can leave a file half-written, and check their token between files instead.
+   * @see #submit(String, Kind, BackgroundTask, Consumer, Consumer)
+   */
+  public <T> TaskHandle submit(String name, Kind kind, boolean interruptible, BackgroundTask<T> task,
+                               Consumer<T> onSuccess, Consumer<Exception> onFailure) {
+    long id = nextId.incrementAndGet();
+    CancellationToken token = new CancellationToken();
+    TaskHandle handle = new TaskHandle(id, name, token, interruptible);
+    ExecutorService executor = kind == Kind.IO ? ioExecutor : cpuExecutor;
+    handle.setFuture(executor.submit(() -> {
+      TaskContext ctx = new TaskContext(id, name, token, progressBus);
+      ctx.publish(TaskProgress.State.RUNNING);
+      long start = System.currentTimeMillis();
+      try {
+        token.throwIfCancelled();
+        T result = task.run(ctx);
+        token.throwIfCancelled();
+        LOGGER.debug("{} finished in {} ms", name, System.currentTimeMillis() - start);
+        ctx.publish(TaskProgress.State.SUCCEEDED);
+        SwingUtilities.invokeLater(() -> {
+          if (!token.isCancelled() && onSuccess != null) {
+            onSuccess.accept(result);
+          }
+        });
+      } catch (CancellationException | InterruptedException e) {
+        LOGGER.debug("{} was cancelled after {} ms", name, System.currentTimeMillis() - start);
+        ctx.publish(TaskProgress.State.CANCELLED);
+      } catch (Exception e) {
+        if (token.isCancelled()) {
+          // most likely failed because it was interrupted
+          ctx.publish(TaskProgress.State.CANCELLED);
+          return;
+        }
+        LOGGER.error("{} failed", name, e);
+        ctx.publish(TaskProgress.State.FAILED);
+        if (onFailure != null) {
+          SwingUtilities.invokeLater(() -> {
+            if (!token.isCancelled()) {
+              onFailure.accept(e);
+            }
+          });
+        }
+      }
+    }));
+    return handle;
+  }
+
+  public void shutdown() {
+    ioExecutor.shutdownNow();
+    cpuExecutor.shutdownNow();
+  }
+
+}
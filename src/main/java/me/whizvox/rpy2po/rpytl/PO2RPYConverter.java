@@ -1,7 +1,10 @@
 package me.whizvox.rpy2po.rpytl;
 
 import com.soberlemur.potentilla.Catalog;
-import com.soberlemur.potentilla.PoParser;
+import me.whizvox.rpy2po.gettext.CatalogCache;
+import me.whizvox.rpy2po.gettext.PoBackend;
+import me.whizvox.rpy2po.gettext.PoEntry;
+import me.whizvox.rpy2po.gettext.StreamingPoReader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -11,6 +14,8 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
 
 public record PO2RPYConverter(String language,
                               Path input,
@@ -18,10 +23,31 @@ public record PO2RPYConverter(String language,
 
   private static final Logger LOGGER = LoggerFactory.getLogger(PO2RPYConverter.class);
 
+  private record MessageId(String context, String id) {
+  }
+
   public Map<String, TranslationFile> convert() throws IOException {
-    Map<String, TranslationFile> files = new HashMap<>();
-    Catalog catalog = new PoParser().parseCatalog(input.toFile());
+    if (PoBackend.current() == PoBackend.STREAMING) {
+      return convertStreaming();
+    }
+    Catalog catalog = PoBackend.current().read(input);
     LOGGER.info("Finished parsing catalog at {}", input);
+    return convert(catalog);
+  }
+
+  /**
+   * Same as {@link #convert()}, but reuses the catalog if it is already cached. With the
+   * {@link PoBackend#STREAMING streaming backend}, the file is always read again without building a catalog instead.
+   */
+  public Map<String, TranslationFile> convert(CatalogCache catalogs) throws IOException {
+    if (PoBackend.current() == PoBackend.STREAMING) {
+      return convertStreaming();
+    }
+    return convert(catalogs.get(input));
+  }
+
+  private Map<String, TranslationFile> convert(Catalog catalog) {
+    Map<String, TranslationFile> files = new HashMap<>();
     catalog.forEach(msg -> {
       if (!msg.isObsolete()) {
         try {
@@ -32,6 +58,43 @@ public record PO2RPYConverter(String language,
         }
       }
     });
+    return finish(files);
+  }
+
+  // every entry goes straight into its translation file, so the language file is never held in memory in its entirety.
+  // only the keys are remembered, so that a duplicate replaces the earlier entry just like it would in a catalog.
+  private Map<String, TranslationFile> convertStreaming() throws IOException {
+    Map<String, TranslationFile> files = new HashMap<>();
+    Map<MessageId, TranslationEntry> seen = new HashMap<>();
+    try (StreamingPoReader reader = StreamingPoReader.open(input)) {
+      PoEntry poEntry;
+      while ((poEntry = reader.next()) != null) {
+        if (poEntry.obsolete() || poEntry.isHeader()) {
+          continue;
+        }
+        if (poEntry.references().isEmpty()) {
+          LOGGER.error("Found message without a source reference: {}", poEntry);
+          continue;
+        }
+        try {
+          TranslationEntry entry = statements.format(poEntry.msgContext(), poEntry.msgId(), poEntry.msgstr(),
+              poEntry.references().getFirst(), language);
+          TranslationEntry previous = seen.put(new MessageId(poEntry.msgContext(), poEntry.msgId()), entry);
+          if (previous != null) {
+            LOGGER.warn("Found duplicate message, only keeping the last one: {}", poEntry);
+            files.get(previous.file()).remove(previous);
+          }
+          files.computeIfAbsent(entry.file(), k -> new TranslationFile()).add(entry);
+        } catch (IllegalArgumentException e) {
+          LOGGER.error("Found malformed message: {}", poEntry, e);
+        }
+      }
+    }
+    LOGGER.info("Finished reading catalog at {}", input);
+    return finish(files);
+  }
+
+  private Map<String, TranslationFile> finish(Map<String, TranslationFile> files) {
     statements.plain().values().forEach(stmt -> {
       files.get(stmt.file()).add(new TranslationEntry(stmt.id(), language, stmt.statement(), stmt.statement(), stmt.file(), stmt.line()));
     });
@@ -40,8 +103,21 @@ public record PO2RPYConverter(String language,
   }
 
   public Map<String, Exception> write(Map<String, TranslationFile> files, Path outputDir) {
+    return write(files, outputDir, () -> false);
+  }
+
+  /**
+   * Same as {@link #write(Map, Path)}, but stops before the next file once cancelled. Files are never left half-written.
+   * @throws CancellationException If cancelled before every file was written
+   */
+  public Map<String, Exception> write(Map<String, TranslationFile> files, Path outputDir, BooleanSupplier cancelled) {
     Map<String, Exception> exceptions = new HashMap<>();
-    files.forEach((filePath, tlFile) -> {
+    for (Map.Entry<String, TranslationFile> file : files.entrySet()) {
+      if (cancelled.getAsBoolean()) {
+        throw new CancellationException();
+      }
+      String filePath = file.getKey();
+      TranslationFile tlFile = file.getValue();
       // don't use game directory
       if (filePath.startsWith("game/")) {
         filePath = filePath.substring(5);
@@ -56,7 +132,7 @@ public record PO2RPYConverter(String language,
       } catch (IOException e) {
         exceptions.put(filePath, e);
       }
-    });
+    }
     if (!exceptions.isEmpty()) {
       LOGGER.error("Could not write {} Ren'Py translation files:", exceptions.size());
       exceptions.keySet().stream()
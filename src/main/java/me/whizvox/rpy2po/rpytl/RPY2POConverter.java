@@ -49,71 +49,116 @@ public record RPY2POConverter(String language,
    * @throws IOException If reading any of the input files fails
    */
   public Result convert() throws IOException {
+    List<Result> results = new ArrayList<>(inputs.size());
+    for (Path inPath : inputs) {
+      results.add(convertFile(inPath));
+    }
+    return merge(results);
+  }
+
+  /**
+   * Converts a single <code>.rpy</code> file, the same way {@link #convert()} does. Files do not depend on each other,
+   * so the results of files that have not changed can be kept around and {@link #merge(List) merged} with the results
+   * of files that have.
+   * @param inPath The file to read, which does not have to be one of {@link #inputs()}
+   * @return The result of converting only this file
+   * @throws IOException If reading the file fails
+   */
+  public Result convertFile(Path inPath) throws IOException {
     Catalog catalog = new Catalog();
     Map<String, String> dialogue = new HashMap<>();
     Map<String, Statement> plain = new HashMap<>();
     List<String> mismatchedFormats = new ArrayList<>();
     List<String> missingNames = new ArrayList<>();
     TranslationContext ctx = new TranslationContext(names);
-    for (Path inPath : inputs) {
-      LOGGER.info("Reading input file <{}>...", inPath);
-      try (InputStream in = Files.newInputStream(inPath)) {
-        TranslationFile file = TranslationFile.read(in);
-        String fileLang = file.getLanguage(true);
-        if (!fileLang.equals(language)) {
-          throw new IllegalArgumentException("File language does not match exporter's configured language");
-        }
-        for (TranslationEntry entry : file) {
-          Message msg = new Message();
-          msg.addSourceReference(entry.file(), entry.line());
-          List<String> comments;
-          if (entry.isStatement()) {
-            msg.setMsgContext(entry.id());
-            Dialogue origDialogue = entry.parseOriginalDialogue();
-            Dialogue tlDialogue = entry.parseTranslatedDialogue();
-            // Check if the line contains actual dialogue instead of some other code (i.e. `nvl clear`)
-            if (origDialogue.what() != null && tlDialogue.what() != null) {
-              if (origDialogue.nameOnly()) {
-                msg.setMsgId(origDialogue.who() + " :: " + origDialogue.what());
-              } else {
-                msg.setMsgId(origDialogue.what());
-              }
-              if (tlDialogue.nameOnly()) {
-                msg.setMsgstr(tlDialogue.who() + " :: " + tlDialogue.what());
-              } else {
-                msg.setMsgstr(tlDialogue.what());
-              }
-            }
-            if (validateStatements == null) {
-              if (origDialogue.isPlainStatement()) {
-                plain.put(entry.id(), new Statement(entry.id(), origDialogue.format(), entry.file(), entry.line()));
-              } else {
-                dialogue.put(entry.id(), origDialogue.format());
-              }
-            } else if (!validateStatements.matches(entry.id(), origDialogue.format()) || !validateStatements.matches(entry.id(), tlDialogue.format())) {
-              mismatchedFormats.add(entry.id());
+    LOGGER.info("Reading input file <{}>...", inPath);
+    try (InputStream in = Files.newInputStream(inPath)) {
+      TranslationFile file = TranslationFile.read(in);
+      String fileLang = file.getLanguage(true);
+      if (!fileLang.equals(language)) {
+        throw new IllegalArgumentException("File language does not match exporter's configured language");
+      }
+      for (TranslationEntry entry : file) {
+        Message msg = new Message();
+        msg.addSourceReference(entry.file(), entry.line());
+        List<String> comments;
+        if (entry.isStatement()) {
+          msg.setMsgContext(entry.id());
+          Dialogue origDialogue = entry.parseOriginalDialogue();
+          Dialogue tlDialogue = entry.parseTranslatedDialogue();
+          // Check if the line contains actual dialogue instead of some other code (i.e. `nvl clear`)
+          if (origDialogue.what() != null && tlDialogue.what() != null) {
+            if (origDialogue.nameOnly()) {
+              msg.setMsgId(origDialogue.who() + " :: " + origDialogue.what());
+            } else {
+              msg.setMsgId(origDialogue.what());
             }
-            comments = commentGenerator.generate(entry, origDialogue, ctx);
-            if (origDialogue.who() != null && !origDialogue.nameOnly() && !names.contains(origDialogue.who()) && !missingNames.contains(origDialogue.who())) {
-              missingNames.add(origDialogue.who());
+            if (tlDialogue.nameOnly()) {
+              msg.setMsgstr(tlDialogue.who() + " :: " + tlDialogue.what());
+            } else {
+              msg.setMsgstr(tlDialogue.what());
             }
-          } else {
-            msg.setMsgId(entry.originalText());
-            msg.setMsgstr(entry.translatedText());
-            comments = commentGenerator.generate(entry, null, ctx);
           }
-          if (!comments.isEmpty()) {
-            comments.forEach(msg::addExtractedComment);
+          if (validateStatements == null) {
+            if (origDialogue.isPlainStatement()) {
+              plain.put(entry.id(), new Statement(entry.id(), origDialogue.format(), entry.file(), entry.line()));
+            } else {
+              dialogue.put(entry.id(), origDialogue.format());
+            }
+          } else if (!validateStatements.matches(entry.id(), origDialogue.format()) || !validateStatements.matches(entry.id(), tlDialogue.format())) {
+            mismatchedFormats.add(entry.id());
           }
-          if (msg.getMsgId() != null) {
-            catalog.add(msg);
+          comments = commentGenerator.generate(entry, origDialogue, ctx);
+          if (origDialogue.who() != null && !origDialogue.nameOnly() && !names.contains(origDialogue.who()) && !missingNames.contains(origDialogue.who())) {
+            missingNames.add(origDialogue.who());
           }
+        } else {
+          msg.setMsgId(entry.originalText());
+          msg.setMsgstr(entry.translatedText());
+          comments = commentGenerator.generate(entry, null, ctx);
+        }
+        if (!comments.isEmpty()) {
+          comments.forEach(msg::addExtractedComment);
+        }
+        if (msg.getMsgId() != null) {
+          catalog.add(msg);
         }
       }
     }
     return new Result(catalog, new Statements(plain, dialogue), mismatchedFormats, missingNames);
   }
 
+  /**
+   * Combine the results of converting several files, as if they had been converted together.
+   * @param results The results of {@link #convertFile(Path)}, in the same order as the files would be read by
+   *                {@link #convert()}. They are left untouched, so they can be merged again later.
+   */
+  public static Result merge(List<Result> results) {
+    Catalog catalog = new Catalog();
+    Map<String, String> dialogue = new HashMap<>();
+    Map<String, Statement> plain = new HashMap<>();
+    List<String> mismatchedFormats = new ArrayList<>();
+    Set<String> missingNames = new LinkedHashSet<>();
+    for (Result result : results) {
+      result.catalog().forEach(msg -> catalog.add(copy(msg)));
+      dialogue.putAll(result.statements().dialogue());
+      plain.putAll(result.statements().plain());
+      mismatchedFormats.addAll(result.mismatchedFormats());
+      missingNames.addAll(result.missingNames());
+    }
+    return new Result(catalog, new Statements(plain, dialogue), mismatchedFormats, new ArrayList<>(missingNames));
+  }
+
+  static Message copy(Message msg) {
+    Message copy = new Message();
+    copy.getSourceReferences().addAll(msg.getSourceReferences());
+    copy.getExtractedComments().addAll(msg.getExtractedComments());
+    copy.setMsgContext(msg.getMsgContext());
+    copy.setMsgId(msg.getMsgId());
+    copy.setMsgstr(msg.getMsgstr());
+    return copy;
+  }
+
   /**
    * The result of converting <code>.rpy</code> files into a <code>.po/.pot</code> file.
    * @param statements All statements found in the Ren'Py file
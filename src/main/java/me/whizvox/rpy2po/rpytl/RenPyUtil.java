@@ -6,10 +6,15 @@ import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Stream;
 
 public class RenPyUtil {
 
+  // generated translation IDs look like `label_0123abcd`, with a `_1`, `_2`, etc. suffix if there are duplicates
+  private static final Pattern TRANSLATION_ID = Pattern.compile("^(.*)_[0-9a-f]{8}(?:_\\d+)?$");
+
   public static List<Path> scanForTranslationFiles(Path projectDir, String language, boolean includeCommon) throws IOException {
     List<Path> output = new ArrayList<>();
     try (Stream<Path> walk = Files.walk(projectDir.resolve("game").resolve("tl").resolve(language))) {
@@ -27,4 +32,18 @@ public class RenPyUtil {
     return scanForTranslationFiles(projectDir, language, false);
   }
 
+  /**
+   * Get the label a Ren'Py-generated translation ID belongs to.
+   * @param id The translation ID, i.e. <code>start_a170b500</code>
+   * @return The label of the translation ID (i.e. <code>start</code>), or <code>null</code> if the ID wasn't
+   * generated by Ren'Py
+   */
+  public static String getLabel(String id) {
+    Matcher m = TRANSLATION_ID.matcher(id);
+    if (m.matches()) {
+      return m.group(1);
+    }
+    return null;
+  }
+
 }
@@ -0,0 +1,100 @@
+package me.whizvox.rpy2po.rpytl;
+
+import com.soberlemur.potentilla.Catalog;
+import com.soberlemur.potentilla.Message;
+import com.soberlemur.potentilla.MessageKey;
+import me.whizvox.rpy2po.core.MyersDiff;
+import me.whizvox.rpy2po.core.StringUtil;
+import me.whizvox.rpy2po.gettext.ProblemResolution;
+import me.whizvox.rpy2po.gettext.SourceReference;
+
+import java.util.*;
+
+/**
+ * Resolves template messages whose translation ID changed by aligning message sequences instead of searching every
+ * orphaned message. Editing a line of dialogue changes its Ren'Py translation ID, but the line stays in the same place
+ * of the same file and label. So both catalogs are split up by source file and label, each part is ordered by its
+ * source references, and the parts are diffed. Whenever a run of orphaned translation messages was replaced by a run of
+ * unresolved template messages of the same length, they are paired up by position.
+ * @param template The new template catalog
+ * @param translations The old translation catalog
+ */
+public record SequenceAligner(Catalog template,
+                              Catalog translations) {
+
+  private record Entry(MessageKey key, int line) {
+  }
+
+  /**
+   * Align both catalogs.
+   * @param problems Template messages that are allowed to be resolved
+   * @param orphans Translation messages that are allowed to be used for a resolution
+   * @param minSimilarity The minimum similarity a pair needs to have. Pairs below this are left alone so that they can
+   *                      be resolved some other way.
+   * @return All resolutions found by aligning both catalogs, in no particular order
+   */
+  public List<ProblemResolution> align(Set<MessageKey> problems, Set<MessageKey> orphans, float minSimilarity) {
+    List<ProblemResolution> resolutions = new ArrayList<>();
+    if (problems.isEmpty() || orphans.isEmpty()) {
+      return resolutions;
+    }
+    Map<String, List<Entry>> tplGroups = group(template);
+    Map<String, List<Entry>> langGroups = group(translations);
+    Map<MessageKey, Integer> ids = new HashMap<>();
+    tplGroups.forEach((group, tplEntries) -> {
+      List<Entry> langEntries = langGroups.get(group);
+      if (langEntries == null
+          || tplEntries.stream().noneMatch(entry -> problems.contains(entry.key()))
+          || langEntries.stream().noneMatch(entry -> orphans.contains(entry.key()))) {
+        return;
+      }
+      int[] a = toIds(langEntries, ids);
+      int[] b = toIds(tplEntries, ids);
+      for (MyersDiff.Hunk hunk : MyersDiff.diff(a, b)) {
+        List<MessageKey> removed = langEntries.subList(hunk.aStart(), hunk.aEnd()).stream()
+            .map(Entry::key)
+            .filter(orphans::contains)
+            .toList();
+        List<MessageKey> added = tplEntries.subList(hunk.bStart(), hunk.bEnd()).stream()
+            .map(Entry::key)
+            .filter(problems::contains)
+            .toList();
+        // if lines were added or removed as well, there's no telling which line became which
+        if (!removed.isEmpty() && removed.size() == added.size()) {
+          for (int i = 0; i < added.size(); i++) {
+            MessageKey tplKey = added.get(i);
+            MessageKey langKey = removed.get(i);
+            if (StringUtil.getSimilarity(tplKey.msgId(), langKey.msgId(), minSimilarity) >= 0) {
+              resolutions.add(new ProblemResolution(tplKey, langKey, false));
+            }
+          }
+        }
+      }
+    });
+    return resolutions;
+  }
+
+  private static Map<String, List<Entry>> group(Catalog catalog) {
+    Map<String, List<Entry>> groups = new HashMap<>();
+    for (Message msg : catalog) {
+      if (msg.getSourceReferences().isEmpty()) {
+        continue;
+      }
+      SourceReference ref = msg.getSourceReferences().stream().map(SourceReference::parse).min(Comparator.naturalOrder()).orElseThrow();
+      String label = msg.getMsgContext() == null ? null : RenPyUtil.getLabel(msg.getMsgContext());
+      String group = label == null ? ref.file() : ref.file() + "\n" + label;
+      groups.computeIfAbsent(group, k -> new ArrayList<>()).add(new Entry(new MessageKey(msg), ref.line()));
+    }
+    groups.values().forEach(entries -> entries.sort(Comparator.comparingInt(Entry::line)));
+    return groups;
+  }
+
+  private static int[] toIds(List<Entry> entries, Map<MessageKey, Integer> ids) {
+    int[] result = new int[entries.size()];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = ids.computeIfAbsent(entries.get(i).key(), k -> ids.size());
+    }
+    return result;
+  }
+
+}
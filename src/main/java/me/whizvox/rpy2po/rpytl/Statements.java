@@ -28,17 +28,25 @@ public record Statements(Map<String, Statement> plain,
   }
 
   public TranslationEntry format(Message msg, String language) {
-    SourceReference ref = SourceReference.parse(msg.getSourceReferences().getFirst());
-    if (msg.getMsgContext() == null) {
-      return new TranslationEntry(null, language, msg.getMsgId(), msg.getMsgstr(), ref.file(), ref.line());
+    return format(msg.getMsgContext(), msg.getMsgId(), msg.getMsgstr(), msg.getSourceReferences().getFirst(), language);
+  }
+
+  /**
+   * Same as {@link #format(Message, String)}, for messages that were never turned into a {@link Message}.
+   * @param reference The first source reference of the message
+   */
+  public TranslationEntry format(String msgContext, String msgId, String msgstr, String reference, String language) {
+    SourceReference ref = SourceReference.parse(reference);
+    if (msgContext == null) {
+      return new TranslationEntry(null, language, msgId, msgstr, ref.file(), ref.line());
     }
-    String format = dialogue.get(msg.getMsgContext());
+    String format = dialogue.get(msgContext);
     if (format == null) {
       throw new IllegalArgumentException("Invalid message, msgctxt does not correlate to any statement");
     }
-    String original = doFormat(format, msg.getMsgId());
-    String translated = doFormat(format, msg.getMsgstr());
-    return new TranslationEntry(msg.getMsgContext(), language, original, translated, ref.file(), ref.line());
+    String original = doFormat(format, msgId);
+    String translated = doFormat(format, msgstr);
+    return new TranslationEntry(msgContext, language, original, translated, ref.file(), ref.line());
   }
 
   private static String doFormat(String format, String msg) {
@@ -0,0 +1,231 @@
+package me.whizvox.rpy2po.rpytl;
+
+import com.soberlemur.potentilla.Catalog;
+import com.soberlemur.potentilla.Message;
+import me.whizvox.rpy2po.gettext.SourceReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * A template that is kept split up by the translation file each part of it came from, so that when only a few files
+ * change, only those files have to be converted again. The catalog is emitted in source order by merging the segments,
+ * which are each sorted once when they are converted, and the statements are combined in file order, the same way
+ * {@link RPY2POConverter#convert()} combines them.
+ * <p>
+ * Not thread-safe. Files are converted in parallel, but everything else happens on the calling thread.
+ */
+public class TemplateSegments {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(TemplateSegments.class);
+
+  /**
+   * @param parsed How many files were converted
+   * @param removed How many segments were removed because their files are no longer part of the template
+   */
+  public record Update(int parsed,
+                       int removed) {
+
+    public boolean isEmpty() {
+      return parsed == 0 && removed == 0;
+    }
+
+  }
+
+  private record Segment(RPY2POConverter.Result result,
+                         List<Message> messages,
+                         SourceReference[] references) {
+
+    static Segment of(RPY2POConverter.Result result) {
+      List<Message> messages = new ArrayList<>();
+      result.catalog().forEach(messages::add);
+      SourceReference[] references = new SourceReference[messages.size()];
+      for (int i = 0; i < references.length; i++) {
+        references[i] = firstReference(messages.get(i));
+      }
+      // Ren'Py writes most files in source order already, in which case this does next to nothing
+      Integer[] order = new Integer[references.length];
+      for (int i = 0; i < order.length; i++) {
+        order[i] = i;
+      }
+      Arrays.sort(order, (a, b) -> compare(references[a], references[b]));
+      List<Message> sortedMessages = new ArrayList<>(order.length);
+      SourceReference[] sortedReferences = new SourceReference[order.length];
+      for (int i = 0; i < order.length; i++) {
+        sortedMessages.add(messages.get(order[i]));
+        sortedReferences[i] = references[order[i]];
+      }
+      return new Segment(result, sortedMessages, sortedReferences);
+    }
+
+  }
+
+  private final Map<Path, Segment> segments;
+  private List<Path> files;
+  private CharacterNames names;
+
+  public TemplateSegments() {
+    segments = new HashMap<>();
+    files = List.of();
+    names = null;
+  }
+
+  /**
+   * @return How many files currently have a segment
+   */
+  public int size() {
+    return segments.size();
+  }
+
+  public boolean contains(Path file) {
+    return segments.containsKey(file);
+  }
+
+  /**
+   * Bring the segments up to date with a set of files. Files without a segment are always converted, and segments of
+   * files that are not in <code>files</code> anymore are removed. If the converter uses different character names
+   * than the last update, every file is converted again, since comments and missing names depend on them.
+   * @param converter Used to convert files. Its {@link RPY2POConverter#inputs() inputs} are ignored.
+   * @param files Every file the template is made from, in the order they would be read by
+   *              {@link RPY2POConverter#convert()}
+   * @param changed The files that have changed since the last update, or <code>null</code> to convert every file
+   * @return What was done
+   * @throws IOException If any file could not be converted. The segments of every other file are still updated, while
+   * the segment of a file that failed is removed, so that it is converted again on the next update.
+   */
+  public Update update(RPY2POConverter converter, List<Path> files, Set<Path> changed) throws IOException {
+    if (converter.names() != names) {
+      clear();
+      names = converter.names();
+    }
+    this.files = List.copyOf(files);
+    Set<Path> fileSet = new HashSet<>(files);
+    List<Path> stale = segments.keySet().stream().filter(file -> !fileSet.contains(file)).toList();
+    stale.forEach(this::remove);
+    List<Path> toParse = files.stream()
+        .filter(file -> changed == null || changed.contains(file) || !segments.containsKey(file))
+        .distinct()
+        .toList();
+    // a file either converts or leaves an exception behind, in the same position
+    List<Object> results = toParse.parallelStream().map(file -> {
+      try {
+        return (Object) converter.convertFile(file);
+      } catch (IOException | RuntimeException e) {
+        return e;
+      }
+    }).toList();
+    Exception failure = null;
+    int parsed = 0;
+    for (int i = 0; i < toParse.size(); i++) {
+      Path file = toParse.get(i);
+      if (results.get(i) instanceof RPY2POConverter.Result result) {
+        segments.put(file, Segment.of(result));
+        parsed++;
+      } else {
+        remove(file);
+        Exception e = (Exception) results.get(i);
+        LOGGER.warn("Could not convert {}", file, e);
+        if (failure == null) {
+          failure = e;
+        } else {
+          failure.addSuppressed(e);
+        }
+      }
+    }
+    if (failure instanceof IOException e) {
+      throw e;
+    } else if (failure != null) {
+      throw new IOException("Could not convert " + (toParse.size() - parsed) + " file(s)", failure);
+    }
+    return new Update(parsed, stale.size());
+  }
+
+  /**
+   * Remove a file's segment, along with every message and statement it contributed.
+   * @return <code>true</code> if the file had a segment
+   */
+  public boolean remove(Path file) {
+    return segments.remove(file) != null;
+  }
+
+  public void clear() {
+    segments.clear();
+  }
+
+  /**
+   * Put the segments back together. The catalog lists every message in source order, regardless of which file it was
+   * converted from.
+   * @return A result that can be written like the one returned by {@link RPY2POConverter#convert()}. Nothing in it is
+   * shared with these segments.
+   */
+  public RPY2POConverter.Result toResult() {
+    List<Segment> ordered = new ArrayList<>(segments.size());
+    for (Path file : files) {
+      Segment segment = segments.get(file);
+      if (segment != null) {
+        ordered.add(segment);
+      }
+    }
+    // statements are combined from scratch, so that an id that moved between files always ends up with the file
+    // that comes last, no matter which files changed
+    Map<String, String> dialogue = new HashMap<>();
+    Map<String, Statement> plain = new HashMap<>();
+    List<String> mismatchedFormats = new ArrayList<>();
+    Set<String> missingNames = new LinkedHashSet<>();
+    for (Segment segment : ordered) {
+      dialogue.putAll(segment.result().statements().dialogue());
+      plain.putAll(segment.result().statements().plain());
+      mismatchedFormats.addAll(segment.result().mismatchedFormats());
+      missingNames.addAll(segment.result().missingNames());
+    }
+    return new RPY2POConverter.Result(emit(ordered), new Statements(plain, dialogue), mismatchedFormats,
+        new ArrayList<>(missingNames));
+  }
+
+  // k-way merge of the already sorted segments, ties going to the segment of the file that comes first
+  private static Catalog emit(List<Segment> ordered) {
+    Catalog catalog = new Catalog();
+    int[] positions = new int[ordered.size()];
+    PriorityQueue<Integer> queue = new PriorityQueue<>((a, b) -> {
+      int cmp = compare(ordered.get(a).references()[positions[a]], ordered.get(b).references()[positions[b]]);
+      return cmp != 0 ? cmp : Integer.compare(a, b);
+    });
+    for (int i = 0; i < ordered.size(); i++) {
+      if (!ordered.get(i).messages().isEmpty()) {
+        queue.add(i);
+      }
+    }
+    while (!queue.isEmpty()) {
+      int i = queue.poll();
+      Segment segment = ordered.get(i);
+      catalog.add(RPY2POConverter.copy(segment.messages().get(positions[i])));
+      if (++positions[i] < segment.messages().size()) {
+        queue.add(i);
+      }
+    }
+    return catalog;
+  }
+
+  private static SourceReference firstReference(Message msg) {
+    SourceReference first = null;
+    for (String str : msg.getSourceReferences()) {
+      SourceReference ref = SourceReference.parse(str);
+      if (first == null || ref.compareTo(first) < 0) {
+        first = ref;
+      }
+    }
+    return first;
+  }
+
+  // messages without a reference go first
+  private static int compare(SourceReference ref1, SourceReference ref2) {
+    if (ref1 == null || ref2 == null) {
+      return ref1 == null ? (ref2 == null ? 0 : -1) : 1;
+    }
+    return ref1.compareTo(ref2);
+  }
+
+}
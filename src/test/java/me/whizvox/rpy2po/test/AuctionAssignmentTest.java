@@ -0,0 +1,78 @@
+package me.whizvox.rpy2po.test;
+
+import me.whizvox.rpy2po.core.AuctionAssignment;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AuctionAssignmentTest {
+
+  // every way of matching the remaining left vertices, one at a time
+  private static int bruteForce(int[][] weights, int left, boolean[] used) {
+    if (left == weights.length) {
+      return 0;
+    }
+    int best = bruteForce(weights, left + 1, used);
+    for (int right = 0; right < used.length; right++) {
+      if (!used[right] && weights[left][right] > 0) {
+        used[right] = true;
+        best = Math.max(best, weights[left][right] + bruteForce(weights, left + 1, used));
+        used[right] = false;
+      }
+    }
+    return best;
+  }
+
+  @Test
+  void solve_contested() {
+    // both want 0, but giving 0 to the second and 1 to the first is worth more
+    AuctionAssignment assignment = new AuctionAssignment(2, 2);
+    assignment.addEdge(0, 0, 90);
+    assignment.addEdge(0, 1, 85);
+    assignment.addEdge(1, 0, 88);
+    assertArrayEquals(new int[] {1, 0}, assignment.solve());
+  }
+
+  @Test
+  void solve_unmatched() {
+    AuctionAssignment assignment = new AuctionAssignment(3, 1);
+    assignment.addEdge(0, 0, 70);
+    assignment.addEdge(1, 0, 80);
+    assertArrayEquals(new int[] {-1, 0, -1}, assignment.solve());
+  }
+
+  @Test
+  void solve_optimal() {
+    Random random = new Random(0);
+    for (int round = 0; round < 300; round++) {
+      int leftCount = 1 + random.nextInt(6);
+      int rightCount = 1 + random.nextInt(6);
+      int[][] weights = new int[leftCount][rightCount];
+      AuctionAssignment assignment = new AuctionAssignment(leftCount, rightCount);
+      for (int left = 0; left < leftCount; left++) {
+        for (int right = 0; right < rightCount; right++) {
+          if (random.nextInt(3) > 0) {
+            // few distinct weights, so that there are plenty of ties
+            weights[left][right] = 700 + 50 * random.nextInt(7);
+            assignment.addEdge(left, right, weights[left][right]);
+          }
+        }
+      }
+      int[] result = assignment.solve();
+      boolean[] used = new boolean[rightCount];
+      int total = 0;
+      for (int left = 0; left < leftCount; left++) {
+        if (result[left] != -1) {
+          assertTrue(weights[left][result[left]] > 0);
+          assertFalse(used[result[left]]);
+          used[result[left]] = true;
+          total += weights[left][result[left]];
+        }
+      }
+      assertEquals(bruteForce(weights, 0, new boolean[rightCount]), total);
+    }
+  }
+
+}
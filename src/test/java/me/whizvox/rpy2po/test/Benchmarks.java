@@ -0,0 +1,384 @@
+package me.whizvox.rpy2po.test;
+
+import com.soberlemur.potentilla.Catalog;
+import me.whizvox.rpy2po.core.AuctionAssignment;
+import me.whizvox.rpy2po.core.MinHashIndex;
+import me.whizvox.rpy2po.core.StringUtil;
+import me.whizvox.rpy2po.core.SuffixArrayIndex;
+import me.whizvox.rpy2po.core.TrigramIndex;
+import me.whizvox.rpy2po.gettext.PoBackend;
+import me.whizvox.rpy2po.gettext.PoEntry;
+import me.whizvox.rpy2po.gettext.StreamingPoReader;
+import me.whizvox.rpy2po.gettext.StreamingPoWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.ToIntBiFunction;
+
+/**
+ * Rough benchmarks of the string matching algorithms and PO backends, using randomly generated dialogue. Run with
+ * <code>mvn -P benchmark test-compile exec:exec -Dbenchmark=&lt;name&gt;</code>.
+ */
+public class Benchmarks {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(Benchmarks.class);
+
+  private static final String[] WORDS = ("i you he she we they it the a an this that what where when why how is are was "
+      + "were be been have has had do does did can could will would should may might must not no yes and or but if then "
+      + "so because about after before again all also always any around away back behind between both down during each "
+      + "even ever every few for from here in into just later like little long more most much never new now off old "
+      + "once only other out over own really same since some still such than there these thing think through time too "
+      + "under until up very way well while with without yet come go get give know look make see take tell want feel "
+      + "leave need seem try call keep let mean put run say stand turn walk wait hear hold bring happen remember forget "
+      + "believe love hate home house room door window night day morning evening school friend sister brother mother "
+      + "father girl boy man woman people eye hand head face voice heart word name moment world place").split(" ");
+
+  private static String randomSentence(Random random) {
+    int length = 4 + random.nextInt(16);
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < length; i++) {
+      if (i > 0) {
+        sb.append(' ');
+      }
+      sb.append(WORDS[random.nextInt(WORDS.length)]);
+    }
+    sb.setCharAt(0, Character.toUpperCase(sb.charAt(0)));
+    sb.append(random.nextInt(4) == 0 ? '?' : '.');
+    return sb.toString();
+  }
+
+  // mimic a writer editing a line: swap, insert or delete a word or two
+  private static String edit(String str, Random random) {
+    List<String> words = new ArrayList<>(Arrays.asList(str.split(" ")));
+    int edits = 1 + random.nextInt(2);
+    for (int i = 0; i < edits; i++) {
+      int index = random.nextInt(words.size());
+      switch (random.nextInt(3)) {
+        case 0 -> words.set(index, WORDS[random.nextInt(WORDS.length)]);
+        case 1 -> words.add(index, WORDS[random.nextInt(WORDS.length)]);
+        default -> {
+          if (words.size() > 2) {
+            words.remove(index);
+          }
+        }
+      }
+    }
+    return String.join(" ", words);
+  }
+
+  private static void minHash(int orphanCount, int queryCount) {
+    Random random = new Random(1234);
+    List<String> queries = new ArrayList<>();
+    List<String> orphans = new ArrayList<>();
+    for (int i = 0; i < queryCount; i++) {
+      String original = randomSentence(random);
+      queries.add(original);
+      orphans.add(edit(original, random));
+    }
+    while (orphans.size() < orphanCount) {
+      orphans.add(randomSentence(random));
+    }
+    Collections.shuffle(orphans, random);
+
+    long start = System.nanoTime();
+    List<Set<Integer>> expected = new ArrayList<>();
+    for (String query : queries) {
+      Set<Integer> found = new HashSet<>();
+      for (int i = 0; i < orphans.size(); i++) {
+        if (StringUtil.getSimilarity(query, orphans.get(i), 0.7F) >= 0) {
+          found.add(i);
+        }
+      }
+      expected.add(found);
+    }
+    long exhaustiveNanos = System.nanoTime() - start;
+
+    int[][] configs = {{16, 4}, {32, 4}, {32, 3}, {64, 2}};
+    LOGGER.info("{} orphans, {} queries", orphans.size(), queries.size());
+    LOGGER.info("exhaustive: {} ms/query", String.format("%.3f", exhaustiveNanos / 1e6 / queries.size()));
+    for (int[] config : configs) {
+      start = System.nanoTime();
+      MinHashIndex<Integer> index = new MinHashIndex<>(config[0], config[1]);
+      for (int i = 0; i < orphans.size(); i++) {
+        index.add(i, orphans.get(i));
+      }
+      long buildNanos = System.nanoTime() - start;
+      long expectedTotal = 0;
+      long foundTotal = 0;
+      long candidateTotal = 0;
+      start = System.nanoTime();
+      for (int q = 0; q < queries.size(); q++) {
+        Set<Integer> candidates = index.query(queries.get(q));
+        candidateTotal += candidates.size();
+        for (int i : candidates) {
+          if (StringUtil.getSimilarity(queries.get(q), orphans.get(i), 0.7F) >= 0 && expected.get(q).contains(i)) {
+            foundTotal++;
+          }
+        }
+        expectedTotal += expected.get(q).size();
+      }
+      long queryNanos = System.nanoTime() - start;
+      LOGGER.info("minhash {}x{}: build {} ms, {} ms/query, {} candidates/query, recall {}%",
+          config[0], config[1], buildNanos / 1_000_000, String.format("%.3f", queryNanos / 1e6 / queries.size()),
+          candidateTotal / queries.size(), String.format("%.1f", 100.0 * foundTotal / expectedTotal));
+    }
+  }
+
+  private static long time(List<String[]> pairs, int rounds, ToIntBiFunction<String, String> distance) {
+    long sum = 0;
+    long start = System.nanoTime();
+    for (int round = 0; round < rounds; round++) {
+      for (String[] pair : pairs) {
+        sum += distance.applyAsInt(pair[0], pair[1]);
+      }
+    }
+    long nanos = System.nanoTime() - start;
+    // keeps the JIT from throwing away the results
+    if (sum == Long.MIN_VALUE) {
+      LOGGER.info("{}", sum);
+    }
+    return nanos / ((long) rounds * pairs.size());
+  }
+
+  private static void editDistance(int pairCount, int rounds) {
+    if (StringUtil.getVectorLanes() == 0) {
+      LOGGER.error("Build and run with -Dvector");
+      return;
+    }
+    LOGGER.info("{} lanes", StringUtil.getVectorLanes());
+    Random random = new Random(1234);
+    for (int sentences : new int[] {1, 3, 6}) {
+      List<String[]> pairs = new ArrayList<>();
+      int totalLength = 0;
+      for (int i = 0; i < pairCount; i++) {
+        StringBuilder sb = new StringBuilder();
+        for (int j = 0; j < sentences; j++) {
+          if (j > 0) {
+            sb.append(' ');
+          }
+          sb.append(randomSentence(random));
+        }
+        String a = sb.toString();
+        // half of the pairs are edits of each other, the other half are unrelated
+        String b = i % 2 == 0 ? edit(a, random) : randomSentence(random);
+        pairs.add(new String[] {a, b});
+        totalLength += a.length();
+      }
+      for (float threshold : new float[] {0.7F, 0.5F}) {
+        ToIntBiFunction<String, String> maxDistance = (a, b) -> (int) Math.ceil((1.0F - threshold) * Math.max(a.length(), b.length()));
+        // warm up
+        for (int i = 0; i < 3; i++) {
+          time(pairs, 1, StringUtil::getEditDistance);
+          time(pairs, 1, (a, b) -> StringUtil.getBandedEditDistance(a, b, maxDistance.applyAsInt(a, b)));
+          time(pairs, 1, (a, b) -> StringUtil.getEditDistance(a, b, maxDistance.applyAsInt(a, b)));
+        }
+        long full = time(pairs, rounds, StringUtil::getEditDistance);
+        long banded = time(pairs, rounds, (a, b) -> StringUtil.getBandedEditDistance(a, b, maxDistance.applyAsInt(a, b)));
+        // vectorized once the band is wide enough, banded otherwise
+        long vectorized = time(pairs, rounds, (a, b) -> StringUtil.getEditDistance(a, b, maxDistance.applyAsInt(a, b)));
+        LOGGER.info("~{} chars, threshold {}: full {} ns, banded {} ns, vectorized {} ns",
+            totalLength / pairCount, threshold, full, banded, vectorized);
+      }
+    }
+  }
+
+  private static void assignment(int vertexCount, int edgesPerVertex) {
+    Random random = new Random(1234);
+    AuctionAssignment assignment = new AuctionAssignment(vertexCount, vertexCount);
+    for (int left = 0; left < vertexCount; left++) {
+      // clusters of similar lines, like repeated exclamations
+      int cluster = left / 20 * 20;
+      for (int i = 0; i < edgesPerVertex; i++) {
+        int right = Math.min(vertexCount - 1, cluster + random.nextInt(20));
+        assignment.addEdge(left, right, 700 + random.nextInt(301));
+      }
+    }
+    long start = System.nanoTime();
+    int[] result = assignment.solve();
+    long nanos = System.nanoTime() - start;
+    LOGGER.info("{} vertices, {} edges: {} matched in {} ms", vertexCount * 2, assignment.getEdgeCount(),
+        Arrays.stream(result).filter(right -> right != -1).count(), nanos / 1_000_000);
+  }
+
+  private static void filter(int stringCount) {
+    Random random = new Random(1234);
+    List<String> strings = new ArrayList<>();
+    for (int i = 0; i < stringCount; i++) {
+      strings.add(randomSentence(random));
+    }
+    long start = System.nanoTime();
+    TrigramIndex index = new TrigramIndex(strings);
+    LOGGER.info("{} strings indexed in {} ms", stringCount, (System.nanoTime() - start) / 1_000_000);
+    String typed = "remember the night";
+    int[] candidates = null;
+    for (int length = 1; length <= typed.length(); length++) {
+      String query = typed.substring(0, length);
+      start = System.nanoTime();
+      int count = 0;
+      for (String str : strings) {
+        if (str.toLowerCase().contains(query)) {
+          count++;
+        }
+      }
+      long scanNanos = System.nanoTime() - start;
+      start = System.nanoTime();
+      int[] found = index.search(query);
+      long indexNanos = System.nanoTime() - start;
+      start = System.nanoTime();
+      candidates = candidates == null ? index.search(query) : index.search(query, candidates);
+      long narrowNanos = System.nanoTime() - start;
+      LOGGER.info("\"{}\": {} matches, scan {} us, index {} us, narrowed {} us", query, count, scanNanos / 1000,
+          indexNanos / 1000, narrowNanos / 1000);
+      if (found.length != count || candidates.length != count) {
+        LOGGER.error("Mismatch: {} {} {}", count, found.length, candidates.length);
+      }
+    }
+  }
+
+  private static void search(int stringCount) {
+    Random random = new Random(1234);
+    List<String> strings = new ArrayList<>();
+    for (int i = 0; i < stringCount; i++) {
+      strings.add(randomSentence(random));
+    }
+    long start = System.nanoTime();
+    SuffixArrayIndex<String> index = new SuffixArrayIndex<>(strings, str -> str);
+    LOGGER.info("{} strings indexed in {} ms", stringCount, (System.nanoTime() - start) / 1_000_000);
+    for (String query : List.of("a", "the", "remember", "remember the night", "forget the")) {
+      start = System.nanoTime();
+      long count = strings.stream().filter(str -> str.toLowerCase().contains(query)).count();
+      long scanNanos = System.nanoTime() - start;
+      start = System.nanoTime();
+      int found = index.search(query).size();
+      long indexNanos = System.nanoTime() - start;
+      LOGGER.info("\"{}\": {} matches, scan {} us, index {} us", query, count, scanNanos / 1000, indexNanos / 1000);
+      if (found != count) {
+        LOGGER.error("Mismatch: {} {}", count, found);
+      }
+    }
+  }
+
+  private static PoEntry randomEntry(Random random, int index) {
+    String msgId = randomSentence(random);
+    switch (random.nextInt(10)) {
+      case 0 -> msgId = "\"" + msgId + "\"";
+      case 1 -> msgId = msgId + "\n" + randomSentence(random);
+      default -> {
+      }
+    }
+    // one in ten are strings from screens, the rest dialogue
+    boolean dialogue = random.nextInt(10) != 0;
+    return new PoEntry(List.of(), dialogue ? List.of("Eileen: " + msgId) : List.of(),
+        List.of("game/chapter" + (index % 300) + ".rpy:" + index), List.of(), null, null,
+        dialogue ? "chapter_%08x".formatted(index) : null, msgId, null, edit(msgId, random), List.of(), false);
+  }
+
+  private static long usedMemory() {
+    System.gc();
+    Runtime runtime = Runtime.getRuntime();
+    return (runtime.totalMemory() - runtime.freeMemory()) / (1024 * 1024);
+  }
+
+  private static void po(long size) {
+    Path file = null;
+    Path out = null;
+    try {
+      file = Files.createTempFile("rpy2po-benchmark-", ".po");
+      out = Files.createTempFile("rpy2po-benchmark-", ".po");
+      Random random = new Random(1234);
+      int count = 0;
+      try (StreamingPoWriter writer = StreamingPoWriter.open(file)) {
+        writer.write(new PoEntry(List.of(), List.of(), List.of(), List.of(), null, null, null, "", null,
+            "Content-Type: text/plain; charset=UTF-8\n", List.of(), false));
+        while (Files.size(file) < size) {
+          for (int i = 0; i < 10_000; i++) {
+            writer.write(randomEntry(random, count++));
+          }
+          writer.flush();
+        }
+      }
+      double megabytes = Files.size(file) / (1024.0 * 1024.0);
+      LOGGER.info("{} entries, {} MB", count, String.format("%.1f", megabytes));
+
+      for (int round = 0; round < 2; round++) {
+        long baseline = usedMemory();
+        long start = System.nanoTime();
+        Catalog potentilla = PoBackend.POTENTILLA.read(file);
+        long potentillaNanos = System.nanoTime() - start;
+        long potentillaMemory = usedMemory() - baseline;
+        long potentillaCount = potentilla.stream().count();
+        start = System.nanoTime();
+        PoBackend.POTENTILLA.write(potentilla, out);
+        long potentillaWriteNanos = System.nanoTime() - start;
+        potentilla = null;
+
+        baseline = usedMemory();
+        start = System.nanoTime();
+        Catalog streaming = PoBackend.STREAMING.read(file);
+        long streamingNanos = System.nanoTime() - start;
+        long streamingMemory = usedMemory() - baseline;
+        long streamingCount = streaming.stream().count();
+        start = System.nanoTime();
+        PoBackend.STREAMING.write(streaming, out);
+        long streamingWriteNanos = System.nanoTime() - start;
+        streaming = null;
+
+        // what exporting does, without ever holding on to more than one entry
+        start = System.nanoTime();
+        long pulled = 0;
+        try (StreamingPoReader reader = StreamingPoReader.open(file)) {
+          while (reader.next() != null) {
+            pulled++;
+          }
+        }
+        long pullNanos = System.nanoTime() - start;
+
+        LOGGER.info("round {}: read potentilla {} ms ({} MB/s, ~{} MB), streaming catalog {} ms ({} MB/s, ~{} MB), "
+                + "streaming pull {} ms ({} MB/s)", round + 1,
+            potentillaNanos / 1_000_000, String.format("%.1f", megabytes / (potentillaNanos / 1e9)), potentillaMemory,
+            streamingNanos / 1_000_000, String.format("%.1f", megabytes / (streamingNanos / 1e9)), streamingMemory,
+            pullNanos / 1_000_000, String.format("%.1f", megabytes / (pullNanos / 1e9)));
+        LOGGER.info("round {}: write potentilla {} ms, streaming {} ms", round + 1, potentillaWriteNanos / 1_000_000,
+            streamingWriteNanos / 1_000_000);
+        if (potentillaCount != streamingCount) {
+          LOGGER.error("Mismatch: {} {} {}", potentillaCount, streamingCount, pulled);
+        }
+      }
+    } catch (IOException e) {
+      LOGGER.error("Could not run PO benchmark", e);
+    } finally {
+      try {
+        if (file != null) {
+          Files.deleteIfExists(file);
+        }
+        if (out != null) {
+          Files.deleteIfExists(out);
+        }
+      } catch (IOException e) {
+        LOGGER.warn("Could not delete temporary files", e);
+      }
+    }
+  }
+
+  public static void main(String[] args) {
+    String name = args.length > 0 ? args[0] : System.getProperty("benchmark", "minhash");
+    switch (name) {
+      case "minhash" -> minHash(200_000, 500);
+      case "editdistance" -> editDistance(2000, 20);
+      case "filter" -> filter(50_000);
+      case "search" -> search(50_000);
+      case "assignment" -> {
+        assignment(5_000, 4);
+        assignment(20_000, 4);
+        assignment(50_000, 2);
+      }
+      case "po" -> po(100L * 1024 * 1024);
+      default -> LOGGER.error("Unknown benchmark: {}", name);
+    }
+  }
+
+}
@@ -0,0 +1,59 @@
+package me.whizvox.rpy2po.test;
+
+import com.soberlemur.potentilla.Catalog;
+import com.soberlemur.potentilla.Message;
+import com.soberlemur.potentilla.MessageKey;
+import me.whizvox.rpy2po.gettext.CatalogDiff;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class CatalogDiffTest {
+
+  private static Message msg(String msgContext, String msgId) {
+    Message msg = new Message();
+    msg.setMsgContext(msgContext);
+    msg.setMsgId(msgId);
+    return msg;
+  }
+
+  private static MessageKey key(String msgContext, String msgId) {
+    return new MessageKey(msg(msgContext, msgId));
+  }
+
+  private static Catalog catalog(Message... messages) {
+    Catalog catalog = new Catalog();
+    for (Message msg : messages) {
+      catalog.add(msg);
+    }
+    return catalog;
+  }
+
+  @Test
+  void compare() {
+    Catalog oldCatalog = catalog(
+        msg("start_00000001", "Hello."),
+        msg("start_00000002", "How are you?"),
+        msg("start_00000003", "I'm fine."),
+        msg("start_00000004", "Goodbye."),
+        msg(null, "Start")
+    );
+    Catalog newCatalog = catalog(
+        msg("start_00000001", "Hello."),
+        msg("start_00000002", "How are you doing?"),
+        msg("start_0000000a", "I'm fine."),
+        msg("start_00000005", "See you later."),
+        msg(null, "Begin")
+    );
+    CatalogDiff.Result result = CatalogDiff.compare(oldCatalog, newCatalog);
+    assertEquals(List.of(key("start_00000005", "See you later."), key(null, "Begin")), result.added());
+    assertEquals(List.of(key("start_00000004", "Goodbye."), key(null, "Start")), result.removed());
+    assertEquals(List.of(
+        new CatalogDiff.Change(key("start_00000002", "How are you?"), key("start_00000002", "How are you doing?")),
+        new CatalogDiff.Change(key("start_00000003", "I'm fine."), key("start_0000000a", "I'm fine."))
+    ), result.modified());
+  }
+
+}
@@ -0,0 +1,84 @@
+package me.whizvox.rpy2po.test;
+
+import com.soberlemur.potentilla.Message;
+import com.soberlemur.potentilla.MessageKey;
+import me.whizvox.rpy2po.core.MessageFingerprints;
+import me.whizvox.rpy2po.core.MessageKeyMap;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MessageKeyMapTest {
+
+  private static MessageKey key(String context, String id) {
+    Message msg = new Message();
+    msg.setMsgContext(context);
+    msg.setMsgId(id);
+    return new MessageKey(msg);
+  }
+
+  private static void compare(Map<MessageKey, Integer> map, Random random) {
+    Map<MessageKey, Integer> expected = new HashMap<>();
+    for (int i = 0; i < 20_000; i++) {
+      MessageKey key = key(random.nextBoolean() ? null : "ctx" + random.nextInt(5), "msg" + random.nextInt(300));
+      switch (random.nextInt(4)) {
+        case 0, 1 -> assertEquals(expected.put(key, i), map.put(key, i));
+        case 2 -> assertEquals(expected.remove(key), map.remove(key));
+        default -> assertEquals(expected.get(key), map.get(key));
+      }
+      assertEquals(expected.size(), map.size());
+    }
+    assertEquals(expected, map);
+    map.clear();
+    assertEquals(0, map.size());
+  }
+
+  @Test
+  void operations() {
+    compare(new MessageKeyMap<>(new MessageFingerprints()), new Random(0));
+  }
+
+  @Test
+  void collisions() {
+    // only a handful of fingerprints, so almost every key collides with another one
+    MessageFingerprints fingerprints = new MessageFingerprints() {
+      @Override
+      public long compute(String context, String id) {
+        return id.length() % 4;
+      }
+    };
+    compare(new MessageKeyMap<>(fingerprints), new Random(1));
+  }
+
+  @Test
+  void fingerprints() {
+    MessageFingerprints fingerprints = new MessageFingerprints();
+    MessageKey key = key("start_1234abcd", "Hello.");
+    assertEquals(fingerprints.compute("start_1234abcd", "Hello."), fingerprints.get(key));
+    assertEquals(fingerprints.get(key), fingerprints.get(key(new String("start_1234abcd"), new String("Hello."))));
+    assertNotEquals(fingerprints.get(key(null, "Hello.")), fingerprints.get(key("", "Hello.")));
+  }
+
+  @Test
+  void snapshot() {
+    MessageKeyMap<Integer> map = new MessageKeyMap<>(new MessageFingerprints());
+    for (int i = 0; i < 100; i++) {
+      map.put(key(null, "msg" + i), i);
+    }
+    Map<MessageKey, Integer> snapshot = map.snapshot();
+    for (int i = 0; i < 1000; i++) {
+      map.put(key("ctx", "msg" + i), i);
+    }
+    map.remove(key(null, "msg0"));
+
+    assertEquals(100, snapshot.size());
+    assertEquals(Integer.valueOf(0), snapshot.get(key(null, "msg0")));
+    assertFalse(snapshot.containsKey(key("ctx", "msg0")));
+    assertThrows(UnsupportedOperationException.class, () -> snapshot.put(key(null, "msg0"), 1));
+  }
+
+}
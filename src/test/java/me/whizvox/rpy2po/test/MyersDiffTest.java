@@ -0,0 +1,39 @@
+package me.whizvox.rpy2po.test;
+
+import me.whizvox.rpy2po.core.MyersDiff;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class MyersDiffTest {
+
+  @Test
+  void diff_identical() {
+    assertEquals(List.of(), MyersDiff.diff(new int[] {1, 2, 3}, new int[] {1, 2, 3}));
+    assertEquals(List.of(), MyersDiff.diff(new int[0], new int[0]));
+  }
+
+  @Test
+  void diff_replaced() {
+    assertEquals(List.of(new MyersDiff.Hunk(1, 2, 1, 2)), MyersDiff.diff(new int[] {1, 2, 3}, new int[] {1, 4, 3}));
+    assertEquals(List.of(new MyersDiff.Hunk(1, 3, 1, 3), new MyersDiff.Hunk(4, 5, 4, 5)), MyersDiff.diff(new int[] {1, 2, 3, 4, 5}, new int[] {1, 6, 7, 4, 8}));
+  }
+
+  @Test
+  void diff_insertedAndRemoved() {
+    assertEquals(List.of(new MyersDiff.Hunk(0, 0, 0, 2)), MyersDiff.diff(new int[] {1}, new int[] {2, 3, 1}));
+    assertEquals(List.of(new MyersDiff.Hunk(1, 3, 1, 1)), MyersDiff.diff(new int[] {1, 2, 3, 4}, new int[] {1, 4}));
+    assertEquals(List.of(new MyersDiff.Hunk(0, 3, 0, 2)), MyersDiff.diff(new int[] {1, 2, 3}, new int[] {4, 5}));
+  }
+
+  @Test
+  void match_longestCommonSubsequence() {
+    int[] matches = MyersDiff.match(new int[] {1, 2, 3, 1, 2, 2, 1}, new int[] {3, 2, 1, 2, 1, 3});
+    long matched = Arrays.stream(matches).filter(i -> i != -1).count();
+    assertEquals(4, matched);
+  }
+
+}
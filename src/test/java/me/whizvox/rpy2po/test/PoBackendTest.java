@@ -0,0 +1,173 @@
+package me.whizvox.rpy2po.test;
+
+import com.soberlemur.potentilla.Catalog;
+import me.whizvox.rpy2po.gettext.PoBackend;
+import me.whizvox.rpy2po.gettext.PoEntry;
+import me.whizvox.rpy2po.gettext.StreamingPoReader;
+import me.whizvox.rpy2po.rpytl.PO2RPYConverter;
+import me.whizvox.rpy2po.rpytl.Statement;
+import me.whizvox.rpy2po.rpytl.Statements;
+import me.whizvox.rpy2po.rpytl.TranslationEntry;
+import me.whizvox.rpy2po.rpytl.TranslationFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PoBackendTest {
+
+  private static final String PO = """
+      msgid ""
+      msgstr ""
+      "Content-Type: text/plain; charset=UTF-8\\n"
+      "Language: fr\\n"
+
+      # Checked by the editor
+      #. Eileen: Hello.
+      #: game/script.rpy:10
+      #, fuzzy, python-format
+      #| msgid "Hi."
+      msgctxt "start_1234abcd"
+      msgid "Hello."
+      msgstr "Bonjour."
+
+      #. Eileen: Goodbye.
+      #: game/script.rpy:12
+      msgctxt "start_5678ef01"
+      msgid ""
+      "She said \\"bye\\"\\n"
+      "and\\tleft\\\\"
+      msgstr "Elle a dit \\"au revoir\\"\\n"
+      "et est partie\\\\"
+
+      #: game/screens.rpy:5
+      #: game/screens.rpy:8
+      msgid "Start"
+      msgstr "Commencer"
+
+      #: game/screens.rpy:9
+      msgid "Start"
+      msgstr "Démarrer"
+
+      #~ msgctxt "start_deadbeef"
+      #~ msgid "Gone."
+      #~ msgstr "Parti."
+      """;
+
+  private static final Statements STATEMENTS = new Statements(
+      Map.of("start_abcdef12", new Statement("start_abcdef12", "scene bg room", "game/script.rpy", 11)),
+      Map.of("start_1234abcd", "e \"[what]\"", "start_5678ef01", "e \"[what]\"")
+  );
+
+  @TempDir
+  Path dir;
+
+  private Path writePo() throws IOException {
+    Path path = dir.resolve("fr.po");
+    Files.writeString(path, PO, StandardCharsets.UTF_8);
+    return path;
+  }
+
+  private static List<PoEntry> entries(Catalog catalog) {
+    return catalog.stream()
+        .filter(msg -> msg.getMsgContext() != null || !msg.getMsgId().isEmpty())
+        .map(PoEntry::of)
+        .toList();
+  }
+
+  private static PoEntry header(Catalog catalog) {
+    return catalog.header() == null ? null : PoEntry.of(catalog.header().toMessage());
+  }
+
+  /**
+   * Read the fixture with a backend, write it back out with that same backend, then read every entry of what it wrote,
+   * so that nothing a catalog drops is hidden behind {@link PoEntry#of}.
+   */
+  private List<PoEntry> roundTrip(PoBackend backend, Path poPath) throws IOException {
+    Path out = dir.resolve(backend.name().toLowerCase() + ".po");
+    backend.write(backend.read(poPath), out);
+    List<PoEntry> entries = new ArrayList<>();
+    try (StreamingPoReader reader = StreamingPoReader.open(out)) {
+      PoEntry entry;
+      while ((entry = reader.next()) != null) {
+        entries.add(entry);
+      }
+    }
+    return entries;
+  }
+
+  private static PoEntry find(List<PoEntry> entries, String msgId) {
+    return entries.stream()
+        .filter(entry -> entry.msgId().equals(msgId))
+        .findFirst()
+        .orElseThrow();
+  }
+
+  private static Map<String, List<TranslationEntry>> export(PoBackend backend, Path poPath) throws IOException {
+    PoBackend previous = PoBackend.current();
+    PoBackend.setCurrent(backend);
+    try {
+      Map<String, TranslationFile> files = new PO2RPYConverter("french", poPath, STATEMENTS).convert();
+      Map<String, List<TranslationEntry>> entries = new HashMap<>();
+      files.forEach((file, tlFile) -> entries.put(file, tlFile.stream().toList()));
+      return entries;
+    } finally {
+      PoBackend.setCurrent(previous);
+    }
+  }
+
+  @Test
+  void backendsReadTheSame() throws IOException {
+    Path path = writePo();
+    Catalog potentilla = PoBackend.POTENTILLA.read(path);
+    Catalog streaming = PoBackend.STREAMING.read(path);
+
+    assertEquals(4, entries(potentilla).size());
+    assertEquals(entries(potentilla), entries(streaming));
+    assertNotNull(header(potentilla));
+    assertEquals(header(potentilla), header(streaming));
+
+    PoEntry hello = find(entries(streaming), "Hello.");
+    assertEquals(List.of("Checked by the editor"), hello.translatorComments());
+    assertEquals(List.of("fuzzy", "python-format"), hello.flags());
+  }
+
+  @Test
+  void backendsWriteTheSame() throws IOException {
+    Path path = writePo();
+    List<PoEntry> potentilla = roundTrip(PoBackend.POTENTILLA, path);
+    List<PoEntry> streaming = roundTrip(PoBackend.STREAMING, path);
+
+    assertEquals(potentilla, streaming);
+
+    PoEntry hello = find(streaming, "Hello.");
+    assertEquals(List.of("Checked by the editor"), hello.translatorComments());
+    assertEquals(List.of("fuzzy", "python-format"), hello.flags());
+    assertEquals("Hi.", hello.prevMsgId());
+
+    // a catalog only keeps one entry per key, so both backends have to agree on which duplicate that is
+    assertEquals(1, streaming.stream().filter(entry -> entry.msgId().equals("Start")).count());
+    assertEquals(find(potentilla, "Start"), find(streaming, "Start"));
+  }
+
+  @Test
+  void backendsExportTheSame() throws IOException {
+    Path path = writePo();
+    Map<String, List<TranslationEntry>> fromCatalog = export(PoBackend.POTENTILLA, path);
+    Map<String, List<TranslationEntry>> streamed = export(PoBackend.STREAMING, path);
+
+    assertEquals(3, fromCatalog.get("game/script.rpy").size());
+    assertEquals(1, fromCatalog.get("game/screens.rpy").size());
+    assertEquals(fromCatalog, streamed);
+  }
+
+}
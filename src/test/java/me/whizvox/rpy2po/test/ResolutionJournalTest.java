@@ -0,0 +1,140 @@
+package me.whizvox.rpy2po.test;
+
+import com.soberlemur.potentilla.Message;
+import com.soberlemur.potentilla.MessageKey;
+import me.whizvox.rpy2po.core.ResolutionJournal;
+import me.whizvox.rpy2po.gettext.ProblemResolution;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ResolutionJournalTest {
+
+  private static MessageKey key(String context, String id) {
+    Message msg = new Message();
+    msg.setMsgContext(context);
+    msg.setMsgId(id);
+    return new MessageKey(msg);
+  }
+
+  private static ResolutionJournal open(Path file, Path templateFile, List<String> events) throws IOException {
+    return ResolutionJournal.open(file, templateFile, new ResolutionJournal.Listener() {
+      @Override
+      public void resolved(ProblemResolution resolution) {
+        events.add("resolved " + resolution);
+      }
+
+      @Override
+      public void unresolved(MessageKey templateKey) {
+        events.add("unresolved " + templateKey);
+      }
+
+      @Override
+      public void markedObsolete(MessageKey langKey, boolean obsolete) {
+        events.add("obsolete " + langKey + " " + obsolete);
+      }
+
+      @Override
+      public void searchingFilesChanged(String templateFile, List<String> files) {
+        events.add("files " + templateFile + " " + files);
+      }
+    });
+  }
+
+  private static List<String> replay(Path file, Path templateFile) throws IOException {
+    List<String> events = new ArrayList<>();
+    open(file, templateFile, events).close();
+    return events;
+  }
+
+  @Test
+  void replay() throws IOException {
+    Path dir = Files.createTempDirectory("rpy2po");
+    Path templateFile = Files.writeString(dir.resolve("template.pot"), "msgid \"\"\nmsgstr \"\"\n");
+    Path file = dir.resolve("resolutions.journal");
+    ResolutionJournal journal = open(file, templateFile, new ArrayList<>());
+    journal.resolved(new ProblemResolution(key("a", "Hello there!"), key(null, "Hello!"), false));
+    journal.resolved(new ProblemResolution(key(null, "¿Qué?"), null, true));
+    journal.unresolved(key("a", "Hello there!"));
+    journal.markedObsolete(key("b", "Goodbye."), true);
+    journal.searchingFilesChanged("game/script.rpy", List.of("game/a.rpy", "game/b.rpy"));
+    journal.close();
+    List<String> expected = List.of(
+        "resolved " + new ProblemResolution(key("a", "Hello there!"), key(null, "Hello!"), false),
+        "resolved " + new ProblemResolution(key(null, "¿Qué?"), null, true),
+        "unresolved " + key("a", "Hello there!"),
+        "obsolete " + key("b", "Goodbye.") + " true",
+        "files game/script.rpy [game/a.rpy, game/b.rpy]"
+    );
+    assertEquals(expected, replay(file, templateFile));
+
+    // a crash in the middle of writing the last record
+    byte[] bytes = Files.readAllBytes(file);
+    Files.write(file, Arrays.copyOf(bytes, bytes.length - 3));
+    assertEquals(expected.subList(0, 4), replay(file, templateFile));
+    // the partial record was cut off, so new records can be read again
+    journal = open(file, templateFile, new ArrayList<>());
+    journal.unresolved(key(null, "¿Qué?"));
+    journal.close();
+    assertEquals(List.of(expected.get(0), expected.get(1), expected.get(2), expected.get(3), "unresolved " + key(null, "¿Qué?")),
+        replay(file, templateFile));
+
+    // template changed
+    Files.writeString(templateFile, "msgid \"\"\nmsgstr \"\"\n\nmsgid \"New\"\nmsgstr \"\"\n");
+    assertEquals(List.of(), replay(file, templateFile));
+  }
+
+  @Test
+  void appendAfterClose() throws IOException {
+    Path dir = Files.createTempDirectory("rpy2po");
+    Path templateFile = Files.writeString(dir.resolve("template.pot"), "msgid \"\"\nmsgstr \"\"\n");
+    Path file = dir.resolve("resolutions.journal");
+    ResolutionJournal journal = open(file, templateFile, new ArrayList<>());
+    journal.unresolved(key(null, "Hello!"));
+    journal.close();
+    journal.unresolved(key(null, "Goodbye."));
+    assertEquals(1, journal.getRecordCount());
+    assertEquals(List.of("unresolved " + key(null, "Hello!")), replay(file, templateFile));
+  }
+
+  private static void appendRecord(Path file, int length, byte[] payload) throws IOException {
+    CRC32 crc = new CRC32();
+    crc.update(payload);
+    ByteBuffer buf = ByteBuffer.allocate(8 + payload.length);
+    buf.putInt(length).put(payload).putInt((int) crc.getValue());
+    Files.write(file, buf.array(), StandardOpenOption.APPEND);
+  }
+
+  @Test
+  void corruptTail() throws IOException {
+    Path dir = Files.createTempDirectory("rpy2po");
+    Path templateFile = Files.writeString(dir.resolve("template.pot"), "msgid \"\"\nmsgstr \"\"\n");
+    Path file = dir.resolve("resolutions.journal");
+    ResolutionJournal journal = open(file, templateFile, new ArrayList<>());
+    journal.unresolved(key(null, "Hello!"));
+    journal.close();
+    List<String> expected = List.of("unresolved " + key(null, "Hello!"));
+    byte[] valid = Files.readAllBytes(file);
+
+    // a length this large used to overflow the bounds check
+    appendRecord(file, Integer.MAX_VALUE - 1, new byte[8]);
+    assertEquals(expected, replay(file, templateFile));
+
+    // intact checksum, but nothing that can be decoded: a list of files with a negative size
+    Files.write(file, valid);
+    byte[] payload = ByteBuffer.allocate(9).put((byte) 4).putInt(0).putInt(-1).array();
+    appendRecord(file, payload.length, payload);
+    assertEquals(expected, replay(file, templateFile));
+  }
+
+}
@@ -0,0 +1,52 @@
+package me.whizvox.rpy2po.test;
+
+import com.soberlemur.potentilla.Message;
+import com.soberlemur.potentilla.MessageKey;
+import me.whizvox.rpy2po.core.SimilarMessage;
+import me.whizvox.rpy2po.core.SimilarMessageCollector;
+import me.whizvox.rpy2po.gui.SimilarStringsTableModel;
+import org.junit.jupiter.api.Test;
+
+import javax.swing.event.TableModelEvent;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SimilarStringsTableModelTest {
+
+  private static List<MessageKey> getKeys(SimilarStringsTableModel model) {
+    List<MessageKey> keys = new ArrayList<>();
+    for (int row = 0; row < model.getRowCount(); row++) {
+      keys.add(model.getKey(row));
+    }
+    return keys;
+  }
+
+  private static List<MessageKey> getKeys(SimilarMessageCollector collector) {
+    return collector.toList().stream().map(SimilarMessage::key).toList();
+  }
+
+  @Test
+  void update() {
+    Random random = new Random(0);
+    SimilarStringsTableModel model = new SimilarStringsTableModel();
+    List<TableModelEvent> events = new ArrayList<>();
+    model.addTableModelListener(events::add);
+    SimilarMessageCollector collector = new SimilarMessageCollector(0.0F, 10);
+    for (int i = 0; i < 500; i++) {
+      Message msg = new Message();
+      msg.setMsgId("msg" + i);
+      if (collector.add(new MessageKey(msg), random.nextInt(101) / 100.0F) && i % 7 == 0) {
+        model.update(collector.toList());
+        assertEquals(getKeys(collector), getKeys(model));
+      }
+    }
+    model.update(collector.toList());
+    assertEquals(getKeys(collector), getKeys(model));
+    // only rows that changed are reported
+    events.forEach(e -> assertEquals(e.getFirstRow(), e.getLastRow()));
+  }
+
+}
@@ -0,0 +1,45 @@
+package me.whizvox.rpy2po.test;
+
+import me.whizvox.rpy2po.gettext.SourceFileDictionary;
+import me.whizvox.rpy2po.gettext.SourceReference;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class SourceFileDictionaryTest {
+
+  @Test
+  void encode() {
+    SourceFileDictionary dictionary = new SourceFileDictionary(List.of("game/script.rpy", "game/a.rpy", "game/script.rpy"));
+    assertEquals(2, dictionary.size());
+    long encoded = dictionary.encode("game/script.rpy:1234");
+    assertEquals(1, SourceFileDictionary.getFileId(encoded));
+    assertEquals(1234, SourceFileDictionary.getLine(encoded));
+    assertEquals(new SourceReference("game/script.rpy", 1234), dictionary.decode(encoded));
+    assertEquals("game/script.rpy:1234", dictionary.format(encoded));
+    assertThrows(IllegalArgumentException.class, () -> dictionary.encode("game/b.rpy:1"));
+    assertThrows(IllegalArgumentException.class, () -> dictionary.encode("game/a.rpy"));
+  }
+
+  @Test
+  void encode_sameOrder() {
+    Random random = new Random(0);
+    List<String> files = List.of("game/script.rpy", "game/a.rpy", "game/chapter2.rpy", "game/chapter10.rpy");
+    SourceFileDictionary dictionary = new SourceFileDictionary(files);
+    List<String> refs = new ArrayList<>();
+    for (int i = 0; i < 500; i++) {
+      refs.add(files.get(random.nextInt(files.size())) + ":" + random.nextInt(2000));
+    }
+    for (int i = 1; i < refs.size(); i++) {
+      int expected = Integer.signum(SourceReference.parse(refs.get(i - 1)).compareTo(SourceReference.parse(refs.get(i))));
+      int actual = Integer.signum(Long.compare(dictionary.encode(refs.get(i - 1)), dictionary.encode(refs.get(i))));
+      assertEquals(expected, actual);
+    }
+  }
+
+}
@@ -0,0 +1,54 @@
+package me.whizvox.rpy2po.test;
+
+import com.soberlemur.potentilla.Message;
+import me.whizvox.rpy2po.core.SourceReferenceSort;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SourceReferenceSortTest {
+
+  private static Message msg(String msgId, String... references) {
+    Message msg = new Message();
+    msg.setMsgId(msgId);
+    msg.getSourceReferences().addAll(List.of(references));
+    return msg;
+  }
+
+  private static List<String> sort(Message... messages) {
+    return SourceReferenceSort.sort(List.of(messages)).stream().map(Message::getMsgId).toList();
+  }
+
+  @Test
+  void sort() {
+    List<String> sorted = sort(
+        msg("script 12", "game/script.rpy:12"),
+        msg("chapter2 5", "game/chapter2.rpy:5"),
+        // files are compared by name, so chapter10 comes before chapter2
+        msg("chapter10 300", "game/chapter10.rpy:300"),
+        // lines are compared as numbers
+        msg("script 9", "game/script.rpy:9"),
+        // the smallest reference counts, not the one listed first
+        msg("script 100, a 1", "game/script.rpy:100", "game/a.rpy:1"),
+        msg("chapter2 40", "game/chapter2.rpy:40")
+    );
+    assertEquals(List.of("script 100, a 1", "chapter10 300", "chapter2 5", "chapter2 40", "script 9", "script 12"), sorted);
+  }
+
+  @Test
+  void withoutReferencesAndTies() {
+    List<String> sorted = sort(
+        msg("a at 3", "game/script.rpy:3"),
+        msg("first without"),
+        msg("at 1", "game/script.rpy:1"),
+        msg("b at 3", "game/script.rpy:3"),
+        msg("second without"),
+        msg("c at 3", "game/script.rpy:3", "game/script.rpy:3")
+    );
+    // messages without references come first, and ties keep their original order
+    assertEquals(List.of("first without", "second without", "at 1", "a at 3", "b at 3", "c at 3"), sorted);
+  }
+
+}
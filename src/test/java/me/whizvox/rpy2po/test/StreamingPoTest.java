@@ -0,0 +1,116 @@
+package me.whizvox.rpy2po.test;
+
+import me.whizvox.rpy2po.gettext.PoEntry;
+import me.whizvox.rpy2po.gettext.StreamingPoReader;
+import me.whizvox.rpy2po.gettext.StreamingPoWriter;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StreamingPoTest {
+
+  private static final String PO = """
+      msgid ""
+      msgstr ""
+      "Content-Type: text/plain; charset=UTF-8\\n"
+      "Language: fr\\n"
+
+      # Checked by the editor
+      #. Eileen: Hello.
+      #: game/script.rpy:10
+      #, fuzzy
+      #| msgid "Hi."
+      msgctxt "start_1234abcd"
+      msgid "Hello."
+      msgstr "Bonjour."
+
+      #: game/screens.rpy:5 game/screens.rpy:8
+      msgid ""
+      "She said \\"hi\\"\\n"
+      "and\\tleft\\\\"
+      msgstr "Elle a dit \\"salut\\"\\n"
+      "et est partie\\\\"
+
+      msgid "One apple"
+      msgid_plural "%d apples"
+      msgstr[0] "Une pomme"
+      msgstr[1] "%d pommes"
+
+      #~ msgctxt "start_deadbeef"
+      #~ msgid "Gone."
+      #~ msgstr "Parti."
+      """;
+
+  private static List<PoEntry> readAll(String str) throws IOException {
+    List<PoEntry> entries = new ArrayList<>();
+    try (StreamingPoReader reader = new StreamingPoReader(new StringReader(str))) {
+      PoEntry entry;
+      while ((entry = reader.next()) != null) {
+        entries.add(entry);
+      }
+    }
+    return entries;
+  }
+
+  @Test
+  void read() throws IOException {
+    List<PoEntry> entries = readAll(PO);
+    assertEquals(5, entries.size());
+
+    assertTrue(entries.get(0).isHeader());
+    assertEquals("Content-Type: text/plain; charset=UTF-8\nLanguage: fr\n", entries.get(0).msgstr());
+
+    PoEntry hello = entries.get(1);
+    assertEquals(List.of("Checked by the editor"), hello.translatorComments());
+    assertEquals(List.of("Eileen: Hello."), hello.extractedComments());
+    assertEquals(List.of("game/script.rpy:10"), hello.references());
+    assertTrue(hello.isFuzzy());
+    assertEquals("Hi.", hello.prevMsgId());
+    assertEquals("start_1234abcd", hello.msgContext());
+    assertEquals("Hello.", hello.msgId());
+    assertEquals("Bonjour.", hello.msgstr());
+    assertFalse(hello.obsolete());
+
+    PoEntry escaped = entries.get(2);
+    assertEquals(List.of("game/screens.rpy:5", "game/screens.rpy:8"), escaped.references());
+    assertNull(escaped.msgContext());
+    assertEquals("She said \"hi\"\nand\tleft\\", escaped.msgId());
+    assertEquals("Elle a dit \"salut\"\net est partie\\", escaped.msgstr());
+
+    PoEntry plural = entries.get(3);
+    assertEquals("%d apples", plural.msgIdPlural());
+    assertEquals(List.of("Une pomme", "%d pommes"), plural.msgstrPlural());
+
+    PoEntry obsolete = entries.get(4);
+    assertTrue(obsolete.obsolete());
+    assertEquals("start_deadbeef", obsolete.msgContext());
+    assertEquals("Parti.", obsolete.msgstr());
+  }
+
+  @Test
+  void roundTrip() throws IOException {
+    List<PoEntry> entries = readAll(PO);
+    StringWriter out = new StringWriter();
+    try (StreamingPoWriter writer = new StreamingPoWriter(out)) {
+      for (PoEntry entry : entries) {
+        writer.write(entry);
+      }
+    }
+    assertEquals(entries, readAll(out.toString()));
+  }
+
+  @Test
+  void malformed() {
+    assertThrows(IOException.class, () -> readAll("msgid \"Hello.\"\n"));
+    assertThrows(IOException.class, () -> readAll("msgid \"Hello.\nmsgstr \"\"\n"));
+    assertThrows(IOException.class, () -> readAll("msgid \"Hello.\"\nmsgstr \"\\q\"\n"));
+    assertThrows(IOException.class, () -> readAll("\"Hello.\"\n"));
+  }
+
+}
@@ -0,0 +1,59 @@
+package me.whizvox.rpy2po.test;
+
+import me.whizvox.rpy2po.core.StringUtil;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class StringUtilTest {
+
+  private static final String[] STRINGS = {
+      "",
+      "a",
+      "Hello there.",
+      "hello there!",
+      "Hello, there.",
+      "Hi there.",
+      "Well, hello there. How are you?",
+      "Good morning!",
+      "Good evening!",
+      "What are you doing here?"
+  };
+
+  @Test
+  void getEditDistance() {
+    assertEquals(0, StringUtil.getEditDistance("Hello", "hello"));
+    assertEquals(3, StringUtil.getEditDistance("kitten", "sitting"));
+    assertEquals(5, StringUtil.getEditDistance("", "abcde"));
+  }
+
+  @Test
+  void getEditDistance_bounded() {
+    for (String a : STRINGS) {
+      for (String b : STRINGS) {
+        int expected = StringUtil.getEditDistance(a, b);
+        for (int max = 0; max <= 35; max++) {
+          assertEquals(Math.min(expected, max + 1), StringUtil.getEditDistance(a, b, max));
+        }
+      }
+    }
+  }
+
+  @Test
+  void getSimilarity() {
+    assertEquals(1.0F, StringUtil.getSimilarity("Hello there.", "hello there.", 0.7F));
+    assertEquals(1.0F - 2.0F / 13, StringUtil.getSimilarity("Hello there.", "hello there!!", 0.7F), 0.0001F);
+    assertEquals(-1.0F, StringUtil.getSimilarity("Good morning!", "What are you doing here?", 0.7F));
+  }
+
+  @Test
+  void xxHash64() {
+    // reference XXH64 of the same strings in UTF-16LE
+    assertEquals(0xEF46DB3751D8E999L, StringUtil.xxHash64("", 0));
+    assertEquals(0x4000BBCBB882CC24L, StringUtil.xxHash64("Hello.", 0));
+    assertEquals(0xBB3470407ED3880FL, StringUtil.xxHash64("Hello.", 42));
+    assertEquals(0xBB8505A756AD990AL, StringUtil.xxHash64("Well, hello there. How are you?", 0));
+    assertEquals(0xD49A6D86676209B9L, StringUtil.xxHash64("Well, hello there. How are you?", 42));
+  }
+
+}
@@ -0,0 +1,52 @@
+package me.whizvox.rpy2po.test;
+
+import me.whizvox.rpy2po.core.SuffixArrayIndex;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SuffixArrayIndexTest {
+
+  private static List<String> bruteForce(List<String> strings, String query) {
+    return strings.stream().filter(str -> str.toLowerCase().contains(query.toLowerCase())).toList();
+  }
+
+  @Test
+  void search() {
+    List<String> strings = List.of("Hello there.", "Well, hello there. How are you?", "Good morning!", "Good evening!",
+        "", "Hmm...", "HELLO!!", "banana", "ananas");
+    SuffixArrayIndex<String> index = new SuffixArrayIndex<>(strings, Function.identity());
+    for (String query : List.of("", "h", "hello", "HELLO THERE", "good ", "!", "...", "ana", "anana", "nas", "s", "zzz",
+        "ananas!")) {
+      assertEquals(bruteForce(strings, query), index.search(query));
+    }
+  }
+
+  @Test
+  void search_random() {
+    // small alphabet, so that there are lots of repeated substrings
+    Random random = new Random(0);
+    List<String> strings = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      StringBuilder sb = new StringBuilder();
+      int length = random.nextInt(30);
+      for (int j = 0; j < length; j++) {
+        sb.append("abAB".charAt(random.nextInt(4)));
+      }
+      strings.add(sb.toString());
+    }
+    SuffixArrayIndex<String> index = new SuffixArrayIndex<>(strings, Function.identity());
+    for (int i = 0; i < 200; i++) {
+      String str = strings.get(random.nextInt(strings.size()));
+      int start = str.isEmpty() ? 0 : random.nextInt(str.length());
+      String query = str.substring(start, Math.min(str.length(), start + 1 + random.nextInt(8)));
+      assertEquals(bruteForce(strings, query), index.search(query));
+    }
+  }
+
+}
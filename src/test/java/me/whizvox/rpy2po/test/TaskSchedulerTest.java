@@ -0,0 +1,116 @@
+package me.whizvox.rpy2po.test;
+
+import me.whizvox.rpy2po.gui.task.ProgressBus;
+import me.whizvox.rpy2po.gui.task.TaskHandle;
+import me.whizvox.rpy2po.gui.task.TaskProgress;
+import me.whizvox.rpy2po.gui.task.TaskScheduler;
+import org.junit.jupiter.api.Test;
+
+import javax.swing.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TaskSchedulerTest {
+
+  @Test
+  void progressIsCoalesced() throws Exception {
+    ProgressBus bus = new ProgressBus();
+    List<TaskProgress> received = new ArrayList<>();
+    bus.addListener(received::add);
+    // nothing can be delivered while the EDT is busy publishing
+    SwingUtilities.invokeAndWait(() -> {
+      for (int i = 0; i <= 1000; i++) {
+        bus.publish(new TaskProgress(1, "a", i, 1000, null, TaskProgress.State.RUNNING));
+        bus.publish(new TaskProgress(2, "b", i, 1000, null, TaskProgress.State.RUNNING));
+      }
+    });
+    SwingUtilities.invokeAndWait(() -> {});
+    assertEquals(2, received.size());
+    assertEquals(1000, received.get(0).done());
+    assertEquals(1000, received.get(1).done());
+  }
+
+  @Test
+  void resultIsHandedBackOnEdt() throws Exception {
+    TaskScheduler scheduler = new TaskScheduler(1);
+    CountDownLatch latch = new CountDownLatch(1);
+    AtomicReference<String> result = new AtomicReference<>();
+    AtomicBoolean onEdt = new AtomicBoolean();
+    scheduler.submit("test", TaskScheduler.Kind.IO, ctx -> "done", value -> {
+      result.set(value);
+      onEdt.set(SwingUtilities.isEventDispatchThread());
+      latch.countDown();
+    }, null);
+    assertTrue(latch.await(5, TimeUnit.SECONDS));
+    assertEquals("done", result.get());
+    assertTrue(onEdt.get());
+    scheduler.shutdown();
+  }
+
+  @Test
+  void cancelledTaskDoesNotCallBack() throws Exception {
+    TaskScheduler scheduler = new TaskScheduler(1);
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch finished = new CountDownLatch(1);
+    AtomicBoolean calledBack = new AtomicBoolean();
+    List<TaskProgress> received = new ArrayList<>();
+    scheduler.getProgressBus().addListener(progress -> {
+      received.add(progress);
+      if (progress.isFinished()) {
+        finished.countDown();
+      }
+    });
+    TaskHandle handle = scheduler.submit("test", TaskScheduler.Kind.CPU, ctx -> {
+      started.countDown();
+      while (true) {
+        ctx.checkCancelled();
+        Thread.onSpinWait();
+      }
+    }, value -> calledBack.set(true), e -> calledBack.set(true));
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+    handle.cancel();
+    assertTrue(finished.await(5, TimeUnit.SECONDS));
+    SwingUtilities.invokeAndWait(() -> {});
+    assertFalse(calledBack.get());
+    assertEquals(TaskProgress.State.CANCELLED, received.getLast().state());
+    scheduler.shutdown();
+  }
+
+  @Test
+  void uninterruptibleTaskFinishesItsStep() throws Exception {
+    TaskScheduler scheduler = new TaskScheduler(1);
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch cancelled = new CountDownLatch(1);
+    AtomicBoolean interrupted = new AtomicBoolean();
+    AtomicBoolean stepFinished = new AtomicBoolean();
+    CountDownLatch finished = new CountDownLatch(1);
+    scheduler.getProgressBus().addListener(progress -> {
+      if (progress.isFinished()) {
+        finished.countDown();
+      }
+    });
+    TaskHandle handle = scheduler.submit("test", TaskScheduler.Kind.IO, false, ctx -> {
+      started.countDown();
+      // stands in for writing a file, which an interrupt would cut short
+      cancelled.await();
+      interrupted.set(Thread.currentThread().isInterrupted());
+      stepFinished.set(true);
+      ctx.checkCancelled();
+      return null;
+    }, null, null);
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+    handle.cancel();
+    cancelled.countDown();
+    assertTrue(finished.await(5, TimeUnit.SECONDS));
+    assertTrue(stepFinished.get());
+    assertFalse(interrupted.get());
+    scheduler.shutdown();
+  }
+
+}
@@ -0,0 +1,112 @@
+package me.whizvox.rpy2po.test;
+
+import com.soberlemur.potentilla.Message;
+import me.whizvox.rpy2po.rpytl.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TemplateSegmentsTest {
+
+  @TempDir
+  Path dir;
+
+  private Path write(String name, String contents) throws IOException {
+    return Files.writeString(dir.resolve(name), contents);
+  }
+
+  private static String statement(String file, int line, String id, String what) {
+    return """
+        # %s:%d
+        translate english %s:
+
+            # e "%s"
+            e "%s"
+
+        """.formatted(file, line, id, what, what);
+  }
+
+  private static String string(String file, int line, String what) {
+    return """
+        translate english strings:
+
+            # %s:%d
+            old "%s"
+            new "%s"
+
+        """.formatted(file, line, what, what);
+  }
+
+  private static List<String> msgIds(RPY2POConverter.Result result) {
+    return result.catalog().stream().map(Message::getMsgId).toList();
+  }
+
+  @Test
+  void update() throws IOException {
+    // translation files do not line up with the script files, so the catalog has to be put back in source order
+    Path a = write("a.rpy", statement("game/script.rpy", 20, "start_2", "Second.") + string("game/screens.rpy", 5, "Start"));
+    Path b = write("b.rpy", statement("game/script.rpy", 10, "start_1", "First.") + statement("game/script.rpy", 30, "start_3", "Third."));
+    List<Path> files = List.of(a, b);
+    RPY2POConverter converter = new RPY2POConverter("english", files, new CharacterNames(Map.of("e", "Eileen")), null, CommentGenerator.NONE);
+    TemplateSegments segments = new TemplateSegments();
+
+    assertEquals(new TemplateSegments.Update(2, 0), segments.update(converter, files, null));
+    RPY2POConverter.Result result = segments.toResult();
+    assertEquals(List.of("Start", "First.", "Second.", "Third."), msgIds(result));
+    assertEquals(Set.of("start_1", "start_2", "start_3"), result.statements().dialogue().keySet());
+
+    write("b.rpy", statement("game/script.rpy", 10, "start_1", "First!") + statement("game/script.rpy", 25, "start_4", "Fourth."));
+    assertEquals(new TemplateSegments.Update(1, 0), segments.update(converter, files, Set.of(b)));
+    result = segments.toResult();
+    assertEquals(List.of("Start", "First!", "Second.", "Fourth."), msgIds(result));
+    assertEquals(Set.of("start_1", "start_2", "start_4"), result.statements().dialogue().keySet());
+
+    assertEquals(new TemplateSegments.Update(0, 1), segments.update(converter, List.of(a), Set.of()));
+    result = segments.toResult();
+    assertEquals(List.of("Start", "Second."), msgIds(result));
+    assertEquals(Set.of("start_2"), result.statements().dialogue().keySet());
+  }
+
+  @Test
+  void updateMovedStatement() throws IOException {
+    Path a = write("a.rpy", statement("game/script.rpy", 10, "start_1", "First."));
+    Path b = write("b.rpy", statement("game/script.rpy", 20, "start_2", "Second."));
+    // b comes first, so its statements are put together before a's
+    List<Path> files = List.of(b, a);
+    RPY2POConverter converter = new RPY2POConverter("english", files, new CharacterNames(Map.of("e", "Eileen")), null, CommentGenerator.NONE);
+    TemplateSegments segments = new TemplateSegments();
+    segments.update(converter, files, null);
+
+    // start_1 moves from a to b, and both files change
+    write("a.rpy", statement("game/script.rpy", 30, "start_3", "Third."));
+    write("b.rpy", statement("game/script.rpy", 10, "start_1", "First.") + statement("game/script.rpy", 20, "start_2", "Second."));
+    segments.update(converter, files, Set.of(a, b));
+    RPY2POConverter.Result result = segments.toResult();
+    assertEquals(List.of("First.", "Second.", "Third."), msgIds(result));
+    assertEquals(Set.of("start_1", "start_2", "start_3"), result.statements().dialogue().keySet());
+  }
+
+  @Test
+  void updateFailure() throws IOException {
+    Path a = write("a.rpy", string("game/screens.rpy", 5, "Start"));
+    Path b = write("b.rpy", string("game/screens.rpy", 6, "Quit"));
+    List<Path> files = List.of(a, b);
+    RPY2POConverter converter = new RPY2POConverter("english", files, new CharacterNames(Map.of()), null, CommentGenerator.NONE);
+    TemplateSegments segments = new TemplateSegments();
+    segments.update(converter, files, null);
+
+    Files.delete(b);
+    assertThrows(IOException.class, () -> segments.update(converter, files, Set.of(b)));
+    assertFalse(segments.contains(b));
+    assertEquals(List.of("Start"), msgIds(segments.toResult()));
+  }
+
+}
@@ -0,0 +1,48 @@
+package me.whizvox.rpy2po.test;
+
+import me.whizvox.rpy2po.core.TrigramIndex;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+public class TrigramIndexTest {
+
+  private static final List<String> STRINGS = List.of(
+      "Hello there.",
+      "Well, hello there. How are you?",
+      "Good morning!",
+      "Good evening!",
+      "What are you doing here?",
+      "Hmm...",
+      "",
+      "HELLO!!"
+  );
+
+  private static int[] bruteForce(String query) {
+    return IntStream.range(0, STRINGS.size())
+        .filter(i -> STRINGS.get(i).toLowerCase().contains(query.toLowerCase()))
+        .toArray();
+  }
+
+  @Test
+  void search() {
+    TrigramIndex index = new TrigramIndex(STRINGS);
+    for (String query : List.of("", "h", "he", "hel", "hello", "Hello there", "LLO!", "good", "ning!", "ere", "zzz", "you?")) {
+      assertArrayEquals(bruteForce(query), index.search(query));
+    }
+  }
+
+  @Test
+  void search_narrowed() {
+    TrigramIndex index = new TrigramIndex(STRINGS);
+    int[] candidates = index.search("e");
+    for (String query : List.of("el", "ell", "hello", "hello the")) {
+      candidates = index.search(query, candidates);
+      assertArrayEquals(bruteForce(query), candidates);
+    }
+  }
+
+}
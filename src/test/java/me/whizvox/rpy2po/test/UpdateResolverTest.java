@@ -0,0 +1,111 @@
+package me.whizvox.rpy2po.test;
+
+import com.soberlemur.potentilla.Catalog;
+import com.soberlemur.potentilla.Message;
+import com.soberlemur.potentilla.MessageKey;
+import me.whizvox.rpy2po.gettext.ProblemResolution;
+import me.whizvox.rpy2po.gettext.UpdateResolver;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UpdateResolverTest {
+
+  private static Message msg(String msgContext, String msgId, String msgstr, int line) {
+    Message msg = new Message();
+    msg.setMsgContext(msgContext);
+    msg.setMsgId(msgId);
+    msg.setMsgstr(msgstr);
+    msg.addSourceReference("game/script.rpy", line);
+    return msg;
+  }
+
+  private static MessageKey key(String msgContext, String msgId) {
+    return new MessageKey(msg(msgContext, msgId, null, 0));
+  }
+
+  private static Catalog catalog(Message... messages) {
+    Catalog catalog = new Catalog();
+    for (Message msg : messages) {
+      catalog.add(msg);
+    }
+    return catalog;
+  }
+
+  @Test
+  void update() {
+    Catalog template = catalog(
+        msg("start_00000001", "Hello.", "", 1),
+        msg("start_00000002", "How are you doing today?", "", 2),
+        msg("start_00000005", "I will see you later.", "", 3),
+        msg("start_00000006", "What a completely new line.", "", 4)
+    );
+    Catalog translations = catalog(
+        msg("start_00000001", "Hello.", "Bonjour.", 1),
+        msg("start_00000002", "How are you today?", "Comment vas-tu aujourd'hui ?", 2),
+        msg("start_00000003", "I will see you later!", "À plus tard !", 3),
+        msg("start_00000004", "This line was cut.", "Cette ligne a été coupée.", 10)
+    );
+    UpdateResolver resolver = new UpdateResolver(template, translations, null);
+    resolver.update();
+    Catalog result = resolver.getResult();
+
+    assertEquals("Bonjour.", result.get(key("start_00000001", "Hello.")).getMsgstr());
+    assertEquals("Comment vas-tu aujourd'hui ?",
+        result.get(key("start_00000002", "How are you doing today?")).getMsgstr());
+    assertEquals("À plus tard !", result.get(key("start_00000005", "I will see you later.")).getMsgstr());
+    String newMsgstr = result.get(key("start_00000006", "What a completely new line.")).getMsgstr();
+    assertTrue(newMsgstr == null || newMsgstr.isEmpty());
+    Message cut = result.get(key("start_00000004", "This line was cut."));
+    assertNotNull(cut);
+    assertTrue(cut.isObsolete());
+    assertFalse(result.contains(key("start_00000003", "I will see you later!")));
+
+    UpdateResolver.Report report = resolver.getReport();
+    assertEquals(1, report.unchanged());
+    assertEquals(1, report.renamed());
+    assertEquals(1, report.aligned() + report.similar());
+    assertEquals(1, report.markedNew());
+    assertEquals(1, report.obsolete());
+  }
+
+  @Test
+  void matchWithMatcher() {
+    Catalog template = catalog(
+        msg("start_00000001", "Where did everyone go?", "", 1),
+        msg("start_00000002", "Nothing like it before.", "", 20)
+    );
+    Catalog translations = catalog(
+        msg("start_00000003", "Where did everybody go?", "Où est passé tout le monde ?", 40)
+    );
+    MessageKey moved = key("start_00000001", "Where did everyone go?");
+    MessageKey added = key("start_00000002", "Nothing like it before.");
+    MessageKey orphan = key("start_00000003", "Where did everybody go?");
+    UpdateResolver resolver = new UpdateResolver(template, translations, new UpdateResolver.Options(0.7F, false, false, true));
+    UpdateResolver.Matches matches = resolver.match(Set.of(moved, added), Set.of(orphan), new UpdateResolver.Matcher() {
+      @Override
+      public Collection<MessageKey> getCandidates(MessageKey problem) {
+        // only ever offers the orphan, which the default matcher would not since it is in a different file
+        return List.of(orphan);
+      }
+
+      @Override
+      public float getSimilarity(String a, String b, float threshold) {
+        return a.startsWith("Where") ? 0.9F : 0.1F;
+      }
+    });
+
+    assertEquals(List.of(), matches.renamed());
+    List<ProblemResolution> resolved = new ArrayList<>(matches.aligned());
+    resolved.addAll(matches.similar());
+    assertEquals(List.of(new ProblemResolution(moved, orphan, false)), resolved);
+    assertEquals(Set.of(added), matches.unmatched());
+    assertNull(resolver.getResult());
+  }
+
+}
@@ -0,0 +1,50 @@
+package me.whizvox.rpy2po.test;
+
+import me.whizvox.rpy2po.core.StringUtil;
+import me.whizvox.rpy2po.core.VectorizedEditDistance;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// only compiled with -Dvector, see pom.xml
+public class VectorizedEditDistanceTest {
+
+  private static final String[] STRINGS = {
+      "",
+      "a",
+      "Hello there.",
+      "hello there!",
+      "Well, hello there. How are you?",
+      "Good morning!",
+      "What are you doing here?",
+      // becomes longer when lowercased
+      "\u0130stanbul, \u0130zmir, " + "\u0130".repeat(20)
+  };
+
+  @Test
+  void getEditDistance() {
+    Random random = new Random(0);
+    List<String> strings = new ArrayList<>(List.of(STRINGS));
+    for (int i = 0; i < 20; i++) {
+      StringBuilder sb = new StringBuilder();
+      int length = random.nextInt(120);
+      for (int j = 0; j < length; j++) {
+        sb.append((char) ('a' + random.nextInt(4)));
+      }
+      strings.add(sb.toString());
+    }
+    for (String a : strings) {
+      for (String b : strings) {
+        int expected = StringUtil.getEditDistance(a, b);
+        for (int max = 0; max <= 130; max += 1 + max / 8) {
+          assertEquals(Math.min(expected, max + 1), VectorizedEditDistance.getEditDistance(a, b, max));
+        }
+      }
+    }
+  }
+
+}